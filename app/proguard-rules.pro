@@ -15,3 +15,8 @@
 #-keepclassmembers class fqcn.of.javascript.interface.for.webview {
 #   public *;
 #}
+
+# Saripaar loads the classes generated by its annotation processor by name
+-keep class * extends com.mobsandgeeks.saripaar.GeneratedValidation {
+    public <init>();
+}
@@ -15,8 +15,11 @@
 package com.mobsandgeeks.saripaar;
 
 import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Build;
 
 import java.lang.annotation.Annotation;
+import java.util.Locale;
 
 /**
  * Saripaar {@link Annotation}s have an
@@ -24,6 +27,10 @@ import java.lang.annotation.Annotation;
  * {@link com.mobsandgeeks.saripaar.annotation.ValidateUsing} annotation. Like stock annotations,
  * custom annotations must also have a corresponding
  * {@link AnnotationRule}.
+ * <p>
+ * Stock rules other than {@link ContextualAnnotationRule}s hold nothing but their annotation,
+ * and a single instance of each is shared by all {@link Validator}s of a controller class. Custom
+ * rules are created for each {@link Validator}, so they may keep state.
  *
  * @param <RULE_ANNOTATION>  The associated rule {@link Annotation}.
  * @param <DATA_TYPE>  The data type this rule operates on.
@@ -36,6 +43,11 @@ public abstract class AnnotationRule<RULE_ANNOTATION extends Annotation, DATA_TY
 
     protected final RULE_ANNOTATION mRuleAnnotation;
 
+    // Attributes read once, the annotation is not touched again to report a failure
+    private final int mMessageResId;
+    private final String mMessage;
+    private volatile LocalizedMessage mLocalizedMessage;
+
     /**
      * Constructor. It is mandatory that all subclasses MUST have a constructor with the same
      * signature.
@@ -50,6 +62,9 @@ public abstract class AnnotationRule<RULE_ANNOTATION extends Annotation, DATA_TY
             throw new IllegalArgumentException("'ruleAnnotation' cannot be null.");
         }
         mRuleAnnotation = ruleAnnotation;
+        mMessageResId = Reflector.getAttributeValue(ruleAnnotation, "messageResId",
+                Integer.class);
+        mMessage = Reflector.getAttributeValue(ruleAnnotation, "message", String.class);
     }
 
     /**
@@ -57,11 +72,42 @@ public abstract class AnnotationRule<RULE_ANNOTATION extends Annotation, DATA_TY
      */
     @Override
     public String getMessage(final Context context) {
-        final int messageResId = Reflector.getAttributeValue(mRuleAnnotation, "messageResId",
-                Integer.class);
+        if (mMessageResId == -1) {
+            return mMessage;
+        }
+
+        // Resolved again only when the locales change
+        final Object locales = getLocales(context.getResources().getConfiguration());
+        LocalizedMessage localizedMessage = mLocalizedMessage;
+        if (localizedMessage == null || !localizedMessage.mLocales.equals(locales)) {
+            localizedMessage = new LocalizedMessage(locales, context.getString(mMessageResId));
+            mLocalizedMessage = localizedMessage;
+        }
+
+        return localizedMessage.mMessage;
+    }
 
-        return messageResId != -1
-                ? context.getString(messageResId)
-                : Reflector.getAttributeValue(mRuleAnnotation, "message", String.class);
+    /**
+     * Returns the locales resources are resolved for, the {@link android.os.LocaleList} from
+     * Nougat on and the {@link Locale} before.
+     */
+    @SuppressWarnings("deprecation")
+    private static Object getLocales(final Configuration configuration) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? configuration.getLocales()
+                : configuration.locale;
+    }
+
+    /**
+     * A message resource resolved for the locales of a {@link Configuration}.
+     */
+    private static final class LocalizedMessage {
+        private final Object mLocales;
+        private final String mMessage;
+
+        LocalizedMessage(final Object locales, final String message) {
+            mLocales = locales;
+            mMessage = message;
+        }
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar;
+
+import android.view.View;
+
+import java.lang.annotation.Annotation;
+
+/**
+ * Base class of the {@code <Controller>_Validation} classes generated by the Saripaar annotation
+ * processor. A generated class describes the annotated {@link View} fields of a controller class
+ * and its superclasses, reads them directly and creates their {@link AnnotationRule}s without
+ * reflection. The {@link Validator} uses it when it is present, and falls back to reflection
+ * otherwise.
+ * <p>
+ * Fields are numbered in the order reflection would find them: the fields of the controller class
+ * first, then those of its superclasses. The annotations of a field are the rule annotations and
+ * the {@link com.mobsandgeeks.saripaar.annotation.Order} annotation, in declaration order, with
+ * the attribute values known at compile time.
+ *
+ * @param <CONTROLLER>  The controller class.
+ */
+public abstract class GeneratedValidation<CONTROLLER> {
+
+    /**
+     * Suffix appended to the binary name of a controller class to name its generated class.
+     */
+    public static final String SUFFIX = "_Validation";
+
+    /**
+     * Returns the number of annotated {@link View} fields.
+     *
+     * @return The number of fields.
+     */
+    public abstract int getFieldCount();
+
+    /**
+     * Returns the name of a field.
+     *
+     * @param field  The field index.
+     *
+     * @return The field name.
+     */
+    public abstract String getFieldName(int field);
+
+    /**
+     * Returns the declared type of a field.
+     *
+     * @param field  The field index.
+     *
+     * @return The {@link View} type of the field.
+     */
+    public abstract Class<? extends View> getFieldType(int field);
+
+    /**
+     * Returns the annotations of a field. The array is shared and must not be modified.
+     *
+     * @param field  The field index.
+     *
+     * @return The rule and order annotations of the field.
+     */
+    public abstract Annotation[] getAnnotations(int field);
+
+    /**
+     * Reads a field of a controller instance.
+     *
+     * @param controller  The controller instance.
+     * @param field  The field index.
+     *
+     * @return The {@link View} held by the field.
+     */
+    public abstract View getView(CONTROLLER controller, int field);
+
+    /**
+     * Creates the {@link AnnotationRule} for an annotation of a field.
+     *
+     * @param field  The field index.
+     * @param annotation  The index of the annotation in {@link #getAnnotations(int)}.
+     * @param validationContext  The {@link ValidationContext} for a
+     *      {@link ContextualAnnotationRule}.
+     *
+     * @return The rule, or null if its constructor is not accessible to the generated class and
+     *      the rule has to be created through reflection.
+     */
+    public abstract AnnotationRule newRule(int field, int annotation,
+            ValidationContext validationContext);
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar;
+
+import android.util.Pair;
+import android.view.View;
+
+import com.mobsandgeeks.saripaar.adapter.ViewDataAdapter;
+import com.mobsandgeeks.saripaar.exception.ConversionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates only what changed since the last pass. The data and the outcome of every
+ * {@link Rule} are kept for each {@link View}, and a rule runs again only when the data of its
+ * {@link View} changes. A {@link ContextualAnnotationRule} also runs again when one of the
+ * {@link View}s it read through the {@link ValidationContext} changes. {@link QuickRule}s do not
+ * use adapters, they run again whenever their {@link View} changes.
+ * <p>
+ * Each pass reports the {@link View}s that started failing, or fail different rules, and those
+ * that stopped failing.
+ */
+final class IncrementalValidation {
+    // Cached data of a view whose adapter could not convert it
+    private static final Object CONVERSION_FAILED = new Object();
+
+    // Attributes
+    private final ValidationContext mValidationContext;
+    private final Map<View, FieldState> mFieldStates = new HashMap<View, FieldState>();
+    private final Set<View> mChangedViews = new HashSet<View>();
+
+    IncrementalValidation(final ValidationContext validationContext) {
+        mValidationContext = validationContext;
+    }
+
+    /**
+     * Marks a {@link View} as changed, its rules and the rules depending on it will run in the
+     * next pass.
+     *
+     * @param view  The {@link View} that changed.
+     */
+    void markChanged(final View view) {
+        mChangedViews.add(view);
+    }
+
+    /**
+     * Forgets the state of a {@link View}, its rules will run in the next pass without reporting
+     * a change.
+     *
+     * @param view  The {@link View}.
+     */
+    void forget(final View view) {
+        mFieldStates.remove(view);
+        mChangedViews.remove(view);
+    }
+
+    /**
+     * Validates the changed {@link View}s and those whose contextual rules depend on them.
+     * {@link View}s seen for the first time are validated to have a baseline, they are not
+     * reported unless they changed.
+     *
+     * @param viewRulesMap  The {@link View}s in order, mapped to their rules and adapters.
+     *
+     * @return The {@link View}s whose outcome changed.
+     */
+    Changes validate(final Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> viewRulesMap) {
+        final List<ValidationError> validationErrors = new ArrayList<ValidationError>();
+        final List<View> passedViews = new ArrayList<View>();
+
+        // Views whose rules were removed
+        Iterator<View> stateViews = mFieldStates.keySet().iterator();
+        while (stateViews.hasNext()) {
+            if (!viewRulesMap.containsKey(stateViews.next())) {
+                stateViews.remove();
+            }
+        }
+
+        for (Map.Entry<View, ArrayList<Pair<Rule, ViewDataAdapter>>> entry
+                : viewRulesMap.entrySet()) {
+            View view = entry.getKey();
+            boolean changed = mChangedViews.contains(view);
+            FieldState fieldState = mFieldStates.get(view);
+            boolean baseline = fieldState == null;
+            if (baseline) {
+                fieldState = new FieldState();
+                mFieldStates.put(view, fieldState);
+            } else if (!changed && !fieldState.mSkipped
+                    && !fieldState.dependsOn(mChangedViews)) {
+                continue;
+            }
+
+            // Rules of views that are not shown do not run, their outcome is kept as reported
+            // and they are validated again once shown
+            if (!view.isShown() || !view.isEnabled()) {
+                if (baseline && !changed) {
+                    mFieldStates.remove(view);
+                } else {
+                    fieldState.mSkipped = true;
+                }
+                continue;
+            }
+
+            List<Rule> failedRules = getFailedRules(view, entry.getValue(), fieldState,
+                    changed || baseline || fieldState.mSkipped);
+            fieldState.mSkipped = false;
+
+            // Report, a baseline is compared with the next outcome
+            if (!baseline || changed) {
+                if (!failedRules.isEmpty() && !failedRules.equals(fieldState.mReportedRules)) {
+                    validationErrors.add(new ValidationError(view, failedRules));
+                } else if (failedRules.isEmpty() && !fieldState.mReportedRules.isEmpty()) {
+                    passedViews.add(view);
+                }
+                fieldState.mReportedRules = failedRules;
+            }
+        }
+        mChangedViews.clear();
+
+        return new Changes(validationErrors, passedViews);
+    }
+
+    /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *  Private Methods
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+    private List<Rule> getFailedRules(final View view,
+            final List<Pair<Rule, ViewDataAdapter>> ruleAdapterPairs,
+            final FieldState fieldState, final boolean changed) {
+        List<Rule> failedRules = new ArrayList<Rule>();
+
+        // Rules of a view usually share their adapter
+        ViewDataAdapter lastDataAdapter = null;
+        Object lastData = null;
+
+        Map<Rule, RuleState> ruleStates = new HashMap<Rule, RuleState>();
+        for (Pair<Rule, ViewDataAdapter> ruleAdapterPair : ruleAdapterPairs) {
+            Rule rule = ruleAdapterPair.first;
+            ViewDataAdapter dataAdapter = ruleAdapterPair.second;
+            RuleState ruleState = fieldState.mRuleStates.get(rule);
+            boolean evaluated = ruleState != null;
+            if (!evaluated) {
+                ruleState = new RuleState();
+            }
+            ruleStates.put(rule, ruleState);
+
+            if (rule instanceof QuickRule) {
+                if (changed || !evaluated) {
+                    ruleState.mValid = rule.isValid(view);
+                }
+            } else if (rule instanceof AnnotationRule) {
+                boolean contextual = rule instanceof ContextualAnnotationRule;
+                Object data = ruleState.mData;
+                boolean run = !evaluated
+                        || contextual && intersects(ruleState.mReadViews, mChangedViews);
+                if (changed || !evaluated) {
+                    if (dataAdapter != lastDataAdapter) {
+                        lastData = getData(view, dataAdapter);
+                        lastDataAdapter = dataAdapter;
+                    }
+                    run |= !equals(data, lastData);
+                    data = lastData;
+                }
+
+                if (run) {
+                    ruleState.mData = data;
+                    ruleState.mValid = data != CONVERSION_FAILED && isValid(rule, data,
+                            ruleState, contextual);
+                }
+            }
+
+            if (!ruleState.mValid) {
+                failedRules.add(rule);
+            }
+        }
+        fieldState.mRuleStates = ruleStates;
+
+        return failedRules;
+    }
+
+    private boolean isValid(final Rule rule, final Object data, final RuleState ruleState,
+            final boolean contextual) {
+        if (!contextual) {
+            return rule.isValid(data);
+        }
+
+        // Record the views read by the rule, to run it again when they change
+        Set<View> readViews = new HashSet<View>();
+        mValidationContext.setReadViews(readViews);
+        try {
+            return rule.isValid(data);
+        } finally {
+            mValidationContext.setReadViews(null);
+            ruleState.mReadViews = readViews;
+        }
+    }
+
+    private static Object getData(final View view, final ViewDataAdapter dataAdapter) {
+        try {
+            // An adapter may return the live text of its view, which always equals itself
+            Object data = dataAdapter.getData(view);
+            return data instanceof CharSequence && !(data instanceof String)
+                    ? data.toString()
+                    : data;
+        } catch (ConversionException e) {
+            e.printStackTrace();
+            return CONVERSION_FAILED;
+        }
+    }
+
+    private static boolean equals(final Object lhs, final Object rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+
+    private static boolean intersects(final Set<View> lhs, final Set<View> rhs) {
+        if (lhs == null) {
+            return false;
+        }
+        for (View view : lhs) {
+            if (rhs.contains(view)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The rules of a {@link View}, the failures last reported for it, and whether it was skipped
+     * while not shown.
+     */
+    private static final class FieldState {
+        private Map<Rule, RuleState> mRuleStates = new HashMap<Rule, RuleState>();
+        private List<Rule> mReportedRules = Collections.emptyList();
+        private boolean mSkipped;
+
+        boolean dependsOn(final Set<View> changedViews) {
+            for (RuleState ruleState : mRuleStates.values()) {
+                if (intersects(ruleState.mReadViews, changedViews)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The data a {@link Rule} last ran with, its outcome, and for a
+     * {@link ContextualAnnotationRule} the {@link View}s it read.
+     */
+    private static final class RuleState {
+        private Object mData;
+        private boolean mValid;
+        private Set<View> mReadViews;
+    }
+
+    static class Changes {
+        List<ValidationError> errors;
+        List<View> passedViews;
+
+        Changes(final List<ValidationError> errors, final List<View> passedViews) {
+            this.errors = errors;
+            this.passedViews = passedViews;
+        }
+
+        boolean isEmpty() {
+            return errors.isEmpty() && passedViews.isEmpty();
+        }
+    }
+}
@@ -25,6 +25,9 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Contains reflection methods that are helpful for introspection and retrieval of frequently used
@@ -34,6 +37,9 @@ import java.lang.reflect.Modifier;
  * @since 2.0
  */
 final class Reflector {
+    // Attribute methods by name, for each annotation type
+    private static final Map<Class<? extends Annotation>, Map<String, Method>> ATTRIBUTE_METHODS =
+            new ConcurrentHashMap<Class<? extends Annotation>, Map<String, Method>>();
 
     /**
      * Retrieves the attribute method of the given {@link Annotation}.
@@ -47,13 +53,15 @@ final class Reflector {
      */
     public static Method getAttributeMethod(final Class<? extends Annotation> annotationType,
                                             final String attributeName) {
-        Method attributeMethod = null;
-        try {
-            attributeMethod = annotationType.getMethod(attributeName);
-        } catch (NoSuchMethodException e) {
-            e.printStackTrace();
+        Map<String, Method> attributeMethods = ATTRIBUTE_METHODS.get(annotationType);
+        if (attributeMethods == null) {
+            attributeMethods = new HashMap<String, Method>();
+            for (Method method : annotationType.getDeclaredMethods()) {
+                attributeMethods.put(method.getName(), method);
+            }
+            ATTRIBUTE_METHODS.put(annotationType, attributeMethods);
         }
-        return attributeMethod;
+        return attributeMethods.get(attributeName);
     }
 
     /**
@@ -168,24 +176,70 @@ final class Reflector {
     public static AnnotationRule instantiateRule(final Class<? extends AnnotationRule> ruleType,
                                                  final Annotation ruleAnnotation, final ValidationContext validationContext)
                     throws SaripaarViolationException {
-        AnnotationRule rule = null;
+        Constructor<?> constructor = getRuleConstructor(ruleType, ruleAnnotation.annotationType());
+        return instantiateRule(constructor, ruleAnnotation, validationContext);
+    }
+
+    /**
+     * Finds the constructor of an {@link AnnotationRule} type, which takes the rule
+     * {@link Annotation} and for a {@link ContextualAnnotationRule}, a
+     * {@link ValidationContext}.
+     *
+     * @param ruleType  The {@link AnnotationRule} class.
+     * @param annotationType  The rule {@link Annotation} class paired with the rule.
+     *
+     * @return The accessible constructor, null if the type is not an {@link AnnotationRule}.
+     *
+     * @throws SaripaarViolationException if {@link AnnotationRule} does not
+     *      have the required constructor.
+     */
+    public static Constructor<?> getRuleConstructor(final Class<? extends AnnotationRule> ruleType,
+            final Class<? extends Annotation> annotationType) throws SaripaarViolationException {
+        Constructor<?> constructor = null;
 
         try {
             if (ContextualAnnotationRule.class.isAssignableFrom(ruleType)) {
-                Constructor<?> constructor = ruleType.getDeclaredConstructor(
-                        ValidationContext.class, ruleAnnotation.annotationType());
-                constructor.setAccessible(true);
-                rule = (AnnotationRule) constructor.newInstance(validationContext, ruleAnnotation);
+                constructor = ruleType.getDeclaredConstructor(ValidationContext.class,
+                        annotationType);
             } else if (AnnotationRule.class.isAssignableFrom(ruleType)) {
-                Constructor<?> constructor = ruleType.getDeclaredConstructor(
-                        ruleAnnotation.annotationType());
-                constructor.setAccessible(true);
-                rule = (AnnotationRule) constructor.newInstance(ruleAnnotation);
+                constructor = ruleType.getDeclaredConstructor(annotationType);
             }
         } catch (NoSuchMethodException e) {
-            String message = getMissingConstructorErrorMessage(ruleType,
-                    ruleAnnotation.annotationType());
+            String message = getMissingConstructorErrorMessage(ruleType, annotationType);
             throw new SaripaarViolationException(message);
+        }
+
+        if (constructor != null) {
+            constructor.setAccessible(true);
+        }
+        return constructor;
+    }
+
+    /**
+     * Instantiates a {@link AnnotationRule} object with a constructor found by
+     * {@link #getRuleConstructor(Class, Class)}.
+     *
+     * @param constructor  The rule constructor.
+     * @param ruleAnnotation  The rule {@link Annotation} associated with
+     *      the {@link AnnotationRule}.
+     * @param validationContext  The {@link ValidationContext} passed to a
+     *      {@link ContextualAnnotationRule}.
+     *
+     * @return The instantiated {@link AnnotationRule} object.
+     */
+    public static AnnotationRule instantiateRule(final Constructor<?> constructor,
+            final Annotation ruleAnnotation, final ValidationContext validationContext) {
+        AnnotationRule rule = null;
+        if (constructor == null) {
+            return rule;
+        }
+
+        try {
+            if (ContextualAnnotationRule.class.isAssignableFrom(constructor.getDeclaringClass())) {
+                rule = (AnnotationRule) constructor.newInstance(validationContext, ruleAnnotation);
+            } else {
+                rule = (AnnotationRule) constructor.newInstance(ruleAnnotation);
+            }
         } catch (InvocationTargetException e) {
             e.printStackTrace();
         } catch (InstantiationException e) {
@@ -34,9 +34,18 @@ final class SaripaarFieldsComparator implements Comparator<Field> {
      */
     @Override
     public int compare(final Field lhsField, final Field rhsField) {
-        final Order lhsOrderAnnotation = lhsField.getAnnotation(Order.class);
-        final Order rhsOrderAnnotation = rhsField.getAnnotation(Order.class);
+        return compare(lhsField.getAnnotation(Order.class), rhsField.getAnnotation(Order.class));
+    }
 
+    /**
+     * Compares the {@link Order} annotations of two fields.
+     *
+     * @param lhsOrderAnnotation  The {@link Order} of the first field, or null.
+     * @param rhsOrderAnnotation  The {@link Order} of the second field, or null.
+     *
+     * @return The comparison, 0 if either field is not ordered.
+     */
+    public int compare(final Order lhsOrderAnnotation, final Order rhsOrderAnnotation) {
         int comparison;
         if (lhsOrderAnnotation == null || rhsOrderAnnotation == null) {
             mOrderedFields = false;
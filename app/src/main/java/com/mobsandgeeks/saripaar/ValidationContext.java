@@ -18,7 +18,6 @@ import android.util.Pair;
 import android.view.View;
 
 import com.mobsandgeeks.saripaar.adapter.ViewDataAdapter;
-import com.mobsandgeeks.saripaar.annotation.ValidateUsing;
 import com.mobsandgeeks.saripaar.exception.ConversionException;
 
 import java.lang.annotation.Annotation;
@@ -37,6 +36,7 @@ public class ValidationContext {
 
     // Attributes
     Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> mViewRulesMap;
+    private final ThreadLocal<Set<View>> mReadViews = new ThreadLocal<Set<View>>();
 
     ValidationContext() {
     }
@@ -53,10 +53,6 @@ public class ValidationContext {
         assertNotNull(saripaarAnnotation, "saripaarAnnotation");
         assertIsRegisteredAnnotation(saripaarAnnotation);
 
-        // Get the AnnotationRule class
-
-        Class<? extends AnnotationRule> annotationRuleClass = getRuleClass(saripaarAnnotation);
-
         // Find all views with the target rule
         List<View> annotatedViews = new ArrayList<View>();
         Set<View> views = mViewRulesMap.keySet();
@@ -64,7 +60,7 @@ public class ValidationContext {
             ArrayList<Pair<Rule, ViewDataAdapter>> ruleAdapterPairs = mViewRulesMap.get(view);
             for (Pair<Rule, ViewDataAdapter> ruleAdapterPair : ruleAdapterPairs) {
                 boolean uniqueMatchingView =
-                        annotationRuleClass.equals(ruleAdapterPair.first.getClass())
+                        isRuleFor(ruleAdapterPair.first, saripaarAnnotation)
                                 && !annotatedViews.contains(view);
                 if (uniqueMatchingView) {
                     annotatedViews.add(view);
@@ -88,12 +84,16 @@ public class ValidationContext {
         assertNotNull(view, "view");
         assertNotNull(saripaarAnnotation, "saripaarAnnotation");
 
+        Set<View> readViews = mReadViews.get();
+        if (readViews != null) {
+            readViews.add(view);
+        }
+
         Object data = null;
         ArrayList<Pair<Rule, ViewDataAdapter>> ruleAdapterPairs = mViewRulesMap.get(view);
-        Class<? extends AnnotationRule> annotationRuleClass = getRuleClass(saripaarAnnotation);
 
         for (Pair<Rule, ViewDataAdapter> ruleAdapterPair : ruleAdapterPairs) {
-            if (annotationRuleClass.equals(ruleAdapterPair.first.getClass())) {
+            if (isRuleFor(ruleAdapterPair.first, saripaarAnnotation)) {
                 try {
                     data = ruleAdapterPair.second.getData(view);
                 } catch (ConversionException e) {
@@ -109,6 +109,21 @@ public class ValidationContext {
         mViewRulesMap = viewRulesMap;
     }
 
+    /**
+     * Records the {@link View}s whose data is read on the calling thread, until called again
+     * with null. Used to find the {@link View}s a {@link ContextualAnnotationRule} depends on,
+     * without recording those read by asynchronous validations running at the same time.
+     *
+     * @param readViews  The {@link Set} to add the {@link View}s to, or null to stop recording.
+     */
+    void setReadViews(final Set<View> readViews) {
+        if (readViews != null) {
+            mReadViews.set(readViews);
+        } else {
+            mReadViews.remove();
+        }
+    }
+
     /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      *  Private Methods
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -129,10 +144,11 @@ public class ValidationContext {
         }
     }
 
-    private Class<? extends AnnotationRule> getRuleClass(
+    private boolean isRuleFor(final Rule rule,
             final Class<? extends Annotation> saripaarAnnotation) {
-        ValidateUsing validateUsingAnnotation = saripaarAnnotation
-                .getAnnotation(ValidateUsing.class);
-        return validateUsingAnnotation.value();
+        // Matched by annotation, generated validations may create anonymous rule subclasses
+        return rule instanceof AnnotationRule
+                && saripaarAnnotation.equals(
+                        ((AnnotationRule) rule).mRuleAnnotation.annotationType());
     }
 }
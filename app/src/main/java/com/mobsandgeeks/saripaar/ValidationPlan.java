@@ -0,0 +1,420 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar;
+
+import android.util.Pair;
+import android.view.View;
+
+import com.mobsandgeeks.saripaar.adapter.ViewDataAdapter;
+import com.mobsandgeeks.saripaar.annotation.Order;
+import com.mobsandgeeks.saripaar.annotation.ValidateUsing;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The outcome of the reflection a {@link Validator} needs for a controller class: its annotated
+ * {@link View} fields in order and, for each field, the {@link AnnotationRule}s sorted by
+ * sequence along with their {@link ViewDataAdapter}s. Plans are immutable and kept for each
+ * controller class, so binding a plan to another instance of the class only reads its fields.
+ * <p>
+ * Stock rules that are not {@link ContextualAnnotationRule}s depend on nothing but their
+ * annotation, and are shared by all instances of the controller class. Other rules are created
+ * for each {@link ValidationContext} with their constructors, which are looked up once, since
+ * custom rules may keep state.
+ * <p>
+ * When the annotation processor generated a {@link GeneratedValidation} for the controller class,
+ * the plan is made from it instead: fields are read, and rules are created, without reflection.
+ */
+final class ValidationPlan {
+    private static final String STOCK_RULE_PREFIX = "com.mobsandgeeks.saripaar.rule.";
+
+    private static final Map<Class<?>, ValidationPlan> PLANS =
+            new ConcurrentHashMap<Class<?>, ValidationPlan>();
+
+    // Attributes
+    private final FieldEntry[] mFields;
+    private final RuleFactory[][] mRuleFactories;
+    private final boolean mOrderedFields;
+
+    private ValidationPlan(final FieldEntry[] fields, final RuleFactory[][] ruleFactories,
+            final boolean orderedFields) {
+        mFields = fields;
+        mRuleFactories = ruleFactories;
+        mOrderedFields = orderedFields;
+    }
+
+    /**
+     * Returns the plan for a controller class, creating it if the class has not been seen yet.
+     *
+     * @param controllerClass  The controller class.
+     *
+     * @return The {@link ValidationPlan}.
+     */
+    static ValidationPlan get(final Class<?> controllerClass) {
+        ValidationPlan plan = PLANS.get(controllerClass);
+        if (plan == null) {
+            // Racing threads may both create a plan, which is harmless
+            plan = create(controllerClass);
+            PLANS.put(controllerClass, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * Discards all plans. Called when annotations or adapters are registered, as they change
+     * which fields are validated and how.
+     */
+    static void clear() {
+        PLANS.clear();
+    }
+
+    /**
+     * Tells if all the fields are ordered using the {@link Order} annotation.
+     *
+     * @return true if the fields are ordered, false otherwise.
+     */
+    boolean hasOrderedFields() {
+        return mOrderedFields;
+    }
+
+    /**
+     * Creates the rules for the {@link View}s of a controller instance.
+     *
+     * @param controller  An instance of the controller class of this plan.
+     * @param validationContext  The {@link ValidationContext} for contextual rules.
+     *
+     * @return The {@link View}s in order, mapped to their rules and adapters.
+     */
+    Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> bind(final Object controller,
+            final ValidationContext validationContext) {
+        final Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> viewRulesMap =
+                new LinkedHashMap<View, ArrayList<Pair<Rule, ViewDataAdapter>>>();
+
+        for (int i = 0; i < mFields.length; i++) {
+            final RuleFactory[] ruleFactories = mRuleFactories[i];
+            final ArrayList<Pair<Rule, ViewDataAdapter>> ruleAdapterPairs =
+                    new ArrayList<Pair<Rule, ViewDataAdapter>>(ruleFactories.length);
+            for (RuleFactory ruleFactory : ruleFactories) {
+                ruleAdapterPairs.add(new Pair<Rule, ViewDataAdapter>(
+                        ruleFactory.newRule(validationContext), ruleFactory.mDataAdapter));
+            }
+            viewRulesMap.put(mFields[i].getView(controller), ruleAdapterPairs);
+        }
+
+        return viewRulesMap;
+    }
+
+    /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *  Private Methods
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+    private static ValidationPlan create(final Class<?> controllerClass) {
+        final GeneratedValidation generatedValidation = getGeneratedValidation(controllerClass);
+        final List<FieldEntry> annotatedFields = generatedValidation != null
+                ? getSaripaarAnnotatedFields(generatedValidation)
+                : getSaripaarAnnotatedFields(controllerClass);
+
+        // Sort
+        final SaripaarFieldsComparator comparator = new SaripaarFieldsComparator();
+        Collections.sort(annotatedFields, new Comparator<FieldEntry>() {
+            @Override
+            public int compare(final FieldEntry lhsField, final FieldEntry rhsField) {
+                return comparator.compare(lhsField.mOrder, rhsField.mOrder);
+            }
+        });
+        boolean orderedFields = annotatedFields.size() == 1
+                ? annotatedFields.get(0).mOrder != null
+                : annotatedFields.size() != 0 && comparator.areOrderedFields();
+
+        // The rules are created once here to find their sequence, and to fail early
+        final ValidationContext prototypeContext = new ValidationContext();
+        final SequenceComparator sequenceComparator = new SequenceComparator();
+        final int nFields = annotatedFields.size();
+        final RuleFactory[][] ruleFactories = new RuleFactory[nFields][];
+        for (int i = 0; i < nFields; i++) {
+            FieldEntry field = annotatedFields.get(i);
+
+            List<RuleFactory> factories = new ArrayList<RuleFactory>();
+            for (int j = 0; j < field.mAnnotations.length; j++) {
+                Annotation fieldAnnotation = field.mAnnotations[j];
+                if (Validator.isSaripaarAnnotation(fieldAnnotation.annotationType())) {
+                    factories.add(new RuleFactory(fieldAnnotation, field, j, prototypeContext));
+                }
+            }
+            Collections.sort(factories, new Comparator<RuleFactory>() {
+                @Override
+                public int compare(final RuleFactory lhsFactory, final RuleFactory rhsFactory) {
+                    return sequenceComparator.compare(lhsFactory.mPrototypePair,
+                            rhsFactory.mPrototypePair);
+                }
+            });
+
+            ruleFactories[i] = factories.toArray(new RuleFactory[factories.size()]);
+        }
+
+        FieldEntry[] fields = annotatedFields.toArray(new FieldEntry[nFields]);
+        return new ValidationPlan(fields, ruleFactories, orderedFields);
+    }
+
+    private static GeneratedValidation getGeneratedValidation(final Class<?> controllerClass) {
+        GeneratedValidation generatedValidation = null;
+        try {
+            Class<?> generatedClass = Class.forName(
+                    controllerClass.getName() + GeneratedValidation.SUFFIX,
+                    true, controllerClass.getClassLoader());
+            generatedValidation = (GeneratedValidation) generatedClass.newInstance();
+        } catch (ClassNotFoundException e) {
+            // Not processed, fall back to reflection
+        } catch (InstantiationException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        }
+
+        return generatedValidation;
+    }
+
+    private static List<FieldEntry> getSaripaarAnnotatedFields(
+            final GeneratedValidation generatedValidation) {
+        Set<Class<? extends Annotation>> saripaarAnnotations =
+                Validator.getRegisteredAnnotations();
+
+        List<FieldEntry> annotatedFields = new ArrayList<FieldEntry>();
+        int nFields = generatedValidation.getFieldCount();
+        for (int i = 0; i < nFields; i++) {
+            FieldEntry field = new FieldEntry(generatedValidation, i);
+            if (field.isSaripaarAnnotated(saripaarAnnotations)) {
+                annotatedFields.add(field);
+            }
+        }
+
+        return annotatedFields;
+    }
+
+    private static List<FieldEntry> getSaripaarAnnotatedFields(final Class<?> controllerClass) {
+        Set<Class<? extends Annotation>> saripaarAnnotations =
+                Validator.getRegisteredAnnotations();
+
+        List<FieldEntry> annotatedFields = new ArrayList<FieldEntry>();
+        List<Field> controllerViewFields = getControllerViewFields(controllerClass);
+        for (Field field : controllerViewFields) {
+            FieldEntry fieldEntry = new FieldEntry(field);
+            if (fieldEntry.isSaripaarAnnotated(saripaarAnnotations)) {
+                field.setAccessible(true);
+                annotatedFields.add(fieldEntry);
+            }
+        }
+
+        return annotatedFields;
+    }
+
+    private static List<Field> getControllerViewFields(final Class<?> controllerClass) {
+        List<Field> controllerViewFields = new ArrayList<Field>();
+
+        // Fields declared in the controller
+        controllerViewFields.addAll(getViewFields(controllerClass));
+
+        // Inherited fields
+        Class<?> superClass = controllerClass.getSuperclass();
+        while (!superClass.equals(Object.class)) {
+            List<Field> viewFields = getViewFields(superClass);
+            if (viewFields.size() > 0) {
+                controllerViewFields.addAll(viewFields);
+            }
+            superClass = superClass.getSuperclass();
+        }
+
+        return controllerViewFields;
+    }
+
+    private static List<Field> getViewFields(final Class<?> clazz) {
+        List<Field> viewFields = new ArrayList<Field>();
+        Field[] declaredFields = clazz.getDeclaredFields();
+        for (Field field : declaredFields) {
+            if (View.class.isAssignableFrom(field.getType())) {
+                viewFields.add(field);
+            }
+        }
+
+        return viewFields;
+    }
+
+    private static ViewDataAdapter getDataAdapter(final Annotation saripaarAnnotation,
+            final Class<? extends View> viewFieldType) {
+        final Class<? extends Annotation> annotationType = saripaarAnnotation.annotationType();
+        final Class<?> ruleDataType = Reflector.getRuleDataType(saripaarAnnotation);
+
+        final ViewDataAdapter dataAdapter = Validator.getDataAdapter(annotationType, viewFieldType,
+                ruleDataType);
+
+        // If no matching adapter is found, throw.
+        if (dataAdapter == null) {
+            String viewType = viewFieldType.getName();
+            String message = String.format(
+                    "To use '%s' on '%s', register a '%s' that returns a '%s' from the '%s'.",
+                    annotationType.getName(),
+                    viewType,
+                    ViewDataAdapter.class.getName(),
+                    ruleDataType.getName(),
+                    viewType);
+            throw new UnsupportedOperationException(message);
+        }
+
+        return dataAdapter;
+    }
+
+    private static Class<? extends AnnotationRule> getRuleType(final Annotation ruleAnnotation) {
+        ValidateUsing validateUsing = ruleAnnotation.annotationType()
+                .getAnnotation(ValidateUsing.class);
+        return validateUsing != null ? validateUsing.value() : null;
+    }
+
+    /**
+     * An annotated {@link View} field, read through reflection or a {@link GeneratedValidation}.
+     */
+    private static final class FieldEntry {
+        private final Field mField;
+        private final GeneratedValidation mGeneratedValidation;
+        private final int mIndex;
+        private final String mName;
+        private final Class<? extends View> mType;
+        private final Annotation[] mAnnotations;
+        private final Order mOrder;
+
+        FieldEntry(final Field field) {
+            mField = field;
+            mGeneratedValidation = null;
+            mIndex = -1;
+            mName = field.getName();
+            mType = (Class<? extends View>) field.getType();
+            mAnnotations = field.getAnnotations();
+            mOrder = field.getAnnotation(Order.class);
+        }
+
+        FieldEntry(final GeneratedValidation generatedValidation, final int index) {
+            mField = null;
+            mGeneratedValidation = generatedValidation;
+            mIndex = index;
+            mName = generatedValidation.getFieldName(index);
+            mType = generatedValidation.getFieldType(index);
+            mAnnotations = generatedValidation.getAnnotations(index);
+
+            Order order = null;
+            for (Annotation annotation : mAnnotations) {
+                if (annotation instanceof Order) {
+                    order = (Order) annotation;
+                }
+            }
+            mOrder = order;
+        }
+
+        boolean isSaripaarAnnotated(final Set<Class<? extends Annotation>> registeredAnnotations) {
+            if (mOrder != null) {
+                return true;
+            }
+            for (Annotation annotation : mAnnotations) {
+                if (registeredAnnotations.contains(annotation.annotationType())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        View getView(final Object controller) {
+            View view = null;
+            try {
+                view = mGeneratedValidation != null
+                        ? mGeneratedValidation.getView(controller, mIndex)
+                        : (View) mField.get(controller);
+
+                if (view == null) {
+                    String message = String.format("'%s %s' is null.",
+                            mType.getSimpleName(), mName);
+                    throw new IllegalStateException(message);
+                }
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+            }
+
+            return view;
+        }
+    }
+
+    /**
+     * Supplies the {@link AnnotationRule} for an annotation on a field, along with its
+     * {@link ViewDataAdapter}.
+     */
+    private static final class RuleFactory {
+        private final AnnotationRule mPrototype;
+        private final Pair<Rule, ViewDataAdapter> mPrototypePair;
+        private final ViewDataAdapter mDataAdapter;
+        private final Annotation mRuleAnnotation;
+        private final GeneratedValidation mGeneratedValidation;
+        private final int mField;
+        private final int mAnnotation;
+        private final Constructor<?> mConstructor;
+        private final boolean mShared;
+
+        RuleFactory(final Annotation ruleAnnotation, final FieldEntry field, final int annotation,
+                final ValidationContext prototypeContext) {
+            mDataAdapter = getDataAdapter(ruleAnnotation, field.mType);
+            mRuleAnnotation = ruleAnnotation;
+            mField = field.mIndex;
+            mAnnotation = annotation;
+
+            AnnotationRule prototype = field.mGeneratedValidation != null
+                    ? field.mGeneratedValidation.newRule(mField, mAnnotation, prototypeContext)
+                    : null;
+            if (prototype != null) {
+                mGeneratedValidation = field.mGeneratedValidation;
+                mConstructor = null;
+            } else {
+                mGeneratedValidation = null;
+                mConstructor = Reflector.getRuleConstructor(getRuleType(ruleAnnotation),
+                        ruleAnnotation.annotationType());
+                prototype = Reflector.instantiateRule(mConstructor, ruleAnnotation,
+                        prototypeContext);
+            }
+            mPrototype = prototype;
+
+            // Generated validations instantiate stock rules through anonymous subclasses
+            Class<? extends AnnotationRule> ruleType = getRuleType(ruleAnnotation);
+            mShared = !(prototype instanceof ContextualAnnotationRule) && ruleType != null
+                    && ruleType.getName().startsWith(STOCK_RULE_PREFIX);
+            mPrototypePair = new Pair<Rule, ViewDataAdapter>(prototype, mDataAdapter);
+        }
+
+        AnnotationRule newRule(final ValidationContext validationContext) {
+            if (mShared) {
+                return mPrototype;
+            }
+            return mGeneratedValidation != null
+                    ? mGeneratedValidation.newRule(mField, mAnnotation, validationContext)
+                    : Reflector.instantiateRule(mConstructor, mRuleAnnotation, validationContext);
+        }
+    }
+}
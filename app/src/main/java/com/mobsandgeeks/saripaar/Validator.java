@@ -17,11 +17,15 @@ package com.mobsandgeeks.saripaar;
 import android.os.AsyncTask;
 import android.os.Handler;
 import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Pair;
 import android.view.View;
 import android.widget.CheckBox;
+import android.widget.CompoundButton;
 import android.widget.RadioButton;
 import android.widget.Spinner;
+import android.widget.TextView;
 
 import com.mobsandgeeks.saripaar.adapter.CheckBoxBooleanAdapter;
 import com.mobsandgeeks.saripaar.adapter.RadioButtonBooleanAdapter;
@@ -42,7 +46,6 @@ import com.mobsandgeeks.saripaar.annotation.Isbn;
 import com.mobsandgeeks.saripaar.annotation.Max;
 import com.mobsandgeeks.saripaar.annotation.Min;
 import com.mobsandgeeks.saripaar.annotation.NotEmpty;
-import com.mobsandgeeks.saripaar.annotation.Order;
 import com.mobsandgeeks.saripaar.annotation.Password;
 import com.mobsandgeeks.saripaar.annotation.Pattern;
 import com.mobsandgeeks.saripaar.annotation.Select;
@@ -52,15 +55,15 @@ import com.mobsandgeeks.saripaar.annotation.ValidateUsing;
 import com.mobsandgeeks.saripaar.exception.ConversionException;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The {@link Validator} takes care of validating the
@@ -112,6 +115,11 @@ import java.util.Set;
  *          object.
  *      </li>
  * </ul>
+ * <p>
+ * To validate fields as the user edits them, call
+ * {@link #startIncrementalValidation(IncrementalValidationListener)}. Only the {@link Rule}s of
+ * the {@link View}s that changed run again, and the {@link IncrementalValidationListener} is told
+ * which {@link View}s started or stopped failing.
  *
  * @author Ragunath Jawahar {@literal <rj@mobsandgeeks.com>}
  * @since 1.0
@@ -122,6 +130,9 @@ public class Validator {
     // Entries are registered inside a static block (Placed at the end of source)
     private static final Registry SARIPAAR_REGISTRY = new Registry();
 
+    // Generation of synchronous validations, which are never superseded
+    private static final int NO_GENERATION = 0;
+
     // Holds adapter entries that are mapped to corresponding views.
     private static final
     Map<Class<? extends View>, HashMap<Class<?>, ViewDataAdapter>> REGISTERED_ADAPTERS =
@@ -135,9 +146,19 @@ public class Validator {
     private boolean mOrderedFields;
     private SequenceComparator mSequenceComparator;
     private ViewValidatedAction mViewValidatedAction;
-    private Handler mViewValidatedActionHandler;
+    private Handler mMainThreadHandler;
     private ValidationListener mValidationListener;
-    private AsyncValidationTask mAsyncValidationTask;
+    private Executor mExecutor;
+    private long mDebounceDelayMillis;
+    private Runnable mPendingValidation;
+    private volatile boolean mValidating;
+
+    // Asynchronous validations supersede those with a lower generation
+    private final AtomicInteger mGeneration = new AtomicInteger();
+    private IncrementalValidation mIncrementalValidation;
+    private IncrementalValidationListener mIncrementalValidationListener;
+    private Map<View, ViewChangeWatcher> mViewChangeWatchers;
+    private boolean mWatchCompoundButtons;
 
     /**
      * Constructor.
@@ -152,6 +173,7 @@ public class Validator {
         mValidationContext = new ValidationContext();
         mSequenceComparator = new SequenceComparator();
         mViewValidatedAction = new DefaultViewValidatedAction();
+        mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
     }
 
     /**
@@ -168,6 +190,7 @@ public class Validator {
      */
     public static void registerAnnotation(final Class<? extends Annotation> ruleAnnotation) {
         SARIPAAR_REGISTRY.register(ruleAnnotation);
+        ValidationPlan.clear();
     }
 
     /**
@@ -190,6 +213,7 @@ public class Validator {
         ValidateUsing validateUsing = annotation.getAnnotation(ValidateUsing.class);
         Class ruleDataType = Reflector.getRuleDataType(validateUsing);
         SARIPAAR_REGISTRY.register(viewType, ruleDataType, viewDataAdapter, annotation);
+        ValidationPlan.clear();
     }
 
     /**
@@ -219,6 +243,7 @@ public class Validator {
         Class<?> adapterDataType = getDataMethod.getReturnType();
 
         dataTypeAdapterMap.put(adapterDataType, viewDataAdapter);
+        ValidationPlan.clear();
     }
 
     /**
@@ -265,6 +290,34 @@ public class Validator {
         return mValidationMode;
     }
 
+    /**
+     * Set the {@link Executor} that runs asynchronous validations. Defaults to
+     * {@link AsyncTask#THREAD_POOL_EXECUTOR}, so that slow rules do not hold up the serial
+     * {@link AsyncTask}s of the app.
+     *
+     * @param executor  An {@link Executor} instance, null throws an
+     *      {@link IllegalArgumentException}.
+     */
+    public void setExecutor(final Executor executor) {
+        assertNotNull(executor, "executor");
+        this.mExecutor = executor;
+    }
+
+    /**
+     * Set the delay before an asynchronous validation starts. Asynchronous calls made within
+     * the delay are coalesced, only the last one runs. Useful when validating as the user types.
+     * Defaults to 0, which starts validations right away.
+     *
+     * @param delayMillis  The delay in milliseconds, a negative value throws an
+     *      {@link IllegalArgumentException}.
+     */
+    public void setDebounceDelay(final long delayMillis) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("'delayMillis' cannot be negative.");
+        }
+        this.mDebounceDelayMillis = delayMillis;
+    }
+
     /**
      * Validates all {@link View}s with {@link Rule}s.
      * When validating in {@link Mode#IMMEDIATE}, all
@@ -301,8 +354,8 @@ public class Validator {
      * Validates all {@link View}s with {@link Rule}s.
      * When validating in {@link Mode#IMMEDIATE}, all
      * {@link View} fields must be ordered using the
-     * {@link com.mobsandgeeks.saripaar.annotation.Order} annotation. Asynchronous calls will cancel
-     * any pending or ongoing asynchronous validation and start a new one.
+     * {@link com.mobsandgeeks.saripaar.annotation.Order} annotation. Asynchronous calls supersede
+     * any pending or ongoing asynchronous validation, see {@link #setDebounceDelay(long)}.
      *
      * @param async  true if asynchronous, false otherwise.
      */
@@ -323,8 +376,8 @@ public class Validator {
     /**
      * Validates all {@link View}s before the specified {@link View}
      * parameter. {@link View} fields MUST be ordered using the
-     * {@link com.mobsandgeeks.saripaar.annotation.Order} annotation. Asynchronous calls will cancel
-     * any pending or ongoing asynchronous validation and start a new one.
+     * {@link com.mobsandgeeks.saripaar.annotation.Order} annotation. Asynchronous calls supersede
+     * any pending or ongoing asynchronous validation, see {@link #setDebounceDelay(long)}.
      *
      * @param view  A {@link View}.
      * @param async  true if asynchronous, false otherwise.
@@ -339,8 +392,8 @@ public class Validator {
     /**
      * Validates all {@link View}s till the specified {@link View}
      * parameter. {@link View} fields MUST be ordered using the
-     * {@link com.mobsandgeeks.saripaar.annotation.Order} annotation. Asynchronous calls will cancel
-     * any pending or ongoing asynchronous validation and start a new one.
+     * {@link com.mobsandgeeks.saripaar.annotation.Order} annotation. Asynchronous calls supersede
+     * any pending or ongoing asynchronous validation, see {@link #setDebounceDelay(long)}.
      *
      * @param view  A {@link View}.
      * @param async  true if asynchronous, false otherwise.
@@ -350,31 +403,119 @@ public class Validator {
     }
 
     /**
-     * Used to find if an asynchronous validation task is running. Useful only when you run the
-     * {@link Validator} in asynchronous mode.
+     * Used to find if an asynchronous validation is pending or running. Useful only when you run
+     * the {@link Validator} in asynchronous mode.
      *
-     * @return true if the asynchronous task is running, false otherwise.
+     * @return true if an asynchronous validation has not reported yet, false otherwise.
      */
     public boolean isValidating() {
-        return mAsyncValidationTask != null
-                && mAsyncValidationTask.getStatus() != AsyncTask.Status.FINISHED;
+        return mValidating;
     }
 
     /**
-     * Cancels a running asynchronous validation task.
+     * Cancels a pending or running asynchronous validation. A running validation stops before
+     * its next rule, and its result is dropped.
      *
-     * @return true if a running asynchronous task was cancelled, false otherwise.
+     * @return true if an asynchronous validation was cancelled, false otherwise.
      */
     public boolean cancelAsync() {
-        boolean cancelled = false;
-        if (mAsyncValidationTask != null) {
-            cancelled = mAsyncValidationTask.cancel(true);
-            mAsyncValidationTask = null;
-        }
+        boolean cancelled = mValidating;
+        mGeneration.incrementAndGet();
+        mValidating = false;
+        removePendingValidation();
 
         return cancelled;
     }
 
+    /**
+     * Starts validating {@link View}s as they change. {@link TextView}s are watched using a
+     * {@link TextWatcher}. Changes to {@link CompoundButton}s and other {@link View}s have to be
+     * reported using {@link #notifyViewChanged(View)}, see
+     * {@link #startIncrementalValidation(IncrementalValidationListener, boolean)} to watch
+     * {@link CompoundButton}s too.
+     * <p>
+     * After a change, the {@link Rule}s of the changed {@link View} run again if its data changed,
+     * along with the {@link ContextualAnnotationRule}s that read it. Fields need not be ordered
+     * and the validation {@link Mode} does not apply. Errors of {@link View}s that have not
+     * changed since the start are not reported. Passes run on the main thread as the
+     * {@link View}s change, and do not wait for asynchronous validations that are running.
+     *
+     * @param incrementalValidationListener  An {@link IncrementalValidationListener} instance,
+     *      null throws an {@link IllegalArgumentException}.
+     */
+    public void startIncrementalValidation(
+            final IncrementalValidationListener incrementalValidationListener) {
+        startIncrementalValidation(incrementalValidationListener, false);
+    }
+
+    /**
+     * Starts validating {@link View}s as they change, like
+     * {@link #startIncrementalValidation(IncrementalValidationListener)}. When
+     * {@code watchCompoundButtons} is true, {@link CompoundButton}s are watched using an
+     * {@link CompoundButton.OnCheckedChangeListener}. As a {@link CompoundButton} has a single
+     * listener, it replaces the one set by the app, and
+     * {@link #stopIncrementalValidation()} or {@link #removeRules(View)} clear it. Only opt in
+     * when the app does not listen to its {@link CompoundButton}s.
+     *
+     * @param incrementalValidationListener  An {@link IncrementalValidationListener} instance,
+     *      null throws an {@link IllegalArgumentException}.
+     * @param watchCompoundButtons  true to set the listener of {@link CompoundButton}s, false to
+     *      report their changes using {@link #notifyViewChanged(View)}.
+     */
+    public void startIncrementalValidation(
+            final IncrementalValidationListener incrementalValidationListener,
+            final boolean watchCompoundButtons) {
+        assertNotNull(incrementalValidationListener, "incrementalValidationListener");
+        createRulesSafelyAndLazily(false);
+        stopIncrementalValidation();
+
+        mWatchCompoundButtons = watchCompoundButtons;
+        mIncrementalValidationListener = incrementalValidationListener;
+        mIncrementalValidation = new IncrementalValidation(mValidationContext);
+        mViewChangeWatchers = new HashMap<View, ViewChangeWatcher>();
+        for (View view : mViewRulesMap.keySet()) {
+            watch(view);
+        }
+
+        // Baseline
+        validateChanges();
+    }
+
+    /**
+     * Stops validating {@link View}s as they change, and removes the listeners set by
+     * {@link #startIncrementalValidation(IncrementalValidationListener)}.
+     */
+    public void stopIncrementalValidation() {
+        if (mIncrementalValidation == null) {
+            return;
+        }
+
+        for (View view : new ArrayList<View>(mViewChangeWatchers.keySet())) {
+            unwatch(view);
+        }
+        mIncrementalValidation = null;
+        mIncrementalValidationListener = null;
+        mViewChangeWatchers = null;
+    }
+
+    /**
+     * Reports a change to a {@link View} during incremental validation, and validates the
+     * changes. Useful for {@link View}s that are not watched by the {@link Validator}, such as
+     * {@link CompoundButton}s, from their own {@link CompoundButton.OnCheckedChangeListener}.
+     *
+     * @param view  The {@link View} that changed.
+     */
+    public void notifyViewChanged(final View view) {
+        assertNotNull(view, "view");
+        if (mIncrementalValidation == null) {
+            throw new IllegalStateException("Incremental validation has not been started, "
+                    + "call 'startIncrementalValidation(IncrementalValidationListener)'.");
+        }
+
+        mIncrementalValidation.markChanged(view);
+        validateChanges();
+    }
+
     /**
      * Add one or more {@link QuickRule}s for a {@link View}.
      *
@@ -416,6 +557,11 @@ public class Validator {
         }
         Collections.sort(ruleAdapterPairs, mSequenceComparator);
         mViewRulesMap.put(view, ruleAdapterPairs);
+
+        if (mIncrementalValidation != null) {
+            mIncrementalValidation.forget(view);
+            watch(view);
+        }
     }
 
     /**
@@ -429,12 +575,21 @@ public class Validator {
             createRulesSafelyAndLazily(false);
         }
         mViewRulesMap.remove(view);
+
+        if (mIncrementalValidation != null) {
+            mIncrementalValidation.forget(view);
+            unwatch(view);
+        }
     }
 
     static boolean isSaripaarAnnotation(final Class<? extends Annotation> annotation) {
         return SARIPAAR_REGISTRY.getRegisteredAnnotations().contains(annotation);
     }
 
+    static Set<Class<? extends Annotation>> getRegisteredAnnotations() {
+        return SARIPAAR_REGISTRY.getRegisteredAnnotations();
+    }
+
     /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
      *  Private Methods
      * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
@@ -450,8 +605,9 @@ public class Validator {
         // Create rules lazily, because we don't have to worry about the order of
         // instantiating the Validator.
         if (mViewRulesMap == null) {
-            final List<Field> annotatedFields = getSaripaarAnnotatedFields(mController.getClass());
-            mViewRulesMap = createRules(annotatedFields);
+            final ValidationPlan validationPlan = ValidationPlan.get(mController.getClass());
+            mOrderedFields = validationPlan.hasOrderedFields();
+            mViewRulesMap = validationPlan.bind(mController, mValidationContext);
             mValidationContext.setViewRulesMap(mViewRulesMap);
         }
 
@@ -463,133 +619,8 @@ public class Validator {
         }
     }
 
-    private List<Field> getSaripaarAnnotatedFields(final Class<?> controllerClass) {
-        Set<Class<? extends Annotation>> saripaarAnnotations =
-                SARIPAAR_REGISTRY.getRegisteredAnnotations();
-
-        List<Field> annotatedFields = new ArrayList<Field>();
-        List<Field> controllerViewFields = getControllerViewFields(controllerClass);
-        for (Field field : controllerViewFields) {
-            if (isSaripaarAnnotatedField(field, saripaarAnnotations)) {
-                annotatedFields.add(field);
-            }
-        }
-
-        // Sort
-        SaripaarFieldsComparator comparator = new SaripaarFieldsComparator();
-        Collections.sort(annotatedFields, comparator);
-        mOrderedFields = annotatedFields.size() == 1
-                ? annotatedFields.get(0).getAnnotation(Order.class) != null
-                : annotatedFields.size() != 0 && comparator.areOrderedFields();
-
-        return annotatedFields;
-    }
-
-    private List<Field> getControllerViewFields(final Class<?> controllerClass) {
-        List<Field> controllerViewFields = new ArrayList<Field>();
-
-        // Fields declared in the controller
-        controllerViewFields.addAll(getViewFields(controllerClass));
-
-        // Inherited fields
-        Class<?> superClass = controllerClass.getSuperclass();
-        while (!superClass.equals(Object.class)) {
-            List<Field> viewFields = getViewFields(superClass);
-            if (viewFields.size() > 0) {
-                controllerViewFields.addAll(viewFields);
-            }
-            superClass = superClass.getSuperclass();
-        }
-
-        return controllerViewFields;
-    }
-
-    private List<Field> getViewFields(final Class<?> clazz) {
-        List<Field> viewFields = new ArrayList<Field>();
-        Field[] declaredFields = clazz.getDeclaredFields();
-        for (Field field : declaredFields) {
-            if (View.class.isAssignableFrom(field.getType())) {
-                viewFields.add(field);
-            }
-        }
-
-        return viewFields;
-    }
-
-    private boolean isSaripaarAnnotatedField(final Field field,
-            final Set<Class<? extends Annotation>> registeredAnnotations) {
-        boolean hasOrderAnnotation = field.getAnnotation(Order.class) != null;
-        boolean hasSaripaarAnnotation = false;
-
-        if (!hasOrderAnnotation) {
-            Annotation[] annotations = field.getAnnotations();
-            for (Annotation annotation : annotations) {
-                hasSaripaarAnnotation = registeredAnnotations.contains(annotation.annotationType());
-                if (hasSaripaarAnnotation) {
-                    break;
-                }
-            }
-        }
-
-        return hasOrderAnnotation || hasSaripaarAnnotation;
-    }
-
-    private Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> createRules(
-            final List<Field> annotatedFields) {
-
-        final Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> viewRulesMap =
-                new LinkedHashMap<View, ArrayList<Pair<Rule, ViewDataAdapter>>>();
-
-        for (Field field : annotatedFields) {
-            final ArrayList<Pair<Rule, ViewDataAdapter>> ruleAdapterPairs =
-                    new ArrayList<Pair<Rule, ViewDataAdapter>>();
-            final Annotation[] fieldAnnotations = field.getAnnotations();
-            for (Annotation fieldAnnotation : fieldAnnotations) {
-                if (isSaripaarAnnotation(fieldAnnotation.annotationType())) {
-                    Pair<Rule, ViewDataAdapter> ruleAdapterPair =
-                            getRuleAdapterPair(fieldAnnotation, field);
-                    ruleAdapterPairs.add(ruleAdapterPair);
-                }
-            }
-
-            Collections.sort(ruleAdapterPairs, mSequenceComparator);
-            viewRulesMap.put(getView(field), ruleAdapterPairs);
-        }
-
-        return viewRulesMap;
-    }
-
-    private Pair<Rule, ViewDataAdapter> getRuleAdapterPair(final Annotation saripaarAnnotation,
-                                                           final Field viewField) {
-        final Class<? extends Annotation> annotationType = saripaarAnnotation.annotationType();
-        final Class<?> viewFieldType = viewField.getType();
-        final Class<?> ruleDataType = Reflector.getRuleDataType(saripaarAnnotation);
-
-        final ViewDataAdapter dataAdapter = getDataAdapter(annotationType, viewFieldType,
-                ruleDataType);
-
-        // If no matching adapter is found, throw.
-        if (dataAdapter == null) {
-            String viewType = viewFieldType.getName();
-            String message = String.format(
-                    "To use '%s' on '%s', register a '%s' that returns a '%s' from the '%s'.",
-                    annotationType.getName(),
-                    viewType,
-                    ViewDataAdapter.class.getName(),
-                    ruleDataType.getName(),
-                    viewType);
-            throw new UnsupportedOperationException(message);
-        }
-
-        final Class<? extends AnnotationRule> ruleType = getRuleType(saripaarAnnotation);
-        final AnnotationRule rule = Reflector.instantiateRule(ruleType,
-                saripaarAnnotation, mValidationContext);
-
-        return new Pair<Rule, ViewDataAdapter>(rule, dataAdapter);
-    }
-
-    private ViewDataAdapter getDataAdapter(final Class<? extends Annotation> annotationType,
-                                           final Class<?> viewFieldType, final Class<?> adapterDataType) {
+    static ViewDataAdapter getDataAdapter(final Class<? extends Annotation> annotationType,
+            final Class<?> viewFieldType, final Class<?> adapterDataType) {
 
         // Get an adapter from the stock registry
         ViewDataAdapter dataAdapter = SARIPAAR_REGISTRY.getDataAdapter(
@@ -607,32 +638,6 @@ public class Validator {
         return dataAdapter;
     }
 
-    private Class<? extends AnnotationRule> getRuleType(final Annotation ruleAnnotation) {
-        ValidateUsing validateUsing = ruleAnnotation.annotationType()
-                .getAnnotation(ValidateUsing.class);
-        return validateUsing != null ? validateUsing.value() : null;
-    }
-
-    private View getView(final Field field) {
-        View view = null;
-        try {
-            field.setAccessible(true);
-            view = (View) field.get(mController);
-
-            if (view == null) {
-                String message = String.format("'%s %s' is null.",
-                        field.getType().getSimpleName(), field.getName());
-                throw new IllegalStateException(message);
-            }
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
-
-        return view;
-    }
-
     private void validateUnorderedFieldsWithCallbackTill(final View view, final boolean async) {
         validateFieldsWithCallbackTill(view, false, null, async);
     }
@@ -646,18 +651,49 @@ public class Validator {
                                                 final String reasonSuffix, final boolean async) {
         createRulesSafelyAndLazily(false);
         if (async) {
-            if (mAsyncValidationTask != null) {
-                mAsyncValidationTask.cancel(true);
-            }
-            mAsyncValidationTask = new AsyncValidationTask(view, orderedFields, reasonSuffix);
-            mAsyncValidationTask.execute((Void[]) null);
+            validateAsync(view, orderedFields, reasonSuffix);
+        } else {
+            triggerValidationListenerCallback(validateTill(view, orderedFields, reasonSuffix,
+                    NO_GENERATION));
+        }
+    }
+
+    private void validateAsync(final View view, final boolean orderedFields,
+            final String reasonSuffix) {
+        // Supersede pending and running validations
+        final int generation = mGeneration.incrementAndGet();
+        mValidating = true;
+        removePendingValidation();
+
+        final AsyncValidation asyncValidation = new AsyncValidation(view, orderedFields,
+                reasonSuffix, generation);
+        if (mDebounceDelayMillis > 0) {
+            mPendingValidation = new Runnable() {
+                @Override
+                public void run() {
+                    mPendingValidation = null;
+                    mExecutor.execute(asyncValidation);
+                }
+            };
+            getMainThreadHandler().postDelayed(mPendingValidation, mDebounceDelayMillis);
         } else {
-            triggerValidationListenerCallback(validateTill(view, orderedFields, reasonSuffix));
+            mExecutor.execute(asyncValidation);
+        }
+    }
+
+    private void removePendingValidation() {
+        if (mPendingValidation != null) {
+            getMainThreadHandler().removeCallbacks(mPendingValidation);
+            mPendingValidation = null;
         }
     }
 
+    private boolean isStale(final int generation) {
+        return generation != NO_GENERATION && generation != mGeneration.get();
+    }
+
     private synchronized ValidationReport validateTill(final View view,
-            final boolean requiresOrderedRules, final String reasonSuffix) {
+            final boolean requiresOrderedRules, final String reasonSuffix, final int generation) {
         // Do we need ordered rules?
         if (requiresOrderedRules) {
             assertOrderedFields(mOrderedFields, reasonSuffix);
@@ -667,7 +703,7 @@ public class Validator {
         assertNotNull(mValidationListener, "validationListener");
 
         // Everything good. Bingo! validate ;)
-        return getValidationReport(view, mViewRulesMap, mValidationMode);
+        return getValidationReport(view, mViewRulesMap, mValidationMode, generation);
     }
 
     private void triggerValidationListenerCallback(final ValidationReport validationReport) {
@@ -691,7 +727,7 @@ public class Validator {
 
     private ValidationReport getValidationReport(final View targetView,
             final Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> viewRulesMap,
-                    final Mode validationMode) {
+                    final Mode validationMode, final int generation) {
 
         final List<ValidationError> validationErrors = new ArrayList<ValidationError>();
         final Set<View> views = viewRulesMap.keySet();
@@ -711,6 +747,11 @@ public class Validator {
             List<Rule> failedRules = null;
             for (int i = 0; i < nRules; i++) {
 
+                // Superseded validations stop between rules
+                if (isStale(generation)) {
+                    return null;
+                }
+
                 // Validate only views that are visible and enabled
                 if (view.isShown() && view.isEnabled()) {
                     Pair<Rule, ViewDataAdapter> ruleAdapterPair = ruleAdapterPairs.get(i);
@@ -789,10 +830,67 @@ public class Validator {
     }
 
     private void runOnMainThread(final Runnable runnable) {
-        if (mViewValidatedActionHandler == null) {
-            mViewValidatedActionHandler = new Handler(Looper.getMainLooper());
+        getMainThreadHandler().post(runnable);
+    }
+
+    private Handler getMainThreadHandler() {
+        if (mMainThreadHandler == null) {
+            mMainThreadHandler = new Handler(Looper.getMainLooper());
+        }
+        return mMainThreadHandler;
+    }
+
+    private void validateChanges() {
+        final IncrementalValidation.Changes changes = getChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        if (mViewValidatedAction != null) {
+            for (View view : changes.passedViews) {
+                triggerViewValidatedCallback(mViewValidatedAction, view);
+            }
+        }
+        mIncrementalValidationListener.onValidationChanged(changes.errors, changes.passedViews);
+    }
+
+    // Not synchronized, passes run on the main thread and must not wait for asynchronous
+    // validations. The incremental state is only used on the main thread.
+    private IncrementalValidation.Changes getChanges() {
+        return mIncrementalValidation.validate(mViewRulesMap);
+    }
+
+    private void watch(final View view) {
+        if (mViewChangeWatchers.containsKey(view)) {
+            return;
+        }
+
+        // CompoundButtons are TextViews, whose text does not change when they are checked. Their
+        // single listener belongs to the app unless it opted in.
+        if (view instanceof CompoundButton && !mWatchCompoundButtons) {
+            return;
+        }
+
+        ViewChangeWatcher viewChangeWatcher = new ViewChangeWatcher(view);
+        if (view instanceof CompoundButton) {
+            ((CompoundButton) view).setOnCheckedChangeListener(viewChangeWatcher);
+        } else if (view instanceof TextView) {
+            ((TextView) view).addTextChangedListener(viewChangeWatcher);
+        }
+        mViewChangeWatchers.put(view, viewChangeWatcher);
+    }
+
+    private void unwatch(final View view) {
+        ViewChangeWatcher viewChangeWatcher = mViewChangeWatchers.remove(view);
+        if (viewChangeWatcher == null) {
+            return;
+        }
+
+        if (view instanceof CompoundButton) {
+            ((CompoundButton) view).setOnCheckedChangeListener(null);
+        } else if (view instanceof TextView) {
+            ((TextView) view).removeTextChangedListener(viewChangeWatcher);
         }
-        mViewValidatedActionHandler.post(runnable);
     }
 
     private View getLastView() {
@@ -862,6 +960,22 @@ public class Validator {
         void onAllRulesPassed(View view);
     }
 
+    /**
+     * Listener that notifies the changes found by incremental validation.
+     */
+    public interface IncrementalValidationListener {
+
+        /**
+         * Called when {@link View}s start or stop failing.
+         *
+         * @param errors  {@link View}s that started failing, or now fail other {@link Rule}s,
+         *      along with the {@link Rule}s that failed.
+         * @param passedViews  {@link View}s that were failing and now pass all their
+         *      {@link Rule}s.
+         */
+        void onValidationChanged(List<ValidationError> errors, List<View> passedViews);
+    }
+
     /**
      * Validation mode.
      *
@@ -894,26 +1008,72 @@ public class Validator {
         }
     }
 
-    class AsyncValidationTask extends AsyncTask<Void, Void, ValidationReport> {
+    class AsyncValidation implements Runnable {
         private View mView;
         private boolean mOrderedRules;
         private String mReasonSuffix;
+        private int mGeneration;
 
-        public AsyncValidationTask(final View view, final boolean orderedRules,
-                                   final String reasonSuffix) {
+        public AsyncValidation(final View view, final boolean orderedRules,
+                               final String reasonSuffix, final int generation) {
             this.mView = view;
             this.mOrderedRules = orderedRules;
             this.mReasonSuffix = reasonSuffix;
+            this.mGeneration = generation;
+        }
+
+        @Override
+        public void run() {
+            if (isStale(mGeneration)) {
+                return;
+            }
+
+            final ValidationReport validationReport = validateTill(mView, mOrderedRules,
+                    mReasonSuffix, mGeneration);
+            if (validationReport == null) {
+                return;
+            }
+
+            runOnMainThread(new Runnable() {
+                @Override
+                public void run() {
+                    // Drop results superseded while they were posted
+                    if (!isStale(mGeneration)) {
+                        mValidating = false;
+                        triggerValidationListenerCallback(validationReport);
+                    }
+                }
+            });
+        }
+    }
+
+    class ViewChangeWatcher implements TextWatcher, CompoundButton.OnCheckedChangeListener {
+        private View mView;
+
+        public ViewChangeWatcher(final View view) {
+            this.mView = view;
+        }
+
+        @Override
+        public void beforeTextChanged(final CharSequence s, final int start, final int count,
+                final int after) {
+            // Nothing to do
+        }
+
+        @Override
+        public void onTextChanged(final CharSequence s, final int start, final int before,
+                final int count) {
+            // Nothing to do
         }
 
         @Override
-        protected ValidationReport doInBackground(final Void... params) {
-            return validateTill(mView, mOrderedRules, mReasonSuffix);
+        public void afterTextChanged(final Editable s) {
+            notifyViewChanged(mView);
         }
 
         @Override
-        protected void onPostExecute(final ValidationReport validationReport) {
-            triggerValidationListenerCallback(validationReport);
+        public void onCheckedChanged(final CompoundButton buttonView, final boolean isChecked) {
+            notifyViewChanged(mView);
         }
     }
 
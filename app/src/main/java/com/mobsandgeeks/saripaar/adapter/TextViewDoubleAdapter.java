@@ -18,6 +18,10 @@ import android.widget.TextView;
 
 import com.mobsandgeeks.saripaar.exception.ConversionException;
 
+import java.util.regex.Pattern;
+
+import commons.validator.routines.PatternCache;
+
 /**
  * Adapter parses and returns a {@link Double} from {@link TextView}s or
  * its subclasses like {@link android.widget.EditText}s.
@@ -27,11 +31,12 @@ import com.mobsandgeeks.saripaar.exception.ConversionException;
  */
 public class TextViewDoubleAdapter implements ViewDataAdapter<TextView, Double> {
     private static final String REGEX_DECIMAL = "[-+]?[0-9]*\\.?[0-9]+([eE][-+]?[0-9]+)?";
+    private static final Pattern PATTERN_DECIMAL = PatternCache.compile(REGEX_DECIMAL);
 
     @Override
     public Double getData(final TextView editText) throws ConversionException {
         String doubleString = editText.getText().toString().trim();
-        if (!doubleString.matches(REGEX_DECIMAL)) {
+        if (!PATTERN_DECIMAL.matcher(doubleString).matches()) {
             String message = String.format("Expected a floating point number, but was %s",
                 doubleString);
             throw new ConversionException(message);
@@ -18,6 +18,10 @@ import android.widget.TextView;
 
 import com.mobsandgeeks.saripaar.exception.ConversionException;
 
+import java.util.regex.Pattern;
+
+import commons.validator.routines.PatternCache;
+
 /**
  * Adapter returns a {@link Float} from {@link TextView}s or
  * its subclasses like {@link android.widget.EditText}s.
@@ -27,11 +31,12 @@ import com.mobsandgeeks.saripaar.exception.ConversionException;
  */
 public class TextViewFloatAdapter implements ViewDataAdapter<TextView, Float> {
     private static final String REGEX_DECIMAL = "[-+]?[0-9]*\\.?[0-9]+([eE][-+]?[0-9]+)?";
+    private static final Pattern PATTERN_DECIMAL = PatternCache.compile(REGEX_DECIMAL);
 
     @Override
     public Float getData(final TextView editText) throws ConversionException {
         String floatString = editText.getText().toString().trim();
-        if (!floatString.matches(REGEX_DECIMAL)) {
+        if (!PATTERN_DECIMAL.matcher(floatString).matches()) {
             String message = String.format("Expected a floating point number, but was %s",
                 floatString);
             throw new ConversionException(message);
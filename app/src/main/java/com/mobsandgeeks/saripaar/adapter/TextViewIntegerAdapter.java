@@ -18,6 +18,10 @@ import android.widget.TextView;
 
 import com.mobsandgeeks.saripaar.exception.ConversionException;
 
+import java.util.regex.Pattern;
+
+import commons.validator.routines.PatternCache;
+
 /**
  * Adapter parses and returns an {@link Integer} from {@link TextView}s or
  * its subclasses like {@link android.widget.EditText}s.
@@ -27,11 +31,12 @@ import com.mobsandgeeks.saripaar.exception.ConversionException;
  */
 public class TextViewIntegerAdapter implements ViewDataAdapter<TextView, Integer> {
     private static final String REGEX_INTEGER = "\\d+";
+    private static final Pattern PATTERN_INTEGER = PatternCache.compile(REGEX_INTEGER);
 
     @Override
     public Integer getData(final TextView editText) throws ConversionException {
         String integerString = editText.getText().toString().trim();
-        if (!integerString.matches(REGEX_INTEGER)) {
+        if (!PATTERN_INTEGER.matcher(integerString).matches()) {
             String message = String.format("Expected an integer, but was %s", integerString);
             throw new ConversionException(message);
         }
@@ -31,6 +31,7 @@ import java.lang.annotation.Target;
 public @interface Pattern {
     public String regex();
     public boolean caseSensitive()  default true;
+    public long maxSteps()          default 0;
 
     public int sequence()           default -1;
     public int messageResId()       default -1;
@@ -17,14 +17,15 @@ package com.mobsandgeeks.saripaar.rule;
 import com.mobsandgeeks.saripaar.AnnotationRule;
 import com.mobsandgeeks.saripaar.annotation.CreditCard;
 
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 
 import commons.validator.routines.CreditCardValidator;
 
 /**
+ * Checks card numbers with a {@link CreditCardValidator} that is built once, for the card types
+ * of the {@link CreditCard} annotation. Whitespace between the digits is ignored.
+ *
  * @author Ragunath Jawahar {@literal <rj@mobsandgeeks.com>}
  * @since 2.0
  */
@@ -38,24 +39,26 @@ public class CreditCardRule extends AnnotationRule<CreditCard, String> {
                 put(CreditCard.Type.VISA, CreditCardValidator.VISA);
             }};
 
+    private final CreditCardValidator mCreditCardValidator;
+
     protected CreditCardRule(final CreditCard creditCard) {
         super(creditCard);
+        mCreditCardValidator = new CreditCardValidator(getOptions(creditCard.cardTypes()));
     }
 
     @Override
     public boolean isValid(final String creditCardNumber) {
-        CreditCard.Type[] types = mRuleAnnotation.cardTypes();
-        HashSet<CreditCard.Type> typesSet = new HashSet<CreditCard.Type>(Arrays.asList(types));
+        return mCreditCardValidator.isValid(creditCardNumber, true);
+    }
 
+    private static long getOptions(final CreditCard.Type[] types) {
         long options = 0;
-        if (!typesSet.contains(CreditCard.Type.NONE)) {
-            for (CreditCard.Type type : typesSet) {
-                options += CARD_TYPE_REGISTRY.get(type);
+        for (CreditCard.Type type : types) {
+            if (type == CreditCard.Type.NONE) {
+                return CreditCardValidator.NONE;
             }
-        } else {
-            options = CreditCardValidator.NONE;
+            options |= CARD_TYPE_REGISTRY.get(type);
         }
-
-        return new CreditCardValidator(options).isValid(creditCardNumber.replaceAll("\\s", ""));
+        return options;
     }
 }
@@ -17,33 +17,56 @@ package com.mobsandgeeks.saripaar.rule;
 import com.mobsandgeeks.saripaar.AnnotationRule;
 import com.mobsandgeeks.saripaar.annotation.Password;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
+ * Checks passwords against the minimum length and {@link Password.Scheme} of a {@link Password}
+ * annotation. The character classes of a password are collected in a single pass, and the same
+ * pass rates its strength through {@link #getStrength(CharSequence)}.
+ * <p>
+ * The classes follow Android's regular expressions, where {@code \w} and {@code \d} are
+ * Unicode classes: accented letters are word characters and digits of any script are digits.
+ *
  * @author Ragunath Jawahar {@literal <rj@mobsandgeeks.com>}
  * @since 2.0
  */
 public class PasswordRule extends AnnotationRule<Password, String> {
+    /** A character in {@code [a-z]}. */
+    public static final int LOWER_CASE      = 1 << 0;
+    /** A character in {@code [A-Z]}. */
+    public static final int UPPER_CASE      = 1 << 1;
+    /** A decimal digit of any script ({@code \d}), such as {@code [0-9]}. */
+    public static final int DIGIT           = 1 << 2;
+    /** A connector punctuation character, such as {@code _}, or a zero width (non-)joiner. */
+    public static final int UNDERSCORE      = 1 << 3;
+    /** A character other than a word character or line terminator. */
+    public static final int SYMBOL          = 1 << 4;
+    /** A line terminator, which {@code .} does not match. */
+    public static final int LINE_TERMINATOR = 1 << 5;
+    /** A word character ({@code \w}) outside {@code [a-zA-Z]}, such as an accented letter. */
+    public static final int OTHER_LETTER    = 1 << 6;
+
+    private static final int LETTER = LOWER_CASE | UPPER_CASE;
+    private static final int WORD = LETTER | DIGIT | UNDERSCORE | OTHER_LETTER;
+
+    /** The weakest strength, see {@link #getStrength(CharSequence)}. */
+    public static final int VERY_WEAK   = 0;
+    /** The strongest strength, see {@link #getStrength(CharSequence)}. */
+    public static final int STRONG      = 4;
 
     /*
+     * The schemes are decided on the character classes, exactly as the expressions from
      * http://stackoverflow.com/questions/1559751/
      * regex-to-make-sure-that-the-string-contains-at-least-one-lower-case-char-upper
+     * used to decide them on Android:
+     *
+     *   ANY                                .+
+     *   ALPHA                              \w+
+     *   ALPHA_MIXED_CASE                   (?=.*[a-z])(?=.*[A-Z]).+
+     *   NUMERIC                            \d+
+     *   ALPHA_NUMERIC                      (?=.*[a-zA-Z])(?=.*[\d]).+
+     *   ALPHA_NUMERIC_MIXED_CASE           (?=.*[a-z])(?=.*[A-Z])(?=.*[\d]).+
+     *   ALPHA_NUMERIC_SYMBOLS              (?=.*[a-zA-Z])(?=.*[\d])(?=.*([^\w])).+
+     *   ALPHA_NUMERIC_MIXED_CASE_SYMBOLS   (?=.*[a-z])(?=.*[A-Z])(?=.*[\d])(?=.*([^\w])).+
      */
-    private final Map<Password.Scheme, String> SCHEME_PATTERNS =
-            new HashMap<Password.Scheme, String>() {{
-                put(Password.Scheme.ANY, ".+");
-                put(Password.Scheme.ALPHA, "\\w+");
-                put(Password.Scheme.ALPHA_MIXED_CASE, "(?=.*[a-z])(?=.*[A-Z]).+");
-                put(Password.Scheme.NUMERIC, "\\d+");
-                put(Password.Scheme.ALPHA_NUMERIC, "(?=.*[a-zA-Z])(?=.*[\\d]).+");
-                put(Password.Scheme.ALPHA_NUMERIC_MIXED_CASE,
-                    "(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d]).+");
-                put(Password.Scheme.ALPHA_NUMERIC_SYMBOLS,
-                    "(?=.*[a-zA-Z])(?=.*[\\d])(?=.*([^\\w])).+");
-                put(Password.Scheme.ALPHA_NUMERIC_MIXED_CASE_SYMBOLS,
-                    "(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d])(?=.*([^\\w])).+");
-            }};
 
     protected PasswordRule(final Password password) {
         super(password);
@@ -52,7 +75,156 @@ public class PasswordRule extends AnnotationRule<Password, String> {
     @Override
     public boolean isValid(final String password) {
         boolean hasMinChars = password.length() >= mRuleAnnotation.min();
-        boolean matchesScheme = password.matches(SCHEME_PATTERNS.get(mRuleAnnotation.scheme()));
-        return hasMinChars && matchesScheme;
+        return hasMinChars && matches(mRuleAnnotation.scheme(), password);
+    }
+
+    /**
+     * Checks whether a password matches a scheme.
+     *
+     * @param scheme  The scheme.
+     * @param password  The password, an empty password never matches.
+     *
+     * @return true if the password matches the scheme.
+     */
+    public static boolean matches(final Password.Scheme scheme, final CharSequence password) {
+        if (password.length() == 0) {
+            return false;
+        }
+        int classes = getCharacterClasses(password);
+        if ((classes & LINE_TERMINATOR) != 0) {
+            return false;
+        }
+
+        switch (scheme) {
+            case ANY:
+                return true;
+            case ALPHA:
+                return (classes & ~WORD) == 0;
+            case ALPHA_MIXED_CASE:
+                return (classes & LETTER) == LETTER;
+            case NUMERIC:
+                return classes == DIGIT;
+            case ALPHA_NUMERIC:
+                return (classes & LETTER) != 0 && (classes & DIGIT) != 0;
+            case ALPHA_NUMERIC_MIXED_CASE:
+                return (classes & (LETTER | DIGIT)) == (LETTER | DIGIT);
+            case ALPHA_NUMERIC_SYMBOLS:
+                return (classes & LETTER) != 0 && (classes & (DIGIT | SYMBOL)) == (DIGIT | SYMBOL);
+            case ALPHA_NUMERIC_MIXED_CASE_SYMBOLS:
+                return (classes & (LETTER | DIGIT | SYMBOL)) == (LETTER | DIGIT | SYMBOL);
+            default:
+                throw new IllegalArgumentException("Unknown scheme: " + scheme);
+        }
+    }
+
+    /**
+     * Collects the character classes of a password.
+     *
+     * @param password  The password.
+     *
+     * @return A combination of {@link #LOWER_CASE}, {@link #UPPER_CASE}, {@link #DIGIT},
+     *      {@link #UNDERSCORE}, {@link #OTHER_LETTER}, {@link #SYMBOL} and
+     *      {@link #LINE_TERMINATOR}.
+     */
+    public static int getCharacterClasses(final CharSequence password) {
+        int classes = 0;
+        int length = password.length();
+        for (int i = 0; i < length; ) {
+            char c = password.charAt(i);
+            if (c < 0x80) {
+                classes |= getAsciiClass(c);
+                i++;
+            } else {
+                int codePoint = Character.codePointAt(password, i);
+                classes |= getCharacterClass(codePoint);
+                i += Character.charCount(codePoint);
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Rates the strength of a password from {@link #VERY_WEAK} ({@code 0}) to {@link #STRONG}
+     * ({@code 4}). Passwords shorter than 6 characters are very weak, longer ones earn a point
+     * for 8, 12 and 16 characters and a point for each character class beyond the first, out of
+     * lower case, upper case, digits and other characters.
+     *
+     * @param password  The password.
+     *
+     * @return The strength of the password.
+     */
+    public static int getStrength(final CharSequence password) {
+        int length = password.length();
+        if (length < 6) {
+            return VERY_WEAK;
+        }
+        int classes = getCharacterClasses(password);
+        int kinds = Integer.bitCount(classes & (LOWER_CASE | UPPER_CASE | DIGIT))
+                + ((classes & (UNDERSCORE | OTHER_LETTER | SYMBOL | LINE_TERMINATOR)) != 0
+                        ? 1 : 0);
+
+        int strength = kinds - 1;
+        if (length >= 8) {
+            strength++;
+        }
+        if (length >= 12) {
+            strength++;
+        }
+        if (length >= 16) {
+            strength++;
+        }
+        return Math.min(strength, STRONG);
+    }
+
+    private static int getAsciiClass(final char c) {
+        if (c >= 'a' && c <= 'z') {
+            return LOWER_CASE;
+        } else if (c >= 'A' && c <= 'Z') {
+            return UPPER_CASE;
+        } else if (c >= '0' && c <= '9') {
+            return DIGIT;
+        } else if (c == '_') {
+            return UNDERSCORE;
+        } else if (c >= '\n' && c <= '\r') {
+            // Android's '.' does not match vertical tabs and form feeds either
+            return LINE_TERMINATOR;
+        }
+        return SYMBOL;
+    }
+
+    // \w is [\p{Alphabetic}\p{Mark}\p{Nd}\p{Pc}\u200c\u200d] and \d is \p{Nd} on Android
+    private static int getCharacterClass(final int codePoint) {
+        if (codePoint == 0x85 || codePoint == 0x2028 || codePoint == 0x2029) {
+            return LINE_TERMINATOR;
+        } else if (codePoint == 0x200c || codePoint == 0x200d) {
+            return UNDERSCORE;
+        }
+
+        // Circled and squared letters are alphabetic symbols
+        if (codePoint >= 0x24b6 && codePoint <= 0x24e9
+                || codePoint >= 0x1f130 && codePoint <= 0x1f149
+                || codePoint >= 0x1f150 && codePoint <= 0x1f169
+                || codePoint >= 0x1f170 && codePoint <= 0x1f189) {
+            return OTHER_LETTER;
+        }
+
+        switch (Character.getType(codePoint)) {
+            case Character.DECIMAL_DIGIT_NUMBER:
+                return DIGIT;
+            case Character.CONNECTOR_PUNCTUATION:
+                return UNDERSCORE;
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.MODIFIER_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.LETTER_NUMBER:
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+                return OTHER_LETTER;
+            default:
+                return SYMBOL;
+        }
     }
 }
@@ -20,19 +20,48 @@ import com.mobsandgeeks.saripaar.annotation.Pattern;
 import commons.validator.routines.RegexValidator;
 
 /**
+ * Matches text against the regular expression of a {@link Pattern} annotation within the
+ * {@link Pattern#maxSteps()} budget, if any. Text for which the budget runs out is invalid,
+ * use {@link #check(CharSequence)} to tell it apart. The default budget of {@code 0} is
+ * unlimited. The expression is compiled once, and shared with other rules for the same
+ * expression.
+ * <p>
+ * The budget is the number of characters the expression may read, so an expression which
+ * backtracks heavily cannot hang the thread. Android's regular expression engine copies the
+ * text before matching, so there the budget cannot be enforced (see
+ * {@link RegexValidator#isStepCounting()}) and the text is matched without it: keep
+ * expressions which backtrack heavily out of {@link Pattern#regex()}.
+ *
  * @author Ragunath Jawahar {@literal <rj@mobsandgeeks.com>}
  * @since 2.0
  */
 public class PatternRule extends AnnotationRule<Pattern, String> {
+    private final RegexValidator mRegexValidator;
+    private final long mMaxSteps;
 
     protected PatternRule(final Pattern pattern) {
         super(pattern);
+        mRegexValidator = new RegexValidator(pattern.regex(), pattern.caseSensitive());
+        mMaxSteps = pattern.maxSteps();
     }
 
     @Override
     public boolean isValid(final String text) {
-        String regex = mRuleAnnotation.regex();
-        boolean caseSensitive = mRuleAnnotation.caseSensitive();
-        return new RegexValidator(regex, caseSensitive).isValid(text);
+        return check(text) == RegexValidator.MATCH;
+    }
+
+    /**
+     * Matches the text within the step budget.
+     *
+     * @param text  The text to match.
+     *
+     * @return {@link RegexValidator#MATCH}, {@link RegexValidator#NO_MATCH} or
+     *      {@link RegexValidator#BUDGET_EXHAUSTED}.
+     */
+    public int check(final CharSequence text) {
+        if (mMaxSteps <= 0) {
+            return mRegexValidator.isValid(text) ? RegexValidator.MATCH : RegexValidator.NO_MATCH;
+        }
+        return mRegexValidator.check(text, mMaxSteps);
     }
 }
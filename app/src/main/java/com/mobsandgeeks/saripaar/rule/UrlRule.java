@@ -20,24 +20,28 @@ import com.mobsandgeeks.saripaar.annotation.Url;
 import commons.validator.routines.UrlValidator;
 
 /**
+ * Checks URLs with a {@link UrlValidator} that is looked up once per rule. Rules whose
+ * {@link Url} annotations list the same schemes and fragment setting share a validator.
+ *
  * @author Ragunath Jawahar {@literal <rj@mobsandgeeks.com>}
  * @since 2.0
  */
 public class UrlRule extends AnnotationRule<Url, String> {
 
+    private final UrlValidator mUrlValidator;
+
     protected UrlRule(final Url url) {
         super(url);
+        String[] schemes = url.schemes();
+        long options = url.allowFragments()
+                ? 0 : UrlValidator.NO_FRAGMENTS;
+
+        mUrlValidator = UrlValidator.getInstance(
+                schemes != null && schemes.length > 0 ? schemes : null, options);
     }
 
     @Override
     public boolean isValid(final String url) {
-        String[] schemes = mRuleAnnotation.schemes();
-        long options = mRuleAnnotation.allowFragments()
-                ? 0 : UrlValidator.NO_FRAGMENTS;
-
-        UrlValidator urlValidator = schemes != null && schemes.length > 0
-                ? new UrlValidator(schemes, options) : UrlValidator.getInstance();
-
-        return urlValidator.isValid(url);
+        return mUrlValidator.isValid(url);
     }
 }
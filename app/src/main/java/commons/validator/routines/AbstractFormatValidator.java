@@ -178,7 +178,7 @@ public abstract class AbstractFormatValidator implements Serializable {
      */
     protected Object parse(String value, Format formatter) {
 
-        ParsePosition pos = new ParsePosition(0);
+        ParsePosition pos = FormatCache.parsePosition();
         Object parsedValue = formatter.parseObject(value, pos);
         if (pos.getErrorIndex() > -1) {
             return null;
@@ -28,6 +28,10 @@ import java.util.Locale;
  * <p>This is a <i>base</i> class for building Number
  *    Validators using format parsing.</p>
  *
+ * <p>The formats are created once per pattern, locale and
+ *    format type, and cloned for each thread using them, unless
+ *    a subclass overrides <code>getFormat()</code>.</p>
+ *
  * @version $Revision$
  * @since Validator 1.3.0
  */
@@ -47,6 +51,30 @@ public abstract class AbstractNumberValidator extends AbstractFormatValidator {
     private final boolean allowFractions;
     private final int     formatType;
 
+    /** Whether <code>getFormat()</code> is not overridden, checked on first use */
+    private transient Boolean formatCacheable;
+
+    /** Which plain numbers the default format parses, checked per default locale */
+    private transient PlainFormat plainFormat;
+
+    /**
+     * Returned by {@link #parsePlainInteger(CharSequence)} for values which
+     * are not plain integers.
+     */
+    static final long NOT_PLAIN = Long.MIN_VALUE;
+
+    /** Powers of ten which are exact doubles */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** The most significant digits for which a long mantissa converts exactly */
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    /** The most digits of a plain integer which can't overflow a long */
+    private static final int MAX_LONG_DIGITS = 18;
+
     /**
      * Construct an instance with specified <i>strict</i>
      * and <i>decimal</i> parameters.
@@ -157,11 +185,209 @@ public abstract class AbstractNumberValidator extends AbstractFormatValidator {
         if (value == null || value.length() == 0) {
             return null;
         }
-        Format formatter = getFormat(pattern, locale);
+        Format formatter = getCachedFormat(pattern, locale);
         return parse(value, formatter);
 
     }
 
+    /**
+     * <p>Format an object using the specified pattern and/or
+     *    <code>Locale</code>.
+     *
+     * @param value The value validation is being performed on.
+     * @param pattern The pattern used to format the value.
+     * @param locale The locale to use for the Format.
+     * @return The value formatted as a <code>String</code>.
+     */
+    public String format(Object value, String pattern, Locale locale) {
+        Format formatter = getCachedFormat(pattern, locale);
+        return format(value, formatter);
+    }
+
+    /**
+     * Returns the number of times a format was reused instead of
+     * being created, by any number validator.
+     * @return the number of format cache hits
+     */
+    public static long getFormatCacheHitCount() {
+        return FormatCache.hitCount();
+    }
+
+    /**
+     * Returns the number of times a format had to be created as it
+     * was not cached, by any number validator.
+     * @return the number of format cache misses
+     */
+    public static long getFormatCacheMissCount() {
+        return FormatCache.missCount();
+    }
+
+    /**
+     * Whether the format for the default locale, without a pattern, parses
+     * plain integers such as <code>-123</code> as their value, so that they
+     * can be parsed without it.
+     */
+    final boolean isPlainIntegerFormat() {
+        return getPlainFormat().integer;
+    }
+
+    /**
+     * Whether the format for the default locale, without a pattern, parses
+     * plain decimals such as <code>-1.25</code> as their value, so that they
+     * can be parsed without it.
+     */
+    final boolean isPlainDecimalFormat() {
+        return getPlainFormat().decimal;
+    }
+
+    private PlainFormat getPlainFormat() {
+        Locale locale = Locale.getDefault();
+        PlainFormat plain = plainFormat;
+        if (plain == null || !plain.locale.equals(locale)) {
+            plain = new PlainFormat(locale, formatType == STANDARD_FORMAT && isFormatCacheable()
+                    ? getCachedFormat(null, null) : null);
+            plainFormat = plain;
+        }
+        return plain;
+    }
+
+    /**
+     * Parses a plain integer, an optional minus sign followed by up to
+     * 18 ASCII digits, ignoring leading and trailing whitespace.
+     *
+     * @return the value, or {@link #NOT_PLAIN} if the value has any other
+     * form and has to be parsed by the format
+     */
+    static long parsePlainInteger(CharSequence value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean negative = start < end && value.charAt(start) == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end || end - start > MAX_LONG_DIGITS) {
+            return NOT_PLAIN;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_PLAIN;
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a plain decimal, an optional minus sign followed by ASCII
+     * digits and optionally a decimal point and more ASCII digits, ignoring
+     * leading and trailing whitespace. Only decimals which convert exactly
+     * are parsed: up to 15 significant digits and 22 decimal places.
+     *
+     * @return the value, or <code>NaN</code> if the value has any other
+     * form and has to be parsed by the format
+     */
+    static double parsePlainDecimal(CharSequence value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        boolean negative = start < end && value.charAt(start) == '-';
+        if (negative) {
+            start++;
+        }
+        long mantissa = 0;
+        int digits = 0;      // significant digits
+        int places = -1;     // decimal places, -1 before the point
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '.' && places < 0 && i > start && i < end - 1) {
+                places = 0;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                return Double.NaN;
+            }
+            if (mantissa != 0 || digit != 0) {
+                if (++digits > MAX_EXACT_DIGITS) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + digit;
+            }
+            if (places >= 0 && ++places >= POWERS_OF_TEN.length) {
+                return Double.NaN;
+            }
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        double result = mantissa;
+        if (places > 0) {
+            result /= POWERS_OF_TEN[places];
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Returns the format of the current thread for a pattern and locale,
+     * creating it with {@link #getFormat(String, Locale)} if it is not cached.
+     */
+    private Format getCachedFormat(String pattern, Locale locale) {
+        if (!isFormatCacheable()) {
+            return getFormat(pattern, locale);
+        }
+        FormatKey key = new FormatKey(this, pattern, locale);
+        Format formatter = FormatCache.get(key);
+        if (formatter == null) {
+            formatter = FormatCache.put(key, getFormat(pattern, locale));
+        }
+        return formatter;
+    }
+
+    /**
+     * Formats can only be cached if they only depend on the pattern, locale
+     * and settings of the validator, i.e. <code>getFormat()</code> is not
+     * overridden.
+     */
+    private boolean isFormatCacheable() {
+        Boolean cacheable = formatCacheable;
+        if (cacheable == null) {
+            cacheable = Boolean.TRUE;
+            for (Class type = getClass(); type != AbstractNumberValidator.class; type = type.getSuperclass()) {
+                if (declares(type, new Class[] {String.class, Locale.class})
+                        || declares(type, new Class[] {Locale.class})) {
+                    cacheable = Boolean.FALSE;
+                    break;
+                }
+            }
+            formatCacheable = cacheable;
+        }
+        return cacheable.booleanValue();
+    }
+
+    private static boolean declares(Class type, Class[] getFormatParameters) {
+        try {
+            type.getDeclaredMethod("getFormat", getFormatParameters);
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        } catch (SecurityException e) {
+            return true; // can't tell, so don't cache
+        }
+    }
+
     /**
      * <p>Process the parsed value, performing any further validation
      *    and type conversion required.</p>
@@ -268,4 +494,80 @@ public abstract class AbstractNumberValidator extends AbstractFormatValidator {
         }
         return formatter;
     }
+
+    /**
+     * Which plain numbers the format of a locale parses as their value.
+     */
+    private static final class PlainFormat {
+
+        final Locale locale;
+        final boolean integer;
+        final boolean decimal;
+
+        PlainFormat(Locale locale, Format format) {
+            this.locale = locale;
+            boolean plain = false;
+            boolean point = false;
+            if (format instanceof DecimalFormat) {
+                DecimalFormat decimalFormat = (DecimalFormat) format;
+                DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+                plain = decimalFormat.getMultiplier() == 1
+                        && !decimalFormat.isParseBigDecimal()
+                        && "".equals(decimalFormat.getPositivePrefix())
+                        && "".equals(decimalFormat.getPositiveSuffix())
+                        && "-".equals(decimalFormat.getNegativePrefix())
+                        && "".equals(decimalFormat.getNegativeSuffix())
+                        && symbols.getZeroDigit() == '0'
+                        && symbols.getMinusSign() == '-';
+                point = symbols.getDecimalSeparator() == '.'
+                        && symbols.getGroupingSeparator() != '.'
+                        && !decimalFormat.isParseIntegerOnly();
+            }
+            this.integer = plain;
+            this.decimal = plain && point;
+        }
+    }
+
+    /**
+     * Identifies the format created for a pattern and locale by validators
+     * of a class with the same settings. The default locale is resolved, so
+     * that changing it does not return formats of the previous default.
+     */
+    private static final class FormatKey {
+
+        private final Class type;
+        private final String pattern;
+        private final Locale locale;
+        private final boolean defaultLocale;
+        private final int settings;
+
+        FormatKey(AbstractNumberValidator validator, String pattern, Locale locale) {
+            this.type = validator.getClass();
+            this.pattern = pattern;
+            this.defaultLocale = (locale == null);
+            this.locale = (locale == null ? Locale.getDefault() : locale);
+            this.settings = validator.getFormatType() * 4
+                    + (validator.isStrict() ? 2 : 0)
+                    + (validator.isAllowFractions() ? 1 : 0);
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof FormatKey)) {
+                return false;
+            }
+            FormatKey other = (FormatKey) obj;
+            return type == other.type
+                    && settings == other.settings
+                    && defaultLocale == other.defaultLocale
+                    && locale.equals(other.locale)
+                    && (pattern == null ? other.pattern == null : pattern.equals(other.pattern));
+        }
+
+        public int hashCode() {
+            int hash = type.hashCode();
+            hash = hash * 31 + settings;
+            hash = hash * 31 + locale.hashCode();
+            return hash * 31 + (pattern == null ? 0 : pattern.hashCode());
+        }
+    }
 }
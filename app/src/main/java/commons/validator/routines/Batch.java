@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates an array of values, optionally splitting it into chunks which
+ * run on an <code>Executor</code>.
+ * <p>
+ * Subclasses validate one chunk at a time in {@link #validate}, which is
+ * called by a single thread per chunk, so any matchers or scratch buffers
+ * it creates are reused for the whole chunk without synchronization.
+ * </p>
+ * <p>
+ * The chunks are claimed in turn by the calling thread and by the tasks
+ * given to the executor, so a batch completes even when the executor runs
+ * none of its tasks, such as a single thread executor called from its own
+ * thread.
+ * </p>
+ *
+ * @version $Revision$
+ */
+abstract class Batch {
+
+    /**
+     * The number of values below which a batch is not split.
+     */
+    static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Validates a range of values.
+     *
+     * @param values The values to validate, entries may be <code>null</code>
+     * @param from The first value to validate, inclusive
+     * @param to The last value to validate, exclusive
+     * @param results Receives the result for each value
+     * @return the number of valid values in the range
+     */
+    abstract int validate(CharSequence[] values, int from, int to, boolean[] results);
+
+    /**
+     * Validates all values.
+     *
+     * @param values The values to validate, not null
+     * @param results Receives the result for each value, at least as long as the values
+     * @param executor Runs the chunks of a large batch, or <code>null</code> to
+     * validate all values in the calling thread
+     * @return the number of valid values
+     */
+    final int run(final CharSequence[] values, final boolean[] results, Executor executor) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values missing");
+        }
+        if (results == null || results.length < values.length) {
+            throw new IllegalArgumentException("Results must hold " + values.length + " values");
+        }
+        final int length = values.length;
+        final int chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (executor == null || chunks <= 1) {
+            return validate(values, 0, length, results);
+        }
+
+        final int[] counts = new int[chunks];
+        final Throwable[] failures = new Throwable[chunks];
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(chunks);
+        Runnable worker = new Runnable() {
+            public void run() {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                    try {
+                        int from = chunk * CHUNK_SIZE;
+                        counts[chunk] = validate(values, from, Math.min(from + CHUNK_SIZE, length), results);
+                    } catch (Throwable t) {
+                        failures[chunk] = t;
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        for (int helper = 1; helper < chunks; helper++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        // the calling thread claims chunks too, so it only waits for chunks
+        // already being validated by other threads, never for queued tasks,
+        // even when it is the only thread of the executor
+        worker.run();
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                // the chunks write into the caller's array, so wait for them regardless
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // the latch makes the counts and failures of the other threads visible
+        int valid = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            Throwable failure = failures[chunk];
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            valid += counts[chunk];
+        }
+        return valid;
+    }
+
+    /**
+     * Validates all values in the calling thread.
+     *
+     * @param values The values to validate, not null
+     * @return the indexes of the valid values
+     */
+    final BitSet run(CharSequence[] values) {
+        if (values == null) {
+            throw new IllegalArgumentException("Values missing");
+        }
+        boolean[] results = new boolean[values.length];
+        run(values, results, null);
+        BitSet valid = new BitSet(values.length);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                valid.set(i);
+            }
+        }
+        return valid;
+    }
+}
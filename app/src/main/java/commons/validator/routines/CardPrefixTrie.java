@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import commons.validator.routines.checkdigit.CheckDigit;
+import commons.validator.routines.checkdigit.LuhnCheckDigit;
+
+/**
+ * Immutable, packed digit trie of card number prefixes.
+ * <p>
+ * Prefix ranges are split into the fewest prefixes covering them, so
+ * <code>"300-305"</code> becomes <code>"300"</code> to <code>"305"</code>
+ * and <code>"600-699"</code> becomes <code>"6"</code>. Node <code>n</code>
+ * has the child <code>children[n * 10 + d]</code> for digit <code>d</code>,
+ * or <code>0</code> if there is none, and the card types whose prefixes
+ * end there in <code>types[n]</code>.
+ * </p>
+ *
+ * @version $Revision$
+ */
+final class CardPrefixTrie implements Serializable {
+
+    private static final long serialVersionUID = -6522209826620463613L;
+
+    private static final int RADIX = 10;
+
+    private final int[] children;
+
+    private final CreditCardType[][] types;
+
+    /**
+     * Builds a trie from card types.
+     *
+     * @param cardTypes The {@link CreditCardType}s, in order of preference
+     * for numbers matched by prefixes of the same length
+     */
+    CardPrefixTrie(List cardTypes) {
+        List nodes = new ArrayList();   // int[RADIX] of each node
+        List nodeTypes = new ArrayList(); // List of CreditCardType of each node
+        nodes.add(new int[RADIX]);
+        nodeTypes.add(null);
+        for (int t = 0; t < cardTypes.size(); t++) {
+            CreditCardType type = (CreditCardType) cardTypes.get(t);
+            String[] prefixes = type.getPrefixes();
+            for (int p = 0; p < prefixes.length; p++) {
+                String low = CreditCardType.getLow(prefixes[p]);
+                String high = CreditCardType.getHigh(prefixes[p]);
+                for (String prefix = low; prefix != null; prefix = nextPrefix(prefix, high)) {
+                    prefix = widestPrefix(prefix, high);
+                    int node = 0;
+                    for (int i = 0; i < prefix.length(); i++) {
+                        int[] next = (int[]) nodes.get(node);
+                        int digit = prefix.charAt(i) - '0';
+                        if (next[digit] == 0) {
+                            next[digit] = nodes.size();
+                            nodes.add(new int[RADIX]);
+                            nodeTypes.add(null);
+                        }
+                        node = next[digit];
+                    }
+                    List list = (List) nodeTypes.get(node);
+                    if (list == null) {
+                        list = new ArrayList();
+                        nodeTypes.set(node, list);
+                    }
+                    if (!list.contains(type)) {
+                        list.add(type);
+                    }
+                }
+            }
+        }
+        children = new int[nodes.size() * RADIX];
+        types = new CreditCardType[nodes.size()][];
+        for (int n = 0; n < nodes.size(); n++) {
+            System.arraycopy(nodes.get(n), 0, children, n * RADIX, RADIX);
+            List list = (List) nodeTypes.get(n);
+            if (list != null) {
+                types[n] = (CreditCardType[]) list.toArray(new CreditCardType[list.size()]);
+            }
+        }
+    }
+
+    /**
+     * Returns the shortest prefix starting a range, from <code>low</code>
+     * to no further than <code>high</code>, by dropping trailing zeros
+     * while the nines they stand for stay within the range.
+     */
+    private static String widestPrefix(String low, String high) {
+        int length = low.length();
+        while (length > 1 && low.charAt(length - 1) == '0'
+                && isNines(high, low.substring(0, length - 1), low.length())) {
+            length--;
+        }
+        return low.substring(0, length);
+    }
+
+    /**
+     * Whether <code>prefix</code> padded with nines to <code>width</code>
+     * digits is at most <code>high</code>.
+     */
+    private static boolean isNines(String high, String prefix, int width) {
+        StringBuffer last = new StringBuffer(prefix);
+        while (last.length() < width) {
+            last.append('9');
+        }
+        return last.toString().compareTo(high) <= 0;
+    }
+
+    /**
+     * Returns the first prefix after the range covered by <code>prefix</code>,
+     * padded to the width of <code>high</code>, or <code>null</code> if that
+     * is past <code>high</code>.
+     */
+    private static String nextPrefix(String prefix, String high) {
+        char[] digits = prefix.toCharArray();
+        int i = digits.length - 1;
+        while (i >= 0 && digits[i] == '9') {
+            digits[i--] = '0';
+        }
+        if (i < 0) {
+            return null;
+        }
+        digits[i]++;
+        StringBuffer next = new StringBuffer(high.length());
+        next.append(digits);
+        while (next.length() < high.length()) {
+            next.append('0');
+        }
+        String result = next.toString();
+        return result.compareTo(high) <= 0 ? result : null;
+    }
+
+    /**
+     * Returns the type of a card number: the type with the longest prefix
+     * of the number which allows its length and check digit.
+     *
+     * @param card The characters containing the card number
+     * @param start The index of the first digit
+     * @param end The index after the last digit
+     * @return The card type, or <code>null</code> if there is none or the
+     * number contains other characters than ASCII digits
+     */
+    CreditCardType lookup(CharSequence card, int start, int end) {
+        return lookup(card, start, end, false);
+    }
+
+    /**
+     * Returns the type of a card number, optionally ignoring whitespace
+     * between its digits. The number is read in a single pass which walks
+     * the trie and calculates the Luhn check digit, so the characters are
+     * not copied, whether or not they are separated.
+     *
+     * @param card The characters containing the card number
+     * @param start The index of the first digit
+     * @param end The index after the last digit
+     * @param skipWhitespace Whether whitespace between the digits is ignored
+     * @return The card type, or <code>null</code> if there is none or the
+     * number contains other characters than ASCII digits
+     */
+    CreditCardType lookup(CharSequence card, int start, int end, boolean skipWhitespace) {
+        int length = 0;
+        int depth = 0;
+        int node = 0;
+        // the Luhn sums for an even and an odd number of digits, which
+        // double the digits at even and odd indexes from the left
+        int evenSum = 0;
+        int oddSum = 0;
+        int nonZero = 0;
+        boolean separated = false;
+        for (int i = start; i < end; i++) {
+            char c = card.charAt(i);
+            if (skipWhitespace && CreditCardValidator.isWhitespace(c)) {
+                separated = true;
+                continue;
+            }
+            int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            if (node >= 0) {
+                node = children[node * RADIX + digit];
+                if (node == 0) {
+                    node = -1;
+                } else {
+                    depth++;
+                }
+            }
+            int doubled = digit < 5 ? digit * 2 : digit * 2 - 9;
+            if ((length & 1) == 0) {
+                evenSum += doubled;
+                oddSum += digit;
+            } else {
+                evenSum += digit;
+                oddSum += doubled;
+            }
+            nonZero |= digit;
+            length++;
+        }
+        boolean luhnValid = nonZero != 0 && ((length & 1) == 0 ? evenSum : oddSum) % 10 == 0;
+
+        // try the most specific prefixes first
+        CheckDigit checked = null;
+        boolean checkedValid = false;
+        for (; depth > 0; depth--) {
+            node = 0;
+            for (int i = start, d = 0; d < depth; i++) {
+                char c = card.charAt(i);
+                if (!separated || !CreditCardValidator.isWhitespace(c)) {
+                    node = children[node * RADIX + c - '0'];
+                    d++;
+                }
+            }
+            CreditCardType[] candidates = types[node];
+            if (candidates == null) {
+                continue;
+            }
+            for (int c = 0; c < candidates.length; c++) {
+                CreditCardType candidate = candidates[c];
+                if (!candidate.hasLength(length)) {
+                    continue;
+                }
+                CheckDigit checkDigit = candidate.getCheckDigit();
+                if (checkDigit == null) {
+                    return candidate;
+                }
+                if (checkDigit == LuhnCheckDigit.LUHN_CHECK_DIGIT) {
+                    if (luhnValid) {
+                        return candidate;
+                    }
+                    continue;
+                }
+                if (checkDigit != checked) {
+                    // shared by most types, so usually calculated once
+                    checked = checkDigit;
+                    checkedValid = separated
+                            ? checkDigit.isValid(digits(card, start, end, length))
+                            : CodeValidator.isValidCheckDigit(checkDigit, card, start, length);
+                }
+                if (checkedValid) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the digits of a card number without the whitespace between
+     * them, for the check digits other than Luhn.
+     */
+    private static String digits(CharSequence card, int start, int end, int length) {
+        StringBuffer digits = new StringBuffer(length);
+        for (int i = start; i < end; i++) {
+            char c = card.charAt(i);
+            if (!CreditCardValidator.isWhitespace(c)) {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+}
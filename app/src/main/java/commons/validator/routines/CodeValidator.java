@@ -17,8 +17,11 @@
 package commons.validator.routines;
 
 import java.io.Serializable;
+import java.util.BitSet;
+import java.util.concurrent.Executor;
 
 import commons.validator.routines.checkdigit.CheckDigit;
+import commons.validator.routines.checkdigit.ModulusCheckDigit;
 
 /**
  * Generic <b>Code Validation</b> providing format, minimum/maximum
@@ -205,6 +208,92 @@ public final class CodeValidator implements Serializable {
         return (validate(input) != null);
     }
 
+    /**
+     * Validate a code held in a character sequence, such as an
+     * <code>Editable</code>, returning either <code>true</code>
+     * or <code>false</code>.
+     *
+     * @param input The code to validate
+     * @return <code>true</code> if valid, otherwise
+     * <code>false</code>
+     */
+    public boolean isValid(CharSequence input) {
+        if (input == null) {
+            return false;
+        }
+        return isValid(input, 0, input.length());
+    }
+
+    /**
+     * Validate a code held in part of a character sequence returning
+     * either <code>true</code> or <code>false</code>.
+     * <p>
+     * Unless a regular expression has to reformat the code, no
+     * <code>String</code> is created.
+     *
+     * @param input The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code
+     * @return <code>true</code> if valid, otherwise
+     * <code>false</code>
+     */
+    public boolean isValid(CharSequence input, int offset, int length) {
+        if (input == null) {
+            return false;
+        }
+        if (regexValidator != null) {
+            return validate(input, offset, length) != null;
+        }
+        int start = trimStart(input, offset, offset + length);
+        int end = trimEnd(input, start, offset + length);
+        return isValidCode(input, start, end);
+    }
+
+    /**
+     * Checks an array of codes.
+     * @param input the values to check, <code>null</code> entries are invalid
+     * @param results receives whether each value is a valid code
+     * @return the number of valid codes
+     */
+    public int isValidAll(CharSequence[] input, boolean[] results) {
+        return isValidAll(input, results, null);
+    }
+
+    /**
+     * Checks an array of codes, splitting large arrays into chunks
+     * which are checked by the executor.
+     * @param input the values to check, <code>null</code> entries are invalid
+     * @param results receives whether each value is a valid code
+     * @param executor checks the chunks, or <code>null</code> to check all
+     * values in the calling thread
+     * @return the number of valid codes
+     */
+    public int isValidAll(CharSequence[] input, boolean[] results, Executor executor) {
+        return new CodeBatch().run(input, results, executor);
+    }
+
+    /**
+     * Checks an array of codes.
+     * @param input the values to check, <code>null</code> entries are invalid
+     * @return the indexes of the valid codes
+     */
+    public BitSet isValidAll(CharSequence[] input) {
+        return new CodeBatch().run(input);
+    }
+
+    private class CodeBatch extends Batch {
+        int validate(CharSequence[] values, int from, int to, boolean[] results) {
+            int valid = 0;
+            for (int i = from; i < to; i++) {
+                results[i] = isValid(values[i]);
+                if (results[i]) {
+                    valid++;
+                }
+            }
+            return valid;
+        }
+    }
+
     /**
      * Validate the code returning either the valid code or
      * <code>null</code> if invalid.
@@ -214,37 +303,95 @@ public final class CodeValidator implements Serializable {
      * if invalid
      */
     public Object validate(String input) {
-
         if (input == null) {
             return null;
         }
+        return validate(input, 0, input.length());
+    }
+
+    /**
+     * Validate a code held in part of a character sequence returning either
+     * the valid code or <code>null</code> if invalid.
+     *
+     * @param input The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code
+     * @return The code if valid, otherwise <code>null</code>
+     * if invalid
+     */
+    public Object validate(CharSequence input, int offset, int length) {
 
-        String code = input.trim();
-        if (code.length() == 0) {
+        if (input == null) {
             return null;
         }
 
+        int start = trimStart(input, offset, offset + length);
+        int end = trimEnd(input, start, offset + length);
+
         // validate/reformat using regular expression
-        if (regexValidator != null) {
-            code = regexValidator.validate(code);
+        if (regexValidator != null && start < end) {
+            String code = regexValidator.validate(input, start, end - start);
             if (code == null) {
                 return null;
             }
+            return isValidCode(code, 0, code.length()) ? code : null;
         }
 
-        // check the length
-        if ((minLength >= 0 && code.length() < minLength) ||
-            (maxLength >= 0 && code.length() > maxLength)) {
+        if (!isValidCode(input, start, end)) {
             return null;
         }
+        return input.subSequence(start, end).toString();
+
+    }
+
+    /**
+     * Checks the length and check digit of a trimmed and reformatted code.
+     */
+    private boolean isValidCode(CharSequence code, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+
+        // check the length
+        if ((minLength >= 0 && length < minLength) ||
+            (maxLength >= 0 && length > maxLength)) {
+            return false;
+        }
 
         // validate the check digit
-        if (checkdigit != null && !checkdigit.isValid(code)) {
-            return null;
+        if (checkdigit != null && !isValidCheckDigit(checkdigit, code, start, length)) {
+            return false;
         }
 
-        return code;
+        return true;
+    }
 
+    /**
+     * Validates the check digit of part of a character sequence, in place
+     * for the {@link ModulusCheckDigit} implementations and through a
+     * <code>String</code> for any other {@link CheckDigit}.
+     */
+    static boolean isValidCheckDigit(CheckDigit checkDigit, CharSequence code, int start, int length) {
+        if (checkDigit instanceof ModulusCheckDigit) {
+            return ((ModulusCheckDigit) checkDigit).isValid(code, start, length);
+        }
+        return checkDigit.isValid(code.subSequence(start, start + length).toString());
+    }
+
+    // the equivalent of String.trim() on offsets
+    private static int trimStart(CharSequence input, int start, int end) {
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence input, int start, int end) {
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
     }
 
 }
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, thread-safe cache which evicts the least recently used entries.
+ * <p>
+ * The entries are spread over a number of segments by the hash of their key.
+ * Each segment is an access ordered <code>LinkedHashMap</code> guarded by its
+ * own lock, so threads only contend when they use the same segment, and the
+ * least recently used entry of a segment is evicted when the segment is full.
+ * </p>
+ * <p>
+ * The number of hits and misses of {@link #get(Object)} are counted for
+ * monitoring.
+ * </p>
+ *
+ * @version $Revision$
+ */
+final class ConcurrentLruCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    /**
+     * Constructs a cache.
+     *
+     * @param maxSize The maximum number of entries, at least 1
+     */
+    ConcurrentLruCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+        }
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2 <= maxSize) {
+            count *= 2;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // spread the remainder over the first segments
+            segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the value cached for a key, making it the most recently used.
+     *
+     * @param key The key, not null
+     * @return the value or <code>null</code> if the key is not cached
+     */
+    Object get(Object key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Object value = segment.get(key);
+            if (value == null) {
+                segment.misses++;
+            } else {
+                segment.hits++;
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Caches a value, evicting the least recently used entry of its
+     * segment if that is full.
+     *
+     * @param key The key, not null
+     * @param value The value, not null
+     */
+    void put(Object key, Object value) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Removes all entries. The hit and miss counts are retained.
+     */
+    void clear() {
+        for (int i = 0; i < segments.length; i++) {
+            synchronized (segments[i]) {
+                segments[i].clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        int size = 0;
+        for (int i = 0; i < segments.length; i++) {
+            synchronized (segments[i]) {
+                size += segments[i].size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups which found a value.
+     *
+     * @return the number of hits
+     */
+    long hitCount() {
+        long hits = 0;
+        for (int i = 0; i < segments.length; i++) {
+            synchronized (segments[i]) {
+                hits += segments[i].hits;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups which found no value.
+     *
+     * @return the number of misses
+     */
+    long missCount() {
+        long misses = 0;
+        for (int i = 0; i < segments.length; i++) {
+            synchronized (segments[i]) {
+                misses += segments[i].misses;
+            }
+        }
+        return misses;
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        // let the high bits take part, as the number of segments is small
+        hash ^= (hash >>> 16);
+        return segments[hash & (segments.length - 1)];
+    }
+
+    private static final class Segment extends LinkedHashMap {
+
+        private static final long serialVersionUID = -6094787236452963440L;
+
+        private final int maxSize;
+
+        long hits;
+        long misses;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.io.Serializable;
+
+import commons.validator.routines.checkdigit.CheckDigit;
+import commons.validator.routines.checkdigit.LuhnCheckDigit;
+
+/**
+ * A card network, identified by the leading digits (the IIN/BIN prefix)
+ * and length of its card numbers.
+ * <p>
+ * Prefixes are given as digits, such as <code>"4"</code>, or as an
+ * inclusive range of prefixes of the same length, such as
+ * <code>"51-55"</code>. For example to allow UnionPay cards:
+ * </p>
+ *
+ * <pre>
+ * <code>CreditCardValidator ccv = new CreditCardValidator(CreditCardValidator.UNIONPAY + CreditCardValidator.VISA);</code>
+ * </pre>
+ *
+ * <p>
+ * or for a network this class does not provide:
+ * </p>
+ *
+ * <pre>
+ * <code>ccv.addAllowedCardType(new CreditCardType("JCB", new String[] {"3528-3589"}, new int[] {16}, LuhnCheckDigit.LUHN_CHECK_DIGIT));</code>
+ * </pre>
+ *
+ * @version $Revision$
+ * @see CreditCardValidator
+ */
+public final class CreditCardType implements Serializable {
+
+    private static final long serialVersionUID = -3174416211329932217L;
+
+    private static final CheckDigit LUHN = LuhnCheckDigit.LUHN_CHECK_DIGIT;
+
+    /** American Express (Amex) cards */
+    public static final CreditCardType AMEX = new CreditCardType("American Express",
+            new String[] {"34", "37"}, new int[] {15}, LUHN);
+
+    /** Diners cards */
+    public static final CreditCardType DINERS = new CreditCardType("Diners",
+            new String[] {"300-305", "3095", "36", "38-39"}, new int[] {14}, LUHN);
+
+    /** Discover cards */
+    public static final CreditCardType DISCOVER = new CreditCardType("Discover",
+            new String[] {"6011", "644-649", "65"}, new int[] {16}, LUHN);
+
+    /** Mastercard cards */
+    public static final CreditCardType MASTERCARD = new CreditCardType("Mastercard",
+            new String[] {"51-55"}, new int[] {16}, LUHN);
+
+    /** Visa cards */
+    public static final CreditCardType VISA = new CreditCardType("Visa",
+            new String[] {"4"}, new int[] {13, 16}, LUHN);
+
+    /**
+     * UnionPay cards. Not all UnionPay cards have a Luhn check digit, so
+     * only the prefix and length of the card numbers are checked.
+     */
+    public static final CreditCardType UNIONPAY = new CreditCardType("UnionPay",
+            new String[] {"62"}, new int[] {16, 17, 18, 19}, null);
+
+    private final String name;
+    private final String[] prefixes;
+    private final int[] lengths;
+    private final CheckDigit checkDigit;
+
+    /**
+     * Construct a card type.
+     *
+     * @param name The name of the card network
+     * @param prefixes The prefixes of the card numbers, each a string of
+     * digits or a range of two strings of digits of the same length
+     * separated by <code>'-'</code>
+     * @param lengths The allowed lengths of the card numbers
+     * @param checkDigit The check digit of the card numbers, or
+     * <code>null</code> if they have none
+     */
+    public CreditCardType(String name, String[] prefixes, int[] lengths, CheckDigit checkDigit) {
+        if (name == null) {
+            throw new IllegalArgumentException("Card name is missing");
+        }
+        if (prefixes == null || prefixes.length == 0) {
+            throw new IllegalArgumentException("Card prefixes are missing");
+        }
+        if (lengths == null || lengths.length == 0) {
+            throw new IllegalArgumentException("Card lengths are missing");
+        }
+        for (int i = 0; i < prefixes.length; i++) {
+            if (prefixes[i] == null || getHigh(prefixes[i]) == null) {
+                throw new IllegalArgumentException("Invalid card prefix[" + i + "] = '" + prefixes[i] + "'");
+            }
+        }
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] <= 0) {
+                throw new IllegalArgumentException("Invalid card length[" + i + "] = " + lengths[i]);
+            }
+        }
+        this.name = name;
+        this.prefixes = (String[]) prefixes.clone();
+        this.lengths = (int[]) lengths.clone();
+        this.checkDigit = checkDigit;
+    }
+
+    /**
+     * Return the name of the card network.
+     *
+     * @return The name of the card network
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return the prefixes of the card numbers.
+     *
+     * @return The prefixes and prefix ranges of the card numbers
+     */
+    public String[] getPrefixes() {
+        return (String[]) prefixes.clone();
+    }
+
+    /**
+     * Return the allowed lengths of the card numbers.
+     *
+     * @return The allowed lengths of the card numbers
+     */
+    public int[] getLengths() {
+        return (int[]) lengths.clone();
+    }
+
+    /**
+     * Return the check digit of the card numbers.
+     *
+     * @return The check digit routine, or <code>null</code> if the
+     * card numbers have none
+     */
+    public CheckDigit getCheckDigit() {
+        return checkDigit;
+    }
+
+    /**
+     * Whether card numbers of this type may have a length.
+     */
+    boolean hasLength(int length) {
+        for (int i = 0; i < lengths.length; i++) {
+            if (lengths[i] == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the first prefix of a prefix or range.
+     */
+    static String getLow(String prefix) {
+        int dash = prefix.indexOf('-');
+        return dash < 0 ? prefix : prefix.substring(0, dash);
+    }
+
+    /**
+     * Returns the last prefix of a prefix or range, or <code>null</code>
+     * if it is not valid.
+     */
+    static String getHigh(String prefix) {
+        String low = getLow(prefix);
+        String high = low.length() == prefix.length() ? low : prefix.substring(low.length() + 1);
+        if (low.length() == 0 || low.length() != high.length() || low.compareTo(high) > 0) {
+            return null;
+        }
+        for (int i = 0; i < low.length(); i++) {
+            if (!isAsciiDigit(low.charAt(i)) || !isAsciiDigit(high.charAt(i))) {
+                return null;
+            }
+        }
+        return high;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Provide a String representation of this card type.
+     * @return A String representation of this card type
+     */
+    public String toString() {
+        return name;
+    }
+}
@@ -38,12 +38,18 @@ import commons.validator.routines.checkdigit.LuhnCheckDigit;
  *
  * <p>
  * configures the validator to only pass American Express and Visa cards.
- * If a card type is not directly supported by this class, you can implement
- * the CreditCardType interface and pass an instance into the
+ * If a card type is not directly supported by this class, you can create
+ * a {@link CreditCardType} and pass it into the
  * <code>addAllowedCardType</code> method.
  * </p>
  *
  * <p>
+ * The card types are held in a trie of their number prefixes, so a card number
+ * is classified by its leading digits and length in one pass and its check
+ * digit calculated once, whichever types are allowed.
+ * </p>
+ *
+ * <p>
  * For a similar implementation in Perl, reference Sean M. Burke's
  * <a href="http://www.speech.cs.cmu.edu/~sburke/pub/luhn_lib.html">script</a>.
  * More information can be found in Michael Gilleland's essay 
@@ -98,10 +104,27 @@ public class CreditCardValidator implements Serializable {
     public static final long DINERS = 1 << 4;
 
     /**
-     * The CreditCardTypes that are allowed to pass validation.
+     * Option specifying that UnionPay cards are allowed. Their check digit
+     * is not validated, see {@link CreditCardType#UNIONPAY}.
+     */
+    public static final long UNIONPAY = 1 << 5;
+
+    /**
+     * The {@link CodeValidator}s that are allowed to pass validation,
+     * other than those of the standard card types.
      */
     private final List cardTypes = new ArrayList();
 
+    /**
+     * The {@link CreditCardType}s that are allowed to pass validation.
+     */
+    private final List allowedTypes = new ArrayList();
+
+    /**
+     * The prefixes of the allowed card types, rebuilt when a type is added.
+     */
+    private volatile CardPrefixTrie prefixTrie;
+
     /**
      * Luhn checkdigit validator for the card numbers.
      */
@@ -142,24 +165,29 @@ public class CreditCardValidator implements Serializable {
         super();
 
         if (isOn(options, VISA)) {
-            this.cardTypes.add(VISA_VALIDATOR);
+            this.allowedTypes.add(CreditCardType.VISA);
         }
 
         if (isOn(options, AMEX)) {
-            this.cardTypes.add(AMEX_VALIDATOR);
+            this.allowedTypes.add(CreditCardType.AMEX);
         }
 
         if (isOn(options, MASTERCARD)) {
-            this.cardTypes.add(MASTERCARD_VALIDATOR);
+            this.allowedTypes.add(CreditCardType.MASTERCARD);
         }
 
         if (isOn(options, DISCOVER)) {
-            this.cardTypes.add(DISCOVER_VALIDATOR);
+            this.allowedTypes.add(CreditCardType.DISCOVER);
         }
 
         if (isOn(options, DINERS)) {
-            this.cardTypes.add(DINERS_VALIDATOR);
+            this.allowedTypes.add(CreditCardType.DINERS);
+        }
+
+        if (isOn(options, UNIONPAY)) {
+            this.allowedTypes.add(CreditCardType.UNIONPAY);
         }
+        this.prefixTrie = new CardPrefixTrie(allowedTypes);
     }
 
     /**
@@ -171,7 +199,47 @@ public class CreditCardValidator implements Serializable {
             throw new IllegalArgumentException("Card validators are missing");
         }
         for (int i = 0; i < creditCardValidators.length; i++) {
-            cardTypes.add(creditCardValidators[i]);
+            CreditCardType type = toCardType(creditCardValidators[i]);
+            if (type != null) {
+                allowedTypes.add(type);
+            } else {
+                cardTypes.add(creditCardValidators[i]);
+            }
+        }
+        this.prefixTrie = new CardPrefixTrie(allowedTypes);
+    }
+
+    /**
+     * Returns the card type a standard validator checks for.
+     */
+    private static CreditCardType toCardType(CodeValidator validator) {
+        if (validator == VISA_VALIDATOR) {
+            return CreditCardType.VISA;
+        } else if (validator == AMEX_VALIDATOR) {
+            return CreditCardType.AMEX;
+        } else if (validator == MASTERCARD_VALIDATOR) {
+            return CreditCardType.MASTERCARD;
+        } else if (validator == DISCOVER_VALIDATOR) {
+            return CreditCardType.DISCOVER;
+        } else if (validator == DINERS_VALIDATOR) {
+            return CreditCardType.DINERS;
+        }
+        return null;
+    }
+
+    /**
+     * Allows a card type to pass validation.
+     * @param type The card type to allow.
+     */
+    public void addAllowedCardType(CreditCardType type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Card type is missing");
+        }
+        synchronized (allowedTypes) {
+            if (!allowedTypes.contains(type)) {
+                allowedTypes.add(type);
+                prefixTrie = new CardPrefixTrie(allowedTypes);
+            }
         }
     }
 
@@ -184,6 +252,9 @@ public class CreditCardValidator implements Serializable {
         if (card == null || card.length() == 0) {
             return false;
         }
+        if (getCardType(card) != null) {
+            return true;
+        }
         for (int i = 0; i < cardTypes.size(); i++) {
             CodeValidator type = (CodeValidator)cardTypes.get(i);
             if (type.isValid(card)) {
@@ -193,6 +264,90 @@ public class CreditCardValidator implements Serializable {
         return false;
     }
 
+    /**
+     * Returns the type of a valid credit card number, as recognised by its
+     * leading digits, length and check digit. Leading and trailing whitespace
+     * is ignored.
+     * @param card The card number to classify.
+     * @return The allowed card type of the number, or <code>null</code> if
+     * it is not valid for any allowed {@link CreditCardType}.
+     */
+    public CreditCardType getCardType(CharSequence card) {
+        return getCardType(card, false);
+    }
+
+    /**
+     * Returns the type of a valid credit card number, as recognised by its
+     * leading digits, length and check digit. Leading and trailing whitespace
+     * is ignored.
+     * @param card The card number to classify.
+     * @param skipWhitespace Whether whitespace between the digits, such as
+     * in <code>"4111 1111 1111 1111"</code>, is ignored as well.
+     * @return The allowed card type of the number, or <code>null</code> if
+     * it is not valid for any allowed {@link CreditCardType}.
+     */
+    public CreditCardType getCardType(CharSequence card, boolean skipWhitespace) {
+        if (card == null) {
+            return null;
+        }
+        int start = 0;
+        int end = card.length();
+        // the equivalent of String.trim(), as in CodeValidator
+        while (start < end && card.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && card.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return null;
+        }
+        return prefixTrie.lookup(card, start, end, skipWhitespace);
+    }
+
+    /**
+     * Checks if the field is a valid credit card number.
+     * @param card The card number to validate.
+     * @param skipWhitespace Whether whitespace between the digits, such as
+     * in <code>"4111 1111 1111 1111"</code>, is ignored.
+     * @return Whether the card number is valid.
+     */
+    public boolean isValid(CharSequence card, boolean skipWhitespace) {
+        if (card == null || card.length() == 0) {
+            return false;
+        }
+        if (getCardType(card, skipWhitespace) != null) {
+            return true;
+        }
+        if (cardTypes.isEmpty()) {
+            return false;
+        }
+        String value = card.toString();
+        if (skipWhitespace) {
+            StringBuffer buffer = new StringBuffer(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                if (!isWhitespace(value.charAt(i))) {
+                    buffer.append(value.charAt(i));
+                }
+            }
+            value = buffer.toString();
+        }
+        for (int i = 0; i < cardTypes.size(); i++) {
+            CodeValidator type = (CodeValidator)cardTypes.get(i);
+            if (type.isValid(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests for the whitespace matched by <code>\s</code> in a regular expression.
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
     /**
      * Checks if the field is a valid credit card number.
      * @param card The card number to validate.
@@ -203,6 +358,9 @@ public class CreditCardValidator implements Serializable {
         if (card == null || card.length() == 0) {
             return null;
         }
+        if (getCardType(card) != null) {
+            return card.trim();
+        }
         Object result = null;
         for (int i = 0; i < cardTypes.size(); i++) {
             CodeValidator type = (CodeValidator)cardTypes.get(i);
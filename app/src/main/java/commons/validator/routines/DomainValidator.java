@@ -16,11 +16,19 @@
  */
 package commons.validator.routines;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.net.IDN;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 /**
  * <p><b>Domain name</b> validation routines.</p>
@@ -54,6 +62,11 @@ import java.util.Locale;
  *   </ul>
  *
  * <p>
+ * The TLDs built into this class can be replaced at runtime with a newer
+ * IANA list, see {@link #updateTlds(Reader)}.
+ * </p>
+ *
+ * <p>
  * (<b>NOTE</b>: This class does not provide IP address lookup for domain names or
  * methods to ensure that a given domain name matches a specific IP; see
  * {@link java.net.InetAddress} for that functionality.)
@@ -110,6 +123,17 @@ public class DomainValidator implements Serializable {
     private final RegexValidator hostnameRegex =
             new RegexValidator(DOMAIN_LABEL_REGEX);
 
+    /**
+     * Whether to use domainRegex and hostnameRegex instead of the
+     * equivalent, allocation free, label scanner.
+     */
+    // package protected for unit test access
+    static boolean useRegex = false;
+
+    // scanLabels() results other than the offset of the top label
+    private static final int SINGLE_LABEL = -1;
+    private static final int INVALID_LABELS = -2;
+
     /**
      * Returns the singleton instance of this validator. It
      *  will not consider local addresses as valid.
@@ -152,15 +176,113 @@ public class DomainValidator implements Serializable {
         // hosts must be equally reachable via punycode and Unicode;
         // Unicode is never shorter than punycode, so check punycode
         // if domain did not convert, then it will be caught by ASCII
-        // checks in the regexes below
+        // checks in the label scanner below
         if (domain.length() > 253) {
             return false;
         }
-        String[] groups = domainRegex.match(domain);
-        if (groups != null && groups.length > 0) {
-            return isValidTld(groups[0]);
+        if (useRegex) {
+            String[] groups = domainRegex.match(domain);
+            if (groups != null && groups.length > 0) {
+                return isValidTld(groups[0]);
+            }
+            return allowLocal && hostnameRegex.isValid(domain);
+        }
+        return isValidASCII(domain, 0, domain.length());
+    }
+
+    /**
+     * Returns true if the specified character sequence, such as an
+     * <code>Editable</code>, parses as a valid domain name with a
+     * recognized top-level domain. The parsing is case-insensitive.
+     * @param domain the parameter to check for domain name syntax
+     * @return true if the parameter is a valid domain name
+     */
+    public boolean isValid(CharSequence domain) {
+        if (domain == null) {
+            return false;
+        }
+        return isValid(domain, 0, domain.length());
+    }
+
+    /**
+     * Returns true if part of the specified character sequence parses
+     * as a valid domain name with a recognized top-level domain.
+     * The parsing is case-insensitive. ASCII domain names are checked
+     * in place, Unicode ones are copied to convert them to punycode.
+     * @param domain the characters containing the domain name
+     * @param offset the index of the first character of the domain name
+     * @param length the number of characters of the domain name
+     * @return true if the parameter is a valid domain name
+     */
+    public boolean isValid(CharSequence domain, int offset, int length) {
+        if (domain == null) {
+            return false;
+        }
+        int end = offset + length;
+        if (useRegex || !isOnlyASCII(domain, offset, end)) {
+            return isValid(domain.subSequence(offset, end).toString());
+        }
+        if (length > 253) {
+            return false;
+        }
+        return isValidASCII(domain, offset, end);
+    }
+
+    private boolean isValidASCII(CharSequence domain, int start, int end) {
+        int topLabel = scanLabels(domain, start, end);
+        if (topLabel >= 0) {
+            if (domain.charAt(end - 1) == '.') {
+                end--;
+            }
+            int types = allowLocal ? ANY_TLD : ANY_TLD & ~LOCAL_TLD;
+            return (tldTrie.lookup(domain, topLabel, end) & types) != 0;
+        }
+        return allowLocal && topLabel == SINGLE_LABEL;
+    }
+
+    /**
+     * Checks an array of domain names.
+     * @param domains the values to check, <code>null</code> entries are invalid
+     * @param results receives whether each value is a valid domain name
+     * @return the number of valid domain names
+     */
+    public int isValidAll(CharSequence[] domains, boolean[] results) {
+        return isValidAll(domains, results, null);
+    }
+
+    /**
+     * Checks an array of domain names, splitting large arrays into chunks
+     * which are checked by the executor.
+     * @param domains the values to check, <code>null</code> entries are invalid
+     * @param results receives whether each value is a valid domain name
+     * @param executor checks the chunks, or <code>null</code> to check all
+     * values in the calling thread
+     * @return the number of valid domain names
+     */
+    public int isValidAll(CharSequence[] domains, boolean[] results, Executor executor) {
+        return new DomainBatch().run(domains, results, executor);
+    }
+
+    /**
+     * Checks an array of domain names.
+     * @param domains the values to check, <code>null</code> entries are invalid
+     * @return the indexes of the valid domain names
+     */
+    public BitSet isValidAll(CharSequence[] domains) {
+        return new DomainBatch().run(domains);
+    }
+
+    private class DomainBatch extends Batch {
+        int validate(CharSequence[] values, int from, int to, boolean[] results) {
+            int valid = 0;
+            for (int i = from; i < to; i++) {
+                results[i] = isValid(values[i]);
+                if (results[i]) {
+                    valid++;
+                }
+            }
+            return valid;
         }
-        return allowLocal && hostnameRegex.isValid(domain);
     }
 
     // package protected for unit test access
@@ -173,13 +295,79 @@ public class DomainValidator implements Serializable {
         // hosts must be equally reachable via punycode and Unicode;
         // Unicode is never shorter than punycode, so check punycode
         // if domain did not convert, then it will be caught by ASCII
-        // checks in the regexes below
+        // checks in the label scanner below
         if (domain.length() > 253) {
             return false;
         }
-        String[] groups = domainRegex.match(domain);
-        return (groups != null && groups.length > 0)
-                || hostnameRegex.isValid(domain);
+        if (useRegex) {
+            String[] groups = domainRegex.match(domain);
+            return (groups != null && groups.length > 0)
+                    || hostnameRegex.isValid(domain);
+        }
+        return scanLabels(domain, 0, domain.length()) != INVALID_LABELS;
+    }
+
+    /**
+     * Checks the labels of a domain name against DOMAIN_NAME_REGEX and, failing
+     * that, DOMAIN_LABEL_REGEX without creating any objects.
+     * <p>
+     * Each label must have 1 to 63 ASCII letters, digits or hyphens and must
+     * neither start nor end with a hyphen. A domain name has at least two
+     * labels, the last of which (the top label) starts with a letter, and may
+     * have a trailing dot.
+     * </p>
+     * @param domain the characters containing the ASCII domain name
+     * @param start the start offset of the domain name, inclusive
+     * @param end the end offset of the domain name, exclusive
+     * @return the offset of the top label of a domain name, {@link #SINGLE_LABEL}
+     * for a single label (a local hostname) or {@link #INVALID_LABELS}
+     */
+    private static int scanLabels(CharSequence domain, int start, int end) {
+        int labels = 0;
+        int labelStart = start;
+        int i = start;
+        while (true) {
+            // one label: alphanum *( alphanum | "-" ) alphanum
+            char c = 0;
+            while (i < end && (c = domain.charAt(i)) != '.') {
+                if (!isAsciiAlphaNumeric(c) && c != '-') {
+                    return INVALID_LABELS;
+                }
+                i++;
+            }
+            int labelLength = i - labelStart;
+            if (labelLength == 0 || labelLength > 63
+                    || domain.charAt(labelStart) == '-' || domain.charAt(i - 1) == '-') {
+                return INVALID_LABELS;
+            }
+            labels++;
+            if (i == end) {
+                // no trailing dot
+                break;
+            }
+            i++; // skip the dot
+            if (i == end) {
+                // trailing dot, which a single label may not have
+                if (labels == 1) {
+                    return INVALID_LABELS;
+                }
+                break;
+            }
+            labelStart = i;
+        }
+        if (labels == 1) {
+            return SINGLE_LABEL;
+        }
+        char first = domain.charAt(labelStart);
+        if ((first >= '0' && first <= '9')) {
+            // toplabel = alpha | alpha *( alphanum | "-" ) alphanum
+            return INVALID_LABELS;
+        }
+        return labelStart;
+    }
+
+    private static boolean isAsciiAlphaNumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 
     /**
@@ -191,12 +379,20 @@ public class DomainValidator implements Serializable {
      */
     public boolean isValidTld(String tld) {
         tld = unicodeToASCII(tld);
-        if(allowLocal && isValidLocalTld(tld)) {
-           return true;
+        int types = allowLocal ? ANY_TLD : ANY_TLD & ~LOCAL_TLD;
+        return (tldTrie.lookup(tld, 0, tld.length()) & types) != 0;
+    }
+
+    /**
+     * Returns true if part of the specified character sequence matches any
+     * IANA-defined top-level domain, checking ASCII names in place.
+     */
+    boolean isValidTld(CharSequence tld, int start, int end) {
+        if (!isOnlyASCII(tld, start, end)) {
+            return isValidTld(tld.subSequence(start, end).toString());
         }
-        return isValidInfrastructureTld(tld)
-                || isValidGenericTld(tld)
-                || isValidCountryCodeTld(tld);
+        int types = allowLocal ? ANY_TLD : ANY_TLD & ~LOCAL_TLD;
+        return (tldTrie.lookup(tld, start, end) & types) != 0;
     }
 
     /**
@@ -207,8 +403,7 @@ public class DomainValidator implements Serializable {
      * @return true if the parameter is an infrastructure TLD
      */
     public boolean isValidInfrastructureTld(String iTld) {
-        iTld = unicodeToASCII(iTld);
-        return Arrays.binarySearch(INFRASTRUCTURE_TLDS, (chompLeadingDot(iTld.toLowerCase(Locale.ENGLISH)))) >= 0;
+        return isTldType(iTld, INFRASTRUCTURE_TLD);
     }
 
     /**
@@ -219,8 +414,7 @@ public class DomainValidator implements Serializable {
      * @return true if the parameter is a generic TLD
      */
     public boolean isValidGenericTld(String gTld) {
-        gTld = unicodeToASCII(gTld);
-        return Arrays.binarySearch(GENERIC_TLDS, chompLeadingDot(gTld.toLowerCase(Locale.ENGLISH))) >= 0;
+        return isTldType(gTld, GENERIC_TLD);
     }
 
     /**
@@ -231,8 +425,7 @@ public class DomainValidator implements Serializable {
      * @return true if the parameter is a country code TLD
      */
     public boolean isValidCountryCodeTld(String ccTld) {
-        ccTld = unicodeToASCII(ccTld);
-        return Arrays.binarySearch(COUNTRY_CODE_TLDS, chompLeadingDot(ccTld.toLowerCase(Locale.ENGLISH))) >= 0;
+        return isTldType(ccTld, COUNTRY_CODE_TLD);
     }
 
     /**
@@ -243,15 +436,120 @@ public class DomainValidator implements Serializable {
      * @return true if the parameter is an local TLD
      */
     public boolean isValidLocalTld(String lTld) {
-        lTld = unicodeToASCII(lTld);
-        return Arrays.binarySearch(LOCAL_TLDS, chompLeadingDot(lTld.toLowerCase(Locale.ENGLISH))) >= 0;
+        return isTldType(lTld, LOCAL_TLD);
+    }
+
+    private static boolean isTldType(String tld, int type) {
+        tld = unicodeToASCII(tld);
+        return (tldTrie.lookup(tld, 0, tld.length()) & type) != 0;
+    }
+
+    /**
+     * Replaces the TLDs used by all instances with the list read from a file in
+     * the format of <a href="http://data.iana.org/TLD/tlds-alpha-by-domain.txt">
+     * tlds-alpha-by-domain.txt</a>.
+     * @param file the TLD list, not null
+     * @throws IOException if the file cannot be read or is not a TLD list,
+     * in which case the TLDs in use are left unchanged
+     * @see #updateTlds(Reader)
+     */
+    public static void updateTlds(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "US-ASCII");
+        try {
+            updateTlds(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Replaces the TLDs used by all instances with the list read from a
+     * stream, such as an application asset, in the format of
+     * <a href="http://data.iana.org/TLD/tlds-alpha-by-domain.txt">tlds-alpha-by-domain.txt</a>:
+     * one TLD per line, case-insensitive, with lines starting with <code>#</code>
+     * ignored.
+     * <p>
+     * The list does not say which category a TLD belongs to. TLDs already known
+     * keep their category, new two letter TLDs are taken as country codes and
+     * any other new TLD as generic. The local TLDs are always retained.
+     * </p>
+     * <p>
+     * The new list is built completely before it replaces the current one in a
+     * single step, so concurrent validations see either the old or the new list.
+     * </p>
+     * @param reader the TLD list, not null; it is not closed
+     * @throws IOException if the list cannot be read or contains no or invalid
+     * entries, in which case the TLDs in use are left unchanged
+     */
+    public static void updateTlds(Reader reader) throws IOException {
+        List infrastructure = new ArrayList();
+        List generic = new ArrayList();
+        List countryCode = new ArrayList();
+        BufferedReader lines = new BufferedReader(reader);
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.length() == 0 || line.charAt(0) == '#') {
+                continue;
+            }
+            if (!isTldSyntax(line)) {
+                throw new IOException("Invalid TLD '" + line + "' at line " + lineNumber);
+            }
+            String tld = line.toLowerCase(Locale.ENGLISH);
+            int type = BUILT_IN_TLDS.lookup(tld, 0, tld.length());
+            if ((type & INFRASTRUCTURE_TLD) != 0) {
+                infrastructure.add(tld);
+            } else if ((type & COUNTRY_CODE_TLD) != 0 || (type == 0 && tld.length() == 2)) {
+                countryCode.add(tld);
+            } else {
+                generic.add(tld);
+            }
+        }
+        if (infrastructure.size() + generic.size() + countryCode.size() == 0) {
+            throw new IOException("No TLDs found");
+        }
+        tldTrie = new TldTrie(
+                new String[][] {
+                    (String[]) infrastructure.toArray(new String[infrastructure.size()]),
+                    (String[]) generic.toArray(new String[generic.size()]),
+                    (String[]) countryCode.toArray(new String[countryCode.size()]),
+                    LOCAL_TLDS},
+                new int[] {INFRASTRUCTURE_TLD, GENERIC_TLD, COUNTRY_CODE_TLD, LOCAL_TLD});
+    }
+
+    /**
+     * Restores the TLDs built into this class, discarding any list
+     * loaded by {@link #updateTlds(Reader)}.
+     */
+    public static void resetTlds() {
+        tldTrie = BUILT_IN_TLDS;
+    }
+
+    // RFC2396 toplabel, which includes the xn-- ASCII form of IDN TLDs
+    private static boolean isTldSyntax(String tld) {
+        for (int i = 0; i < tld.length(); i++) {
+            char c = tld.charAt(i);
+            boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (!alpha && (i == 0 || ((c < '0' || c > '9') && c != '-'))) {
+                return false;
+            }
+        }
+        return tld.length() <= 63 && tld.charAt(tld.length() - 1) != '-';
     }
 
-    private String chompLeadingDot(String str) {
-        if (str.startsWith(".")) {
-            return str.substring(1);
+    // package protected for benchmark access
+    static String[] getTldEntries(int type) {
+        String[] entries;
+        switch (type) {
+            case INFRASTRUCTURE_TLD: entries = INFRASTRUCTURE_TLDS; break;
+            case GENERIC_TLD: entries = GENERIC_TLDS; break;
+            case COUNTRY_CODE_TLD: entries = COUNTRY_CODE_TLDS; break;
+            case LOCAL_TLD: entries = LOCAL_TLDS; break;
+            default: throw new IllegalArgumentException("Unknown TLD type: " + type);
         }
-        return str;
+        return (String[]) entries.clone();
     }
 
     // ---------------------------------------------
@@ -269,12 +567,12 @@ public class DomainValidator implements Serializable {
     // .bl  country-code    Not assigned
     // .um  country-code    Not assigned
 
-    // WARNING: this array MUST be sorted, others it cannot be searched reliably using binary search
+    // The arrays are kept sorted for readability; the TLD trie does not depend on it
     private static final String[] INFRASTRUCTURE_TLDS = new String[] {
         "arpa",               // internet infrastructure
     };
 
-    // WARNING: this array MUST be sorted, others it cannot be searched reliably using binary search
+    // The arrays are kept sorted for readability; the TLD trie does not depend on it
     private static final String[] GENERIC_TLDS = new String[] {
         "abogado",
         "academy",
@@ -780,7 +1078,7 @@ public class DomainValidator implements Serializable {
         "zuerich",
    };
 
-    // WARNING: this array MUST be sorted, others it cannot be searched reliably using binary search
+    // The arrays are kept sorted for readability; the TLD trie does not depend on it
     private static final String[] COUNTRY_CODE_TLDS = new String[] {
         "ac",                 // Ascension Island
         "ad",                 // Andorra
@@ -1071,69 +1369,88 @@ public class DomainValidator implements Serializable {
         "zw",                 // Zimbabwe
     };
 
-    // WARNING: this array MUST be sorted, others it cannot be searched reliably using binary search
+    // The arrays are kept sorted for readability; the TLD trie does not depend on it
     private static final String[] LOCAL_TLDS = new String[] {
        "localdomain",         // Also widely used as localhost.localdomain
        "localhost",           // RFC2606 defined
     };
 
+    // TLD categories, as reported by TldTrie.lookup()
+    static final int INFRASTRUCTURE_TLD = 1;
+    static final int GENERIC_TLD = 2;
+    static final int COUNTRY_CODE_TLD = 4;
+    static final int LOCAL_TLD = 8;
+    private static final int ANY_TLD = INFRASTRUCTURE_TLD | GENERIC_TLD | COUNTRY_CODE_TLD | LOCAL_TLD;
+
+    /**
+     * All of the above TLDs, packed into a single case-insensitive lookup
+     * which reports the categories of a TLD without allocating.
+     */
+    private static final TldTrie BUILT_IN_TLDS = new TldTrie(
+            new String[][] {INFRASTRUCTURE_TLDS, GENERIC_TLDS, COUNTRY_CODE_TLDS, LOCAL_TLDS},
+            new int[] {INFRASTRUCTURE_TLD, GENERIC_TLD, COUNTRY_CODE_TLD, LOCAL_TLD});
+
+    /**
+     * The TLDs currently in use. The trie is immutable, so updates replace
+     * it as a whole and readers never need a lock.
+     */
+    private static volatile TldTrie tldTrie = BUILT_IN_TLDS;
+
+    /**
+     * Maximum number of Unicode domains whose punycode form is cached.
+     */
+    private static final int IDN_CACHE_SIZE = 256;
+
+    /**
+     * Punycode conversions by Unicode input. Input which cannot be
+     * converted is mapped to itself.
+     */
+    private static final ConcurrentLruCache IDN_CACHE = new ConcurrentLruCache(IDN_CACHE_SIZE);
+
     /**
      * Converts potentially Unicode input to punycode.
      * If conversion fails, returns the original input.
+     * <p>
+     * The conversions of the most recently used Unicode inputs are cached.
+     * </p>
      * 
      * @param input the string to convert, not null
      * @return converted input, or original input if conversion fails
      */
     // Needed by UrlValidator
     static String unicodeToASCII(String input) {
-        try {
-            return /* java.net.IDN. */ toASCII(input);
-        } catch (IllegalArgumentException e) { // input is not valid
+        // skip the entire IDN call (and cache lookup) for ASCII input
+        if (isOnlyASCII(input)) {
             return input;
         }
-    }
-
-    // ================= Code needed for Java 1.4 and 1.5 compatibility ===============
-
-    private static class IDNHolder {
-        private static Method getMethod() {
+        String ascii = (String) IDN_CACHE.get(input);
+        if (ascii == null) {
             try {
-                Class clazz = Class.forName("java.net.IDN", false, DomainValidator.class.getClassLoader());
-                return clazz.getDeclaredMethod("toASCII", new Class[]{String.class});
-            } catch (Exception e) {
-              return null;
+                ascii = IDN.toASCII(input);
+            } catch (IllegalArgumentException e) { // input is not valid
+                ascii = input;
             }
+            IDN_CACHE.put(input, ascii);
         }
-        private static final Method JAVA_NET_IDN_TO_ASCII = getMethod();
+        return ascii;
     }
 
-    /*
-     * Helper method to invoke java.net.IDN.toAscii(String).
-     * Allows code to be compiled with Java 1.4 and 1.5 
-     * @throws IllegalArgumentException if the input string doesn't conform to RFC 3490 specification
+    /**
+     * Returns the number of Unicode domain names which were converted to
+     * punycode from the cache.
+     * @return the number of IDN cache hits
      */
-    private static final String toASCII(String line) throws IllegalArgumentException {
-//        java.net.IDN.toASCII(line); // Java 1.6+
-        // implementation for Java 1.4 and 1.5
-        // effectively this is done by IDN.toASCII but we want to skip the entire call
-        if (isOnlyASCII(line)) {
-            return line;
-        }
-        Method m = IDNHolder.JAVA_NET_IDN_TO_ASCII;
-        if (m == null) { // avoid NPE
-            return line;
-        }
-        try {
-            return (String) m.invoke(null, new Object[]{line.toLowerCase(Locale.ENGLISH)});
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e); // Should not happen
-        } catch (InvocationTargetException e) {
-            Throwable t = e.getCause();
-            if (t instanceof IllegalArgumentException) { // this is expected from toASCII method
-                throw (IllegalArgumentException) t;
-            }
-            throw new RuntimeException(e); // Should not happen
-        }
+    public static long getIdnCacheHitCount() {
+        return IDN_CACHE.hitCount();
+    }
+
+    /**
+     * Returns the number of Unicode domain names which had to be converted to
+     * punycode because they were not cached.
+     * @return the number of IDN cache misses
+     */
+    public static long getIdnCacheMissCount() {
+        return IDN_CACHE.missCount();
     }
 
     /*
@@ -1144,7 +1461,11 @@ public class DomainValidator implements Serializable {
         if (input == null) {
             return true;
         }
-        for(int i=0; i < input.length(); i++) {
+        return isOnlyASCII(input, 0, input.length());
+    }
+
+    private static boolean isOnlyASCII(CharSequence input, int start, int end) {
+        for(int i=start; i < end; i++) {
             if (input.charAt(i) > 0x7F) {
                 return false;
             }
@@ -117,9 +117,52 @@ public class DoubleValidator extends AbstractNumberValidator {
      *  if invalid.
      */
     public Double validate(String value) {
+        if (value != null && isPlainFormat()) {
+            double plain = parsePlainDecimal(value);
+            if (!Double.isNaN(plain)) {
+                return Double.valueOf(plain);
+            }
+        }
         return (Double)parse(value, (String)null, (Locale)null);
     }
 
+    /**
+     * <p>Validate/convert a <code>double</code> using the default
+     *    <code>Locale</code>, without boxing it.</p>
+     *
+     * <p>Plain decimals such as <code>-1.25</code> are parsed directly
+     *    when the default <code>Locale</code> formats them that way,
+     *    other values are parsed by the format.</p>
+     *
+     * @param value The value validation is being performed on.
+     * @param defaultOnFail The value to return if the value is invalid.
+     * @return The parsed <code>double</code> if valid or <code>defaultOnFail</code>
+     *  if invalid.
+     */
+    public double validateDouble(CharSequence value, double defaultOnFail) {
+        if (value == null) {
+            return defaultOnFail;
+        }
+        if (isPlainFormat()) {
+            double plain = parsePlainDecimal(value);
+            if (!Double.isNaN(plain)) {
+                return plain;
+            }
+        }
+        Double result = (Double)parse(value.toString(), (String)null, (Locale)null);
+        return result == null ? defaultOnFail : result.doubleValue();
+    }
+
+    /**
+     * <p>Validate using the default <code>Locale</code>.
+     *
+     * @param value The value validation is being performed on.
+     * @return <code>true</code> if the value is valid.
+     */
+    public boolean isValid(String value) {
+        return validate(value) != null;
+    }
+
     /**
      * <p>Validate/convert a <code>Double</code> using the
      *    specified <i>pattern</i>.
@@ -248,4 +291,12 @@ public class DoubleValidator extends AbstractNumberValidator {
         return new Double(((Number)value).doubleValue());
 
     }
+
+    /**
+     * Plain decimals are only parsed directly if this class's parsing
+     * is not overridden.
+     */
+    private boolean isPlainFormat() {
+        return getClass() == DoubleValidator.class && isPlainDecimalFormat();
+    }
 }
@@ -17,8 +17,8 @@
 package commons.validator.routines;
 
 import java.io.Serializable;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.BitSet;
+import java.util.concurrent.Executor;
 
 /**
  * <p>Perform email validations.</p>
@@ -27,6 +27,14 @@ import java.util.regex.Pattern;
  * http://javascript.internet.com
  * </p>
  * <p>
+ * Addresses are checked in a single pass without regular expressions,
+ * accepting the same addresses as the expressions
+ * <code>^\s*?(.+)@(.+?)\s*$</code> (address) and
+ * <code>^\s*WORD(\.WORD)*$</code> (user name) where a
+ * <code>WORD</code> is a run of characters other than whitespace,
+ * controls and <code>()&lt;&gt;@,;:\".[]</code>, or a quoted string.
+ * </p>
+ * <p>
  * This implementation is not guaranteed to catch all possible errors in an email address.
  * </p>.
  *
@@ -37,18 +45,11 @@ public class EmailValidator implements Serializable {
 
     private static final long serialVersionUID = 1705927040799295880L;
 
-    private static final String SPECIAL_CHARS = "\\p{Cntrl}\\(\\)<>@,;:'\\\\\\\"\\.\\[\\]";
-    private static final String VALID_CHARS = "[^\\s" + SPECIAL_CHARS + "]";
-    private static final String QUOTED_USER = "(\"[^\"]*\")";
-    private static final String WORD = "((" + VALID_CHARS + "|')+|" + QUOTED_USER + ")";
-
-    private static final String EMAIL_REGEX = "^\\s*?(.+)@(.+?)\\s*$";
-    private static final String IP_DOMAIN_REGEX = "^\\[(.*)\\]$";
-    private static final String USER_REGEX = "^\\s*" + WORD + "(\\." + WORD + ")*$";
-
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(EMAIL_REGEX);
-    private static final Pattern IP_DOMAIN_PATTERN = Pattern.compile(IP_DOMAIN_REGEX);
-    private static final Pattern USER_PATTERN = Pattern.compile(USER_REGEX);
+    /**
+     * Characters which may not appear unquoted in the user name,
+     * besides whitespace and control characters.
+     */
+    private static final String SPECIAL_CHARS = "()<>@,;:\\\".[]";
 
     private final boolean allowLocal;
 
@@ -105,29 +106,154 @@ public class EmailValidator implements Serializable {
      * @return true if the email address is valid.
      */
     public boolean isValid(String email) {
+        return isValid((CharSequence) email);
+    }
+
+    /**
+     * <p>Checks if a character sequence, such as an <code>Editable</code>,
+     * holds a valid e-mail address.</p>
+     *
+     * @param email The value validation is being performed on.  A <code>null</code>
+     *              value is considered invalid.
+     * @return true if the email address is valid.
+     */
+    public boolean isValid(CharSequence email) {
         if (email == null) {
             return false;
         }
+        return isValidAddress(email, 0, email.length());
+    }
 
-        if (email.endsWith(".")) { // check this first - it's cheap!
+    /**
+     * <p>Checks if part of a character sequence holds a valid e-mail address.</p>
+     *
+     * @param email The characters containing the value validation is being
+     *              performed on.  A <code>null</code> value is considered invalid.
+     * @param offset The index of the first character of the e-mail address.
+     * @param length The number of characters of the e-mail address.
+     * @return true if the email address is valid.
+     */
+    public boolean isValid(CharSequence email, int offset, int length) {
+        if (email == null) {
             return false;
         }
+        return isValidAddress(email, offset, offset + length);
+    }
+
+    /**
+     * <p>Checks an array of e-mail addresses.</p>
+     *
+     * @param emails The values validation is being performed on, <code>null</code>
+     *               entries are considered invalid.
+     * @param results Receives whether each e-mail address is valid.
+     * @return the number of valid e-mail addresses.
+     */
+    public int isValidAll(CharSequence[] emails, boolean[] results) {
+        return isValidAll(emails, results, null);
+    }
+
+    /**
+     * <p>Checks an array of e-mail addresses, splitting large arrays into
+     * chunks which are validated by the executor.</p>
+     *
+     * @param emails The values validation is being performed on, <code>null</code>
+     *               entries are considered invalid.
+     * @param results Receives whether each e-mail address is valid.
+     * @param executor Validates the chunks, or <code>null</code> to validate
+     *                 all e-mail addresses in the calling thread.
+     * @return the number of valid e-mail addresses.
+     */
+    public int isValidAll(CharSequence[] emails, boolean[] results, Executor executor) {
+        return new EmailBatch().run(emails, results, executor);
+    }
+
+    /**
+     * <p>Checks an array of e-mail addresses.</p>
+     *
+     * @param emails The values validation is being performed on, <code>null</code>
+     *               entries are considered invalid.
+     * @return the indexes of the valid e-mail addresses.
+     */
+    public BitSet isValidAll(CharSequence[] emails) {
+        return new EmailBatch().run(emails);
+    }
 
-        // Check the whole email address structure
-        Matcher emailMatcher = EMAIL_PATTERN.matcher(email);
-        if (!emailMatcher.matches()) {
+    /**
+     * Checks an e-mail address, splitting it where the expression
+     * <code>^\s*?(.+)@(.+?)\s*$</code> would: at the last <code>@</code>
+     * on the first line which leaves a domain, with surrounding
+     * whitespace and line terminators trimmed.
+     */
+    private boolean isValidAddress(CharSequence email, int start, int end) {
+        if (start == end) {
             return false;
         }
 
-        if (!isValidUser(emailMatcher.group(1))) {
+        if (email.charAt(end - 1) == '.') { // check this first - it's cheap!
             return false;
         }
 
-        if (!isValidDomain(emailMatcher.group(2))) {
+        // leading whitespace, the user starts after the last line terminator in it
+        int userStart = start;
+        int i = start;
+        for (; i < end && isWhitespace(email.charAt(i)); i++) {
+            if (isLineTerminator(email.charAt(i))) {
+                userStart = i + 1;
+            }
+        }
+
+        // the address must end the line, only whitespace may follow
+        int lineEnd = i;
+        for (; lineEnd < end; lineEnd++) {
+            char c = email.charAt(lineEnd);
+            if (c == '\n' || c == '\r') {
+                break;
+            }
+            if (isLineTerminator(c)) {
+                return false;
+            }
+        }
+        for (i = lineEnd; i < end; i++) {
+            if (!isWhitespace(email.charAt(i))) {
+                return false;
+            }
+        }
+
+        // the last '@' which is followed by at least one character
+        int at = lineEnd - 2;
+        while (at > userStart && email.charAt(at) != '@') {
+            at--;
+        }
+        if (at <= userStart) {
             return false;
         }
 
-        return true;
+        int domainEnd = lineEnd;
+        while (domainEnd > at + 2 && isWhitespace(email.charAt(domainEnd - 1))) {
+            domainEnd--;
+        }
+
+        if (getClass() != EmailValidator.class) {
+            // the hooks may have been overridden
+            return isValidUser(email.subSequence(userStart, at).toString())
+                    && isValidDomain(email.subSequence(at + 1, domainEnd).toString());
+        }
+        return isValidUser(email, userStart, at)
+                && isValidDomain(email, at + 1, domainEnd);
+    }
+
+    private class EmailBatch extends Batch {
+        int validate(CharSequence[] values, int from, int to, boolean[] results) {
+            int valid = 0;
+            for (int i = from; i < to; i++) {
+                CharSequence value = values[i];
+                results[i] = value != null && isValidAddress(value, 0, value.length());
+                if (results[i]) {
+                    valid++;
+                }
+            }
+            return valid;
+        }
     }
 
     /**
@@ -137,19 +263,21 @@ public class EmailValidator implements Serializable {
      * @return true if the email address's domain is valid.
      */
     protected boolean isValidDomain(String domain) {
-        // see if domain is an IP address in brackets
-        Matcher ipDomainMatcher = IP_DOMAIN_PATTERN.matcher(domain);
+        return isValidDomain(domain, 0, domain.length());
+    }
 
-        if (ipDomainMatcher.matches()) {
+    private boolean isValidDomain(CharSequence domain, int start, int end) {
+        // see if domain is an IP address in brackets
+        if (end - start >= 2 && domain.charAt(start) == '[' && domain.charAt(end - 1) == ']') {
             InetAddressValidator inetAddressValidator =
                     InetAddressValidator.getInstance();
-            return inetAddressValidator.isValid(ipDomainMatcher.group(1));
+            return inetAddressValidator.isValid(domain, start + 1, end - start - 2);
         }
         // Domain is symbolic name
         DomainValidator domainValidator =
                 DomainValidator.getInstance(allowLocal);
-        return domainValidator.isValid(domain) ||
-                domainValidator.isValidTld(domain);
+        return domainValidator.isValid(domain, start, end - start) ||
+                domainValidator.isValidTld(domain, start, end);
     }
 
     /**
@@ -159,7 +287,67 @@ public class EmailValidator implements Serializable {
      * @return true if the user name is valid.
      */
     protected boolean isValidUser(String user) {
-        return USER_PATTERN.matcher(user).matches();
+        return isValidUser(user, 0, user.length());
+    }
+
+    /**
+     * Scans optional leading whitespace and then dot separated words,
+     * each either a run of unquoted characters or a quoted string.
+     */
+    private static boolean isValidUser(CharSequence user, int start, int end) {
+        int i = start;
+        while (i < end && isWhitespace(user.charAt(i))) {
+            i++;
+        }
+        while (i < end) {
+            if (user.charAt(i) == '"') {
+                i++;
+                while (i < end && user.charAt(i) != '"') {
+                    i++;
+                }
+                if (i == end) {
+                    return false; // unterminated quoted string
+                }
+                i++;
+            } else {
+                int wordStart = i;
+                while (i < end && isUnquoted(user.charAt(i))) {
+                    i++;
+                }
+                if (i == wordStart) {
+                    return false;
+                }
+            }
+            if (i == end) {
+                return true;
+            }
+            if (user.charAt(i) != '.') {
+                return false;
+            }
+            i++;
+        }
+        return false; // empty, or ends with a dot
+    }
+
+    private static boolean isUnquoted(char c) {
+        if (c == '\'') {
+            return true;
+        }
+        return c > ' ' && c != 0x7F && SPECIAL_CHARS.indexOf(c) < 0;
+    }
+
+    /**
+     * Whitespace as matched by <code>\s</code>.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    /**
+     * Line terminators, which <code>.</code> does not match.
+     */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
     }
 
 }
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.text.Format;
+import java.text.ParsePosition;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of <code>Format</code>s, which are expensive to create and not
+ * thread-safe.
+ * <p>
+ * Each format is created once as a prototype, kept in a bounded cache
+ * shared by all threads, and cloned for each thread using it. The clones
+ * are kept in a small cache per thread, so a thread parsing repeatedly
+ * with the same format reuses it without locking.
+ * </p>
+ *
+ * @version $Revision$
+ */
+final class FormatCache {
+
+    private static final int MAX_PROTOTYPES = 64;
+
+    private static final int MAX_THREAD_FORMATS = 16;
+
+    private static final ConcurrentLruCache PROTOTYPES = new ConcurrentLruCache(MAX_PROTOTYPES);
+
+    /** The lookups which found a clone of the thread */
+    private static final AtomicLong THREAD_HITS = new AtomicLong();
+
+    private static final ThreadLocal THREAD_CACHE = new ThreadLocal() {
+        protected Object initialValue() {
+            return new ThreadCache();
+        }
+    };
+
+    private FormatCache() {
+    }
+
+    /**
+     * Returns the format of the current thread for a key.
+     *
+     * @param key Identifies the format, not null
+     * @return the format, only to be used by the current thread, or
+     * <code>null</code> if the format has to be created and {@link #put}
+     */
+    static Format get(Object key) {
+        ThreadCache cache = (ThreadCache) THREAD_CACHE.get();
+        Format format = (Format) cache.get(key);
+        if (format != null) {
+            THREAD_HITS.incrementAndGet();
+            return format;
+        }
+        Format prototype = (Format) PROTOTYPES.get(key);
+        if (prototype == null) {
+            return null;
+        }
+        format = (Format) prototype.clone();
+        cache.put(key, format);
+        return format;
+    }
+
+    /**
+     * Caches a new format.
+     *
+     * @param key Identifies the format, not null
+     * @param prototype The format, which must not be used afterwards
+     * @return the format of the current thread
+     */
+    static Format put(Object key, Format prototype) {
+        PROTOTYPES.put(key, prototype);
+        Format format = (Format) prototype.clone();
+        ((ThreadCache) THREAD_CACHE.get()).put(key, format);
+        return format;
+    }
+
+    /**
+     * Returns the <code>ParsePosition</code> of the current thread,
+     * reset to the start.
+     *
+     * @return the position, only to be used by the current thread
+     */
+    static ParsePosition parsePosition() {
+        ParsePosition pos = ((ThreadCache) THREAD_CACHE.get()).pos;
+        pos.setIndex(0);
+        pos.setErrorIndex(-1);
+        return pos;
+    }
+
+    /**
+     * Returns the number of lookups which found a format.
+     *
+     * @return the number of hits
+     */
+    static long hitCount() {
+        return THREAD_HITS.get() + PROTOTYPES.hitCount();
+    }
+
+    /**
+     * Returns the number of lookups which found no format, so that
+     * it had to be created.
+     *
+     * @return the number of misses
+     */
+    static long missCount() {
+        return PROTOTYPES.missCount();
+    }
+
+    private static final class ThreadCache extends LinkedHashMap {
+
+        private static final long serialVersionUID = 4417939584632213428L;
+
+        final ParsePosition pos = new ParsePosition(0);
+
+        ThreadCache() {
+            super(16, 0.75f, true);
+        }
+
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            return size() > MAX_THREAD_FORMATS;
+        }
+    }
+}
@@ -148,6 +148,18 @@ public class ISBNValidator implements Serializable {
         return (isValidISBN13(code) || isValidISBN10(code));
     }
 
+    /**
+     * Check a character sequence, such as an <code>Editable</code>,
+     * holds either a valid ISBN-10 or ISBN-13 code.
+     *
+     * @param code The code to validate.
+     * @return <code>true</code> if a valid ISBN-10 or
+     * ISBN-13 code, otherwise <code>false</code>.
+     */
+    public boolean isValid(CharSequence code) {
+        return (isbn13Validator.isValid(code) || isbn10Validator.isValid(code));
+    }
+
     /**
      * Check the code is a valid ISBN-10 code.
      *
@@ -18,9 +18,8 @@
 package commons.validator.routines;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.BitSet;
+import java.util.concurrent.Executor;
 
 /**
  * <p><b>InetAddress</b> validation and conversion routines (<code>java.net.InetAddress</code>).</p>
@@ -28,6 +27,14 @@ import java.util.List;
  * <p>This class provides methods to validate a candidate IP address.
  *
  * <p>
+ * Addresses are checked by a single pass over their characters, which neither
+ * creates objects nor throws exceptions for invalid input. The
+ * {@link #parseInet4Address(CharSequence)} and
+ * {@link #parseInet6Address(CharSequence, byte[])} methods return the parsed
+ * address as well, so callers need not parse it again.
+ * </p>
+ *
+ * <p>
  * This class is a Singleton; you can retrieve the instance via the {@link #getInstance()} method.
  * </p>
  *
@@ -38,17 +45,20 @@ public class InetAddressValidator implements Serializable {
 
     private static final long serialVersionUID = -919201640201914789L;
 
-    private static final String IPV4_REGEX =
-            "^(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})$";
+    private static final int IPV4_MAX_OCTET_VALUE = 255;
+
+    private static final int IPV6_MAX_HEX_GROUPS = 8;
+
+    private static final int IPV6_MAX_HEX_DIGITS_PER_GROUP = 4;
+
+    /** The number of bytes of an IPv6 address. */
+    private static final int IPV6_ADDRESS_LENGTH = 16;
 
     /**
      * Singleton instance of this class.
      */
     private static final InetAddressValidator VALIDATOR = new InetAddressValidator();
 
-    /** IPv4 RegexValidator */
-    private final RegexValidator ipv4Validator = new RegexValidator(IPV4_REGEX);
-
     /**
      * Returns the singleton instance of this validator.
      * @return the singleton instance of this validator
@@ -67,44 +77,85 @@ public class InetAddressValidator implements Serializable {
     }
 
     /**
-     * Validates an IPv4 address. Returns true if valid.
-     * @param inet4Address the IPv4 address to validate
-     * @return true if the argument contains a valid IPv4 address
+     * Checks if the specified character sequence is a valid IP address.
+     * @param inetAddress the characters to validate
+     * @return true if the characters validate as an IP address
      */
-    public boolean isValidInet4Address(String inet4Address) {
-        // verify that address conforms to generic IPv4 format
-        String[] groups = ipv4Validator.match(inet4Address);
-
-        if (groups == null) {
+    public boolean isValid(CharSequence inetAddress) {
+        if (inetAddress == null) {
             return false;
         }
+        return isValid(inetAddress, 0, inetAddress.length());
+    }
 
-        // verify that address subgroups are legal
-        for (int i = 0; i <= 3; i++) {
-            String ipSegment = groups[i];
-            if (ipSegment == null || ipSegment.length() == 0) {
-                return false;
-            }
+    /**
+     * Checks if part of the specified character sequence is a valid IP address.
+     * @param inetAddress the characters containing the IP address
+     * @param offset the index of the first character of the IP address
+     * @param length the number of characters of the IP address
+     * @return true if the characters validate as an IP address
+     */
+    public boolean isValid(CharSequence inetAddress, int offset, int length) {
+        if (inetAddress == null) {
+            return false;
+        }
+        int end = offset + length;
+        return scanInet4(inetAddress, offset, end) >= 0
+                || scanInet6(inetAddress, offset, end, null);
+    }
 
-            int iIpSegment = 0;
+    /**
+     * Checks an array of IP addresses.
+     * @param inetAddresses the values to check, <code>null</code> entries are invalid
+     * @param results receives whether each value is a valid IP address
+     * @return the number of valid IP addresses
+     */
+    public int isValidAll(CharSequence[] inetAddresses, boolean[] results) {
+        return isValidAll(inetAddresses, results, null);
+    }
 
-            try {
-                iIpSegment = Integer.parseInt(ipSegment);
-            } catch(NumberFormatException e) {
-                return false;
-            }
+    /**
+     * Checks an array of IP addresses, splitting large arrays into chunks
+     * which are checked by the executor.
+     * @param inetAddresses the values to check, <code>null</code> entries are invalid
+     * @param results receives whether each value is a valid IP address
+     * @param executor checks the chunks, or <code>null</code> to check all
+     * values in the calling thread
+     * @return the number of valid IP addresses
+     */
+    public int isValidAll(CharSequence[] inetAddresses, boolean[] results, Executor executor) {
+        return new InetAddressBatch().run(inetAddresses, results, executor);
+    }
 
-            if (iIpSegment > 255) {
-                return false;
-            }
+    /**
+     * Checks an array of IP addresses.
+     * @param inetAddresses the values to check, <code>null</code> entries are invalid
+     * @return the indexes of the valid IP addresses
+     */
+    public BitSet isValidAll(CharSequence[] inetAddresses) {
+        return new InetAddressBatch().run(inetAddresses);
+    }
 
-            if (ipSegment.length() > 1 && ipSegment.startsWith("0")) {
-                return false;
+    private class InetAddressBatch extends Batch {
+        int validate(CharSequence[] values, int from, int to, boolean[] results) {
+            int valid = 0;
+            for (int i = from; i < to; i++) {
+                results[i] = isValid(values[i]);
+                if (results[i]) {
+                    valid++;
+                }
             }
-
+            return valid;
         }
+    }
 
-        return true;
+    /**
+     * Validates an IPv4 address. Returns true if valid.
+     * @param inet4Address the IPv4 address to validate
+     * @return true if the argument contains a valid IPv4 address
+     */
+    public boolean isValidInet4Address(String inet4Address) {
+        return parseInet4Address(inet4Address) >= 0;
     }
 
     /**
@@ -115,71 +166,191 @@ public class InetAddressValidator implements Serializable {
      * @since 1.4.1
      */
     public boolean isValidInet6Address(String inet6Address) {
-        boolean containsCompressedZeroes = inet6Address.indexOf("::") > -1; // contains is Java 1.5
-        if (containsCompressedZeroes && (inet6Address.indexOf("::") != inet6Address.lastIndexOf("::"))) {
+        if (inet6Address == null) {
             return false;
         }
-        if ((inet6Address.startsWith(":") && !inet6Address.startsWith("::"))
-                || (inet6Address.endsWith(":") && !inet6Address.endsWith("::"))) {
-            return false;
+        return scanInet6(inet6Address, 0, inet6Address.length(), null);
+    }
+
+    /**
+     * Parses an IPv4 address in dotted decimal notation.
+     * <p>
+     * The address is returned in the low 32 bits of the result, so that
+     * <code>(int) result</code> is the address in network byte order as used
+     * by <code>java.net.Inet4Address</code>.
+     * </p>
+     * @param inet4Address the IPv4 address to parse
+     * @return the address as an unsigned 32 bit value or <code>-1</code>
+     * if the argument is not a valid IPv4 address
+     */
+    public long parseInet4Address(CharSequence inet4Address) {
+        if (inet4Address == null) {
+            return -1;
         }
-        Object[] octets = inet6Address.split(":");
-        if (containsCompressedZeroes) {
-            List octetList = new ArrayList(Arrays.asList(octets));
-            if (inet6Address.endsWith("::")) {
-                // String.split() drops ending empty segments
-                octetList.add("");
-            } else if (inet6Address.startsWith("::") && !octetList.isEmpty()) {
-                octetList.remove(0);
-            }
-            octets = octetList.toArray();
+        return scanInet4(inet4Address, 0, inet4Address.length());
+    }
+
+    /**
+     * Parses an IPv6 address, which may use <code>::</code> compression and
+     * end with an embedded IPv4 address.
+     * @param inet6Address the IPv6 address to parse
+     * @param address receives the 16 bytes of the address in network byte
+     * order; its content is undefined if the address is invalid
+     * @return true if the argument contains a valid IPv6 address
+     * @throws IllegalArgumentException if the address array is shorter than 16 bytes
+     */
+    public boolean parseInet6Address(CharSequence inet6Address, byte[] address) {
+        if (address == null || address.length < IPV6_ADDRESS_LENGTH) {
+            throw new IllegalArgumentException("IPv6 address requires " + IPV6_ADDRESS_LENGTH + " bytes");
         }
-        if (octets.length > 8) {
+        if (inet6Address == null) {
             return false;
         }
-        int validOctets = 0;
-        int emptyOctets = 0;
-        for (int index = 0; index < octets.length; index++) {
-            String octet = (String) octets[index];
-            if (octet.length() == 0) {
-                emptyOctets++;
-                if (emptyOctets > 1) {
-                    return false;
+        return scanInet6(inet6Address, 0, inet6Address.length(), address);
+    }
+
+    /**
+     * Scans four dot separated decimal octets of 1 to 3 digits, without
+     * leading zeroes.
+     */
+    private static long scanInet4(CharSequence value, int start, int end) {
+        long address = 0;
+        int i = start;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (i == end || value.charAt(i) != '.') {
+                    return -1;
                 }
-            } else {
-                emptyOctets = 0;
-                if (octet.indexOf(".") > -1) { // contains is Java 1.5+
-                    if (!inet6Address.endsWith(octet)) {
-                        return false;
-                    }
-                    if (index > octets.length - 1 || index > 6) {
-                        // IPV4 occupies last two octets
-                        return false;
-                    }
-                    if (!isValidInet4Address(octet)) {
-                        return false;
-                    }
-                    validOctets += 2;
-                    continue;
+                i++;
+            }
+            int octetStart = i;
+            int octetValue = 0;
+            while (i < end && i - octetStart < 3) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                octetValue = octetValue * 10 + (c - '0');
+                i++;
+            }
+            int digits = i - octetStart;
+            if (digits == 0 || octetValue > IPV4_MAX_OCTET_VALUE
+                    || (digits > 1 && value.charAt(octetStart) == '0')) {
+                return -1;
+            }
+            address = (address << 8) | octetValue;
+        }
+        return i == end ? address : -1;
+    }
+
+    /**
+     * Scans up to eight colon separated groups of 1 to 4 hex digits, at most
+     * one <code>::</code> standing for one or more groups of zeroes, and an
+     * optional embedded IPv4 address taking the place of the last two groups.
+     * The address is written to <code>out</code> unless that is null.
+     */
+    private static boolean scanInet6(CharSequence value, int start, int end, byte[] out) {
+        int groups = 0;
+        int compressedAt = -1;
+        int i = start;
+        if (i + 1 < end && value.charAt(i) == ':') {
+            if (value.charAt(i + 1) != ':') {
+                return false;
+            }
+            compressedAt = 0;
+            i += 2;
+        }
+        while (i < end) {
+            int groupStart = i;
+            int groupValue = 0;
+            while (i < end) {
+                int digit = hexDigit(value.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                if (i - groupStart == IPV6_MAX_HEX_DIGITS_PER_GROUP) {
+                    return false;
                 }
-                if (octet.length() > 4) {
+                groupValue = (groupValue << 4) | digit;
+                i++;
+            }
+            if (i == groupStart) {
+                return false;
+            }
+            if (i < end && value.charAt(i) == '.') {
+                // the IPv4 address takes the last two groups
+                if (groups + 2 > IPV6_MAX_HEX_GROUPS) {
                     return false;
                 }
-                int octetInt = 0;
-                try {
-                    octetInt = Integer.valueOf(octet, 16).intValue();
-                } catch (NumberFormatException e) {
+                long inet4 = scanInet4(value, groupStart, end);
+                if (inet4 < 0) {
                     return false;
                 }
-                if (octetInt < 0 || octetInt > 0xffff) {
+                if (out != null) {
+                    for (int b = 0; b < 4; b++) {
+                        out[groups * 2 + b] = (byte) (inet4 >>> (24 - b * 8));
+                    }
+                }
+                groups += 2;
+                break;
+            }
+            if (groups == IPV6_MAX_HEX_GROUPS) {
+                return false;
+            }
+            if (out != null) {
+                out[groups * 2] = (byte) (groupValue >>> 8);
+                out[groups * 2 + 1] = (byte) groupValue;
+            }
+            groups++;
+            if (i == end) {
+                break;
+            }
+            if (value.charAt(i) != ':') {
+                return false;
+            }
+            i++;
+            if (i < end && value.charAt(i) == ':') {
+                if (compressedAt >= 0) {
                     return false;
                 }
+                compressedAt = groups;
+                i++;
+            } else if (i == end) {
+                // a single trailing colon
+                return false;
             }
-            validOctets++;
         }
-        if (validOctets < 8 && !containsCompressedZeroes) {
-            return false;
+        if (compressedAt < 0) {
+            if (groups != IPV6_MAX_HEX_GROUPS) {
+                return false;
+            }
+        } else {
+            if (groups == IPV6_MAX_HEX_GROUPS) {
+                // "::" must stand for at least one group
+                return false;
+            }
+            if (out != null) {
+                // move the groups after "::" to the end and zero the gap
+                int tail = (groups - compressedAt) * 2;
+                System.arraycopy(out, compressedAt * 2, out, IPV6_ADDRESS_LENGTH - tail, tail);
+                for (int b = compressedAt * 2; b < IPV6_ADDRESS_LENGTH - tail; b++) {
+                    out[b] = 0;
+                }
+            }
         }
         return true;
     }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
 }
@@ -117,9 +117,52 @@ public class IntegerValidator extends AbstractNumberValidator {
      *  if invalid.
      */
     public Integer validate(String value) {
+        if (value != null && isPlainFormat()) {
+            long plain = parsePlainInteger(value);
+            if (plain != NOT_PLAIN) {
+                return isIntValue(plain) ? Integer.valueOf((int) plain) : null;
+            }
+        }
         return (Integer)parse(value, (String)null, (Locale)null);
     }
 
+    /**
+     * <p>Validate/convert an <code>int</code> using the default
+     *    <code>Locale</code>, without boxing it.</p>
+     *
+     * <p>Plain integers such as <code>-123</code> are parsed directly
+     *    when the default <code>Locale</code> formats them that way,
+     *    other values are parsed by the format.</p>
+     *
+     * @param value The value validation is being performed on.
+     * @param defaultOnFail The value to return if the value is invalid.
+     * @return The parsed <code>int</code> if valid or <code>defaultOnFail</code>
+     *  if invalid.
+     */
+    public int validateInt(CharSequence value, int defaultOnFail) {
+        if (value == null) {
+            return defaultOnFail;
+        }
+        if (isPlainFormat()) {
+            long plain = parsePlainInteger(value);
+            if (plain != NOT_PLAIN) {
+                return isIntValue(plain) ? (int) plain : defaultOnFail;
+            }
+        }
+        Integer result = (Integer)parse(value.toString(), (String)null, (Locale)null);
+        return result == null ? defaultOnFail : result.intValue();
+    }
+
+    /**
+     * <p>Validate using the default <code>Locale</code>.
+     *
+     * @param value The value validation is being performed on.
+     * @return <code>true</code> if the value is valid.
+     */
+    public boolean isValid(String value) {
+        return validate(value) != null;
+    }
+
     /**
      * <p>Validate/convert an <code>Integer</code> using the
      *    specified <i>pattern</i>.
@@ -251,4 +294,16 @@ public class IntegerValidator extends AbstractNumberValidator {
         }
         return new Integer((int)longValue);
     }
+
+    /**
+     * Plain integers are only parsed directly if this class's parsing
+     * is not overridden.
+     */
+    private boolean isPlainFormat() {
+        return getClass() == IntegerValidator.class && isPlainIntegerFormat();
+    }
+
+    private static boolean isIntValue(long value) {
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
 }
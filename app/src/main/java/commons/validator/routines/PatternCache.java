@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.regex.Pattern;
+
+/**
+ * Interns compiled regular expressions.
+ * <p>
+ * {@link Pattern}s are immutable and safe to share between threads, so
+ * every validator, rule and adapter compiling the same expression with the
+ * same flags can use one instance instead of compiling it again. The most
+ * recently used patterns are kept.
+ * </p>
+ * <p>
+ * The number of hits and misses are counted to monitor how well the
+ * cache is sized.
+ * </p>
+ *
+ * @version $Revision$
+ */
+public final class PatternCache {
+
+    /**
+     * Maximum number of compiled patterns kept.
+     */
+    private static final int MAX_PATTERNS = 256;
+
+    /**
+     * Compiled patterns by expression and flags.
+     */
+    private static final ConcurrentLruCache PATTERNS = new ConcurrentLruCache(MAX_PATTERNS);
+
+    /**
+     * Returns the compiled form of a regular expression, compiling it only
+     * if it is not cached.
+     *
+     * @param regex The regular expression
+     * @return the compiled pattern
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public static Pattern compile(String regex) {
+        return compile(regex, 0);
+    }
+
+    /**
+     * Returns the compiled form of a regular expression with the given
+     * flags, compiling it only if it is not cached.
+     *
+     * @param regex The regular expression
+     * @param flags The match flags, see {@link Pattern#compile(String, int)}
+     * @return the compiled pattern
+     * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+     */
+    public static Pattern compile(String regex, int flags) {
+        if (regex == null) {
+            throw new IllegalArgumentException("Regular expression is missing");
+        }
+        PatternKey key = new PatternKey(regex, flags);
+        Pattern pattern = (Pattern) PATTERNS.get(key);
+        if (pattern == null) {
+            // racing threads may both compile, which is harmless
+            pattern = Pattern.compile(regex, flags);
+            PATTERNS.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Removes all cached patterns. The hit and miss counts are retained.
+     */
+    public static void clear() {
+        PATTERNS.clear();
+    }
+
+    /**
+     * Returns the number of cached patterns.
+     *
+     * @return the number of patterns
+     */
+    public static int size() {
+        return PATTERNS.size();
+    }
+
+    /**
+     * Returns the number of times a pattern was reused instead of
+     * being compiled.
+     *
+     * @return the number of hits
+     */
+    public static long getHitCount() {
+        return PATTERNS.hitCount();
+    }
+
+    /**
+     * Returns the number of times a pattern had to be compiled as it
+     * was not cached.
+     *
+     * @return the number of misses
+     */
+    public static long getMissCount() {
+        return PATTERNS.missCount();
+    }
+
+    /**
+     * Returns the share of lookups which reused a pattern.
+     *
+     * @return the hit rate between 0 and 1, or 0 if nothing was looked up
+     */
+    public static double getHitRate() {
+        long hits = getHitCount();
+        long lookups = hits + getMissCount();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Cache key of an expression and its flags.
+     */
+    private static final class PatternKey {
+
+        private final String regex;
+        private final int flags;
+
+        PatternKey(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PatternKey)) {
+                return false;
+            }
+            PatternKey other = (PatternKey) obj;
+            return flags == other.flags && regex.equals(other.regex);
+        }
+
+        public int hashCode() {
+            return regex.hashCode() * 31 + flags;
+        }
+    }
+
+    private PatternCache() {
+    }
+}
@@ -55,11 +55,33 @@ import java.util.regex.Pattern;
  *       <li><code>String[] result = validator.match(value);</code></li>
  *     </ul>
  *   </li>
+ *   <li>Validate returning the offsets of the matched groups:</li>
+ *   <li>
+ *     <ul>
+ *       <li><code>int count = validator.match(value, offsets);</code></li>
+ *     </ul>
+ *   </li>
  * </ul>
  *
  * <p>
  * Cached instances pre-compile and re-use {@link Pattern}(s) - which according
  * to the {@link Pattern} API are safe to use in a multi-threaded environment.
+ * The {@link Matcher}(s) are not, so each thread keeps its own and
+ * <code>reset()</code>s them for every value instead of creating new ones.
+ * Validators of the same expressions share their compiled patterns through
+ * the {@link PatternCache}.
+ * </p>
+ *
+ * <p>
+ * Expressions which backtrack heavily can take very long to reject some
+ * values. When the expressions or values are not trusted use
+ * {@link #check(CharSequence, long)}, which gives up after a number of
+ * steps and records the execution times of each expression in the
+ * {@link #getHistograms() histograms}. Steps can only be counted by
+ * engines which read the value through its {@link CharSequence} methods,
+ * which is not the case of Android's native (ICU) engine: it copies the
+ * value before matching. There, see {@link #isStepCounting()}, the budget
+ * cannot be enforced and the values are matched without it.
  * </p>
  *
  * @version $Revision$
@@ -69,8 +91,37 @@ public class RegexValidator implements Serializable {
 
     private static final long serialVersionUID = -8832409930574867162L;
 
+    /**
+     * {@link #check(CharSequence, long)} result when the value matches
+     * one of the regular expressions.
+     */
+    public static final int MATCH = 1;
+
+    /**
+     * {@link #check(CharSequence, long)} result when the value matches
+     * none of the regular expressions.
+     */
+    public static final int NO_MATCH = 0;
+
+    /**
+     * {@link #check(CharSequence, long)} result when the step budget ran
+     * out before the value could be matched.
+     */
+    public static final int BUDGET_EXHAUSTED = -1;
+
     private final Pattern[] patterns;
 
+    /**
+     * The {@link Matcher}s of each thread, created on first use.
+     * Racing threads may create more than one, which is harmless.
+     */
+    private transient ThreadLocal matchers;
+
+    /**
+     * The histograms of the patterns, created on first use.
+     */
+    private transient volatile TimingHistogram[] histograms;
+
     /**
      * Construct a <i>case sensitive</i> validator for a single
      * regular expression.
@@ -125,7 +176,7 @@ public class RegexValidator implements Serializable {
             if (regexs[i] == null || regexs[i].length() == 0) {
                 throw new IllegalArgumentException("Regular expression[" + i + "] is missing");
             }
-            patterns[i] =  Pattern.compile(regexs[i], flags);
+            patterns[i] = PatternCache.compile(regexs[i], flags);
         }
     }
 
@@ -137,17 +188,155 @@ public class RegexValidator implements Serializable {
      * otherwise <code>false</code>.
      */
     public boolean isValid(String value) {
+        return isValid((CharSequence) value);
+    }
+
+    /**
+     * Validate a character sequence, such as an <code>Editable</code>,
+     * against the set of regular expressions.
+     *
+     * @param value The value to validate.
+     * @return <code>true</code> if the value is valid
+     * otherwise <code>false</code>.
+     */
+    public boolean isValid(CharSequence value) {
         if (value == null) {
             return false;
         }
+        return isValid(value, 0, value.length());
+    }
+
+    /**
+     * Validate part of a character sequence against the set of regular
+     * expressions, as if it were a separate value.
+     *
+     * @param value The characters containing the value to validate.
+     * @param offset The index of the first character of the value.
+     * @param length The number of characters of the value.
+     * @return <code>true</code> if the value is valid
+     * otherwise <code>false</code>.
+     */
+    public boolean isValid(CharSequence value, int offset, int length) {
+        if (value == null) {
+            return false;
+        }
+        Matcher[] cached = matchers();
         for (int i = 0; i < patterns.length; i++) {
-            if (patterns[i].matcher(value).matches()) {
-                return true;
+            Matcher matcher = matcher(cached, i, value, offset, length);
+            try {
+                if (matcher.matches()) {
+                    return true;
+                }
+            } finally {
+                release(matcher);
             }
         }
         return false;
     }
 
+    /**
+     * Validate a value against the set of regular expressions, giving up
+     * after a number of steps. Each step reads a character of the value, so
+     * the budget bounds the time spent on expressions which backtrack
+     * however long the value is.
+     * <p>
+     * When the regular expression engine does not let the steps be
+     * counted (see {@link #isStepCounting()}) the budget cannot be enforced,
+     * and the value is matched as by {@link #isValid(CharSequence)}.
+     * </p>
+     *
+     * @param value The value to validate.
+     * @param maxSteps The number of characters the expressions may read
+     * in total.
+     * @return {@link #MATCH} if the value is valid, {@link #NO_MATCH} if it
+     * is not or {@link #BUDGET_EXHAUSTED} if the budget ran out first.
+     */
+    public int check(CharSequence value, long maxSteps) {
+        if (value == null) {
+            return NO_MATCH;
+        }
+        return check(value, 0, value.length(), maxSteps);
+    }
+
+    /**
+     * Validate part of a character sequence against the set of regular
+     * expressions, giving up after a number of steps.
+     *
+     * @param value The characters containing the value to validate.
+     * @param offset The index of the first character of the value.
+     * @param length The number of characters of the value.
+     * @param maxSteps The number of characters the expressions may read
+     * in total.
+     * @return {@link #MATCH} if the value is valid, {@link #NO_MATCH} if it
+     * is not or {@link #BUDGET_EXHAUSTED} if the budget ran out first.
+     * @see #check(CharSequence, long)
+     */
+    public int check(CharSequence value, int offset, int length, long maxSteps) {
+        return check(value, offset, length, maxSteps, StepLimitedCharSequence.COUNTED);
+    }
+
+    /**
+     * Tells whether {@link #check(CharSequence, long)} counts the steps
+     * of the regular expression engine of this platform. When it does not,
+     * as on Android, the budget cannot be enforced and is ignored.
+     *
+     * @return <code>true</code> if the steps are counted
+     */
+    public static boolean isStepCounting() {
+        return StepLimitedCharSequence.COUNTED;
+    }
+
+    /**
+     * Validate part of a character sequence within a step budget, or
+     * without it when the steps cannot be counted.
+     */
+    int check(CharSequence value, int offset, int length, long maxSteps, boolean counted) {
+        if (value == null) {
+            return NO_MATCH;
+        }
+        CharSequence limited = counted ? new StepLimitedCharSequence(value, maxSteps) : value;
+        TimingHistogram[] timings = histograms();
+        Matcher[] cached = matchers();
+        for (int i = 0; i < patterns.length; i++) {
+            Matcher matcher = matcher(cached, i, limited, offset, length);
+            long start = System.nanoTime();
+            boolean matches;
+            try {
+                matches = matcher.matches();
+            } catch (StepLimitedCharSequence.BudgetExhaustedException e) {
+                return BUDGET_EXHAUSTED;
+            } finally {
+                timings[i].record(System.nanoTime() - start);
+                release(matcher);
+            }
+            if (matches) {
+                return MATCH;
+            }
+        }
+        return NO_MATCH;
+    }
+
+    /**
+     * Returns the execution time histograms of the regular expressions
+     * of this validator run by {@link #check(CharSequence, long)} so far.
+     * The histograms belong to the validator, so they are discarded with it.
+     *
+     * @return the histograms in the order of the regular expressions
+     */
+    public TimingHistogram[] getHistograms() {
+        return (TimingHistogram[]) histograms().clone();
+    }
+
+    /**
+     * Resets the execution time histograms of this validator.
+     */
+    public void clearHistograms() {
+        TimingHistogram[] local = histograms();
+        for (int i = 0; i < local.length; i++) {
+            local[i].clear();
+        }
+    }
+
     /**
      * Validate a value against the set of regular expressions
      * returning the array of matched groups.
@@ -160,20 +349,86 @@ public class RegexValidator implements Serializable {
         if (value == null) {
             return null;
         }
+        Matcher[] cached = matchers();
         for (int i = 0; i < patterns.length; i++) {
-            Matcher matcher = patterns[i].matcher(value);
-            if (matcher.matches()) {
-                int count = matcher.groupCount();
-                String[] groups = new String[count];
-                for (int j = 0; j < count; j++) {
-                    groups[j] = matcher.group(j+1);
+            Matcher matcher = matcher(cached, i, value, 0, value.length());
+            try {
+                if (matcher.matches()) {
+                    int count = matcher.groupCount();
+                    String[] groups = new String[count];
+                    for (int j = 0; j < count; j++) {
+                        groups[j] = matcher.group(j+1);
+                    }
+                    return groups;
                 }
-                return groups;
+            } finally {
+                release(matcher);
             }
         }
         return null;
     }
 
+    /**
+     * Validate a value against the set of regular expressions
+     * returning the offsets of the matched groups.
+     *
+     * @param value The value to validate.
+     * @param offsets Receives the start (inclusive) and end (exclusive)
+     * offset of each matched <i>group</i>, i.e. those of group <code>n</code>
+     * at index <code>2 * (n - 1)</code> and <code>2 * (n - 1) + 1</code>,
+     * or <code>-1</code> for groups which did not match anything
+     * @return the number of groups if valid or <code>-1</code> if invalid
+     * @throws IllegalArgumentException if a matching expression has more
+     * groups than the offsets array can hold
+     */
+    public int match(CharSequence value, int[] offsets) {
+        if (value == null) {
+            return -1;
+        }
+        return match(value, 0, value.length(), offsets);
+    }
+
+    /**
+     * Validate part of a character sequence against the set of regular
+     * expressions returning the offsets of the matched groups.
+     *
+     * @param value The characters containing the value to validate.
+     * @param offset The index of the first character of the value.
+     * @param length The number of characters of the value.
+     * @param offsets Receives the start (inclusive) and end (exclusive)
+     * offset of each matched <i>group</i> within the characters, i.e. those
+     * of group <code>n</code> at index <code>2 * (n - 1)</code> and
+     * <code>2 * (n - 1) + 1</code>, or <code>-1</code> for groups which
+     * did not match anything
+     * @return the number of groups if valid or <code>-1</code> if invalid
+     * @throws IllegalArgumentException if a matching expression has more
+     * groups than the offsets array can hold
+     */
+    public int match(CharSequence value, int offset, int length, int[] offsets) {
+        if (value == null) {
+            return -1;
+        }
+        Matcher[] cached = matchers();
+        for (int i = 0; i < patterns.length; i++) {
+            Matcher matcher = matcher(cached, i, value, offset, length);
+            try {
+                if (matcher.matches()) {
+                    int count = matcher.groupCount();
+                    if (offsets == null || offsets.length < count * 2) {
+                        throw new IllegalArgumentException("Offsets must hold " + (count * 2) + " values");
+                    }
+                    for (int j = 0; j < count; j++) {
+                        offsets[j * 2] = matcher.start(j+1);
+                        offsets[j * 2 + 1] = matcher.end(j+1);
+                    }
+                    return count;
+                }
+            } finally {
+                release(matcher);
+            }
+        }
+        return -1;
+    }
 
     /**
      * Validate a value against the set of regular expressions
@@ -187,26 +442,116 @@ public class RegexValidator implements Serializable {
         if (value == null) {
             return null;
         }
+        return validate(value, 0, value.length());
+    }
+
+    /**
+     * Validate part of a character sequence against the set of regular
+     * expressions returning a String value of the aggregated groups.
+     *
+     * @param value The characters containing the value to validate.
+     * @param offset The index of the first character of the value.
+     * @param length The number of characters of the value.
+     * @return Aggregated String value comprised of the
+     * <i>groups</i> matched if valid or <code>null</code> if invalid
+     */
+    public String validate(CharSequence value, int offset, int length) {
+        if (value == null) {
+            return null;
+        }
+        Matcher[] cached = matchers();
         for (int i = 0; i < patterns.length; i++) {
-            Matcher matcher = patterns[i].matcher(value);
-            if (matcher.matches()) {
-                int count = matcher.groupCount();
-                if (count == 1) {
-                    return matcher.group(1);
-                }
-                StringBuffer buffer = new StringBuffer();
-                for (int j = 0; j < count; j++) {
-                    String component = matcher.group(j+1);
-                    if (component != null) {
-                        buffer.append(component);
+            Matcher matcher = matcher(cached, i, value, offset, length);
+            try {
+                if (matcher.matches()) {
+                    int count = matcher.groupCount();
+                    if (count == 1) {
+                        return matcher.group(1);
+                    }
+                    StringBuilder buffer = new StringBuilder(length);
+                    for (int j = 0; j < count; j++) {
+                        int start = matcher.start(j+1);
+                        if (start >= 0) {
+                            buffer.append(value, start, matcher.end(j+1));
+                        }
                     }
+                    return buffer.toString();
                 }
-                return buffer.toString();
+            } finally {
+                release(matcher);
             }
         }
         return null;
     }
 
+    /**
+     * Returns this thread's matchers, one per pattern.
+     */
+    private Matcher[] matchers() {
+        ThreadLocal local = matchers;
+        if (local == null) {
+            local = new ThreadLocal() {
+                protected Object initialValue() {
+                    return new Matcher[patterns.length];
+                }
+            };
+            matchers = local;
+        }
+        return (Matcher[]) local.get();
+    }
+
+    /**
+     * Returns the cached matcher of a pattern, reset to a region of the value.
+     * Anchors match at the bounds of the region. Callers must
+     * {@link #release} it once done, even when matching fails.
+     */
+    private Matcher matcher(Matcher[] cached, int pattern, CharSequence value, int offset, int length) {
+        Matcher matcher = cached[pattern];
+        if (matcher == null) {
+            matcher = patterns[pattern].matcher(value);
+            cached[pattern] = matcher;
+        } else {
+            matcher.reset(value);
+        }
+        if (offset != 0 || length != value.length()) {
+            try {
+                matcher.region(offset, offset + length);
+            } catch (IndexOutOfBoundsException e) {
+                release(matcher);
+                throw e;
+            }
+        }
+        return matcher;
+    }
+
+    /**
+     * Returns the histograms of the patterns, created together on first use.
+     */
+    private TimingHistogram[] histograms() {
+        TimingHistogram[] local = histograms;
+        if (local == null) {
+            synchronized (this) {
+                local = histograms;
+                if (local == null) {
+                    local = new TimingHistogram[patterns.length];
+                    for (int i = 0; i < local.length; i++) {
+                        local[i] = new TimingHistogram();
+                    }
+                    histograms = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Lets go of the value, which may be large or mutable, once it
+     * has been matched.
+     */
+    private static void release(Matcher matcher) {
+        matcher.reset("");
+    }
+
     /**
      * Provide a String representation of this validator.
      * @return A String representation of this validator
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.regex.Pattern;
+
+/**
+ * A character sequence which throws {@link BudgetExhaustedException}
+ * once more than a given number of characters have been read from it
+ * and the sequences derived from it, which bounds the work a regular
+ * expression can do on it, however much it backtracks.
+ * <p>
+ * This only works with engines which read the characters through the
+ * sequence. Android's ICU backed engine copies it into a String first,
+ * so the budget is never consumed there, see {@link #COUNTED}.
+ * </p>
+ *
+ * @version $Revision$
+ */
+final class StepLimitedCharSequence implements CharSequence {
+
+    /**
+     * Thrown when the budget is exhausted. A single instance without
+     * a stack trace is shared as it is always caught.
+     */
+    static final class BudgetExhaustedException extends RuntimeException {
+
+        private static final long serialVersionUID = -6409816585380616223L;
+
+        static final BudgetExhaustedException INSTANCE = new BudgetExhaustedException();
+
+        private BudgetExhaustedException() {
+            super("Step budget exhausted");
+        }
+
+        public Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Whether the regular expression engine of this platform reads the
+     * characters through the sequence, which is probed once by matching
+     * a single character without any budget.
+     */
+    static final boolean COUNTED = probe();
+
+    private final CharSequence value;
+    private final StepLimitedCharSequence root;
+    private long remaining;
+
+    StepLimitedCharSequence(CharSequence value, long maxSteps) {
+        this.value = value;
+        this.root = this;
+        this.remaining = maxSteps;
+    }
+
+    private StepLimitedCharSequence(CharSequence value, StepLimitedCharSequence root) {
+        this.value = value;
+        this.root = root;
+    }
+
+    public char charAt(int index) {
+        if (--root.remaining < 0) {
+            throw BudgetExhaustedException.INSTANCE;
+        }
+        return value.charAt(index);
+    }
+
+    public int length() {
+        return value.length();
+    }
+
+    public CharSequence subSequence(int start, int end) {
+        return new StepLimitedCharSequence(value.subSequence(start, end), root);
+    }
+
+    public String toString() {
+        return value.toString();
+    }
+
+    private static boolean probe() {
+        try {
+            Pattern.compile("a").matcher(new StepLimitedCharSequence("a", 0)).matches();
+            return false;
+        } catch (BudgetExhaustedException e) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of execution times with power of two buckets, safe to
+ * update from several threads.
+ * <p>
+ * Bucket <code>0</code> counts times of zero nanoseconds and bucket
+ * <code>i</code> counts times from <code>2<sup>i-1</sup></code> up to
+ * (excluding) <code>2<sup>i</sup></code> nanoseconds, the last bucket
+ * counting everything longer.
+ * </p>
+ *
+ * @version $Revision$
+ * @see RegexValidator#getHistograms()
+ */
+public final class TimingHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    TimingHistogram() {
+    }
+
+    /**
+     * Records an execution time.
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0; // the clock is not guaranteed to be monotonic everywhere
+        }
+        int bucket = 64 - Long.numberOfLeadingZeros(nanos);
+        counts.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Returns the number of buckets.
+     * @return the number of buckets
+     */
+    public int getBucketCount() {
+        return BUCKETS;
+    }
+
+    /**
+     * Returns the number of times recorded in a bucket.
+     * @param bucket the bucket, from <code>0</code> to
+     * <code>getBucketCount() - 1</code>
+     * @return the number of times in the bucket
+     */
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * Returns the time below which all times of a bucket are.
+     * @param bucket the bucket, from <code>0</code> to
+     * <code>getBucketCount() - 1</code>
+     * @return the exclusive upper bound of the bucket in nanoseconds,
+     * or <code>Long.MAX_VALUE</code> for the last bucket
+     */
+    public long getUpperBoundNanos(int bucket) {
+        if (bucket == BUCKETS - 1) {
+            return Long.MAX_VALUE;
+        }
+        return 1L << bucket;
+    }
+
+    /**
+     * Returns the number of times recorded.
+     * @return the number of times recorded
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the times recorded.
+     * @return the total time in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * Returns the longest time recorded.
+     * @return the maximum time in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns an upper bound of the time within which a fraction of the
+     * executions completed, e.g. <code>0.99</code> for the 99th percentile.
+     * @param fraction the fraction of executions, from 0 to 1
+     * @return the upper bound of the bucket holding the percentile in
+     * nanoseconds, at most the maximum time, or <code>0</code> if no
+     * times have been recorded
+     */
+    public long getPercentileNanos(double fraction) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank && seen > 0) {
+                return Math.min(getUpperBoundNanos(i), getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * Resets all counts.
+     */
+    void clear() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    /**
+     * Provide a String representation of this histogram.
+     * @return A String representation of this histogram
+     */
+    public String toString() {
+        return "TimingHistogram{count=" + getCount()
+                + ",totalNanos=" + getTotalNanos()
+                + ",p50=" + getPercentileNanos(0.5)
+                + ",p99=" + getPercentileNanos(0.99)
+                + ",maxNanos=" + getMaxNanos() + "}";
+    }
+}
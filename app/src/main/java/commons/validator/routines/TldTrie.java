@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Immutable, packed character trie of top-level domains.
+ * <p>
+ * The nodes are numbered breadth first, so the children of a node are
+ * contiguous and sorted by their character: the children of node
+ * <code>n</code> are the nodes <code>firstChild[n]</code> (inclusive) to
+ * <code>firstChild[n + 1]</code> (exclusive). Each node records the
+ * categories of the TLD ending there as a bit mask, which is <code>0</code>
+ * for inner nodes.
+ * </p>
+ * <p>
+ * Lookups fold ASCII upper case to lower case on the fly, so they are
+ * case-insensitive without allocating.
+ * </p>
+ *
+ * @version $Revision$
+ */
+final class TldTrie implements Serializable {
+
+    private static final long serialVersionUID = 3203707585472716937L;
+
+    /** The character leading to each node, unused for the root. */
+    private final char[] labels;
+
+    /** The index of the first child of each node, plus a sentinel. */
+    private final int[] firstChild;
+
+    /** The category bit mask of each node. */
+    private final byte[] types;
+
+    /**
+     * Builds a trie from sets of TLDs.
+     *
+     * @param tlds The TLDs of each category, which need not be sorted
+     * @param categories The category bit of each set of TLDs
+     */
+    TldTrie(String[][] tlds, int[] categories) {
+        int count = 0;
+        for (int i = 0; i < tlds.length; i++) {
+            count += tlds[i].length;
+        }
+        final String[] keys = new String[count];
+        final byte[] keyTypes = new byte[count];
+        Integer[] order = new Integer[count];
+        int maxNodes = 1;
+        for (int i = 0, k = 0; i < tlds.length; i++) {
+            for (int j = 0; j < tlds[i].length; j++, k++) {
+                keys[k] = tlds[i][j].toLowerCase(Locale.ENGLISH);
+                keyTypes[k] = (byte) categories[i];
+                order[k] = Integer.valueOf(k);
+                maxNodes += keys[k].length();
+            }
+        }
+        Arrays.sort(order, new Comparator() {
+            public int compare(Object o1, Object o2) {
+                return keys[((Integer) o1).intValue()].compareTo(keys[((Integer) o2).intValue()]);
+            }
+        });
+
+        char[] nodeLabels = new char[maxNodes];
+        int[] nodeFirstChild = new int[maxNodes + 1];
+        byte[] nodeTypes = new byte[maxNodes];
+        // the range of sorted keys sharing the prefix of each node, and its length
+        int[] lo = new int[maxNodes];
+        int[] hi = new int[maxNodes];
+        int[] depth = new int[maxNodes];
+        hi[0] = count;
+        int nodes = 1;
+        for (int node = 0; node < nodes; node++) {
+            nodeFirstChild[node] = nodes;
+            int d = depth[node];
+            int i = lo[node];
+            // a key equal to the prefix sorts before all keys extending it
+            while (i < hi[node] && keys[order[i].intValue()].length() == d) {
+                nodeTypes[node] |= keyTypes[order[i].intValue()];
+                i++;
+            }
+            while (i < hi[node]) {
+                char c = keys[order[i].intValue()].charAt(d);
+                int j = i + 1;
+                while (j < hi[node] && keys[order[j].intValue()].charAt(d) == c) {
+                    j++;
+                }
+                nodeLabels[nodes] = c;
+                lo[nodes] = i;
+                hi[nodes] = j;
+                depth[nodes] = d + 1;
+                nodes++;
+                i = j;
+            }
+        }
+        nodeFirstChild[nodes] = nodes;
+
+        labels = new char[nodes];
+        firstChild = new int[nodes + 1];
+        types = new byte[nodes];
+        System.arraycopy(nodeLabels, 0, labels, 0, nodes);
+        System.arraycopy(nodeFirstChild, 0, firstChild, 0, nodes + 1);
+        System.arraycopy(nodeTypes, 0, types, 0, nodes);
+    }
+
+    /**
+     * Looks up the categories of a TLD. A single leading dot is ignored.
+     *
+     * @param value The characters containing the TLD, not null
+     * @param start The start offset of the TLD, inclusive
+     * @param end The end offset of the TLD, exclusive
+     * @return the category bit mask of the TLD, <code>0</code> if unknown
+     */
+    int lookup(CharSequence value, int start, int end) {
+        if (start < end && value.charAt(start) == '.') {
+            start++;
+        }
+        int node = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            // binary search the sorted children
+            int low = firstChild[node];
+            int high = firstChild[node + 1] - 1;
+            node = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char label = labels[mid];
+                if (label < c) {
+                    low = mid + 1;
+                } else if (label > c) {
+                    high = mid - 1;
+                } else {
+                    node = mid;
+                    break;
+                }
+            }
+            if (node < 0) {
+                return 0;
+            }
+        }
+        return types[node];
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+/**
+ * Single pass, index based splitter for the generic URI syntax.
+ * <p>
+ * The scanner accepts exactly what the parsing expression of
+ * <a href="http://www.ietf.org/rfc/rfc3986.txt">RFC 3986</a>, appendix B
+ * (as used by {@link UrlValidator} before) accepts:
+ * </p>
+ * <pre>
+ *   ^(([^:/?#]+):)?(//([^/?#]*))?([^?#]*)(\?([^#]*))?(#(.*))?
+ * </pre>
+ * <p>
+ * Instead of capturing groups the scanner records the start (inclusive) and
+ * end (exclusive) offsets of the scheme, authority, path, query and fragment
+ * components, so no substrings are created unless a caller asks for one.
+ * Absent components have both offsets set to <code>-1</code>; the path is
+ * always present, though it may be empty.
+ * </p>
+ * <p>
+ * Instances are not thread-safe, but may be reused by calling
+ * {@link #scan(CharSequence)} again.
+ * </p>
+ *
+ * @version $Revision$
+ */
+final class UrlScanner {
+
+    int schemeStart;
+    int schemeEnd;
+    int authorityStart;
+    int authorityEnd;
+    int pathStart;
+    int pathEnd;
+    int queryStart;
+    int queryEnd;
+    int fragmentStart;
+    int fragmentEnd;
+
+    private CharSequence input;
+
+    /**
+     * Splits the input into its components.
+     *
+     * @param value The value to split, not null
+     * @return <code>false</code> if the value does not match the generic URI
+     * syntax, i.e. its fragment contains a line terminator
+     */
+    boolean scan(CharSequence value) {
+        return scan(value, 0, value.length());
+    }
+
+    /**
+     * Splits part of the input into its components. The offsets of the
+     * components are relative to the start of the input, not of the part.
+     *
+     * @param value The characters containing the value to split, not null
+     * @param start The start offset of the value, inclusive
+     * @param end The end offset of the value, exclusive
+     * @return <code>false</code> if the value does not match the generic URI
+     * syntax, i.e. its fragment contains a line terminator
+     */
+    boolean scan(CharSequence value, int start, int end) {
+        input = value;
+        int length = end;
+        schemeStart = schemeEnd = -1;
+        authorityStart = authorityEnd = -1;
+        queryStart = queryEnd = -1;
+        fragmentStart = fragmentEnd = -1;
+
+        // scheme: ([^:/?#]+):
+        int i = start;
+        char c = 0;
+        while (i < length) {
+            c = value.charAt(i);
+            if (c == ':' || c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            i++;
+        }
+        int pos = start;
+        if (i > start && i < length && c == ':') {
+            schemeStart = start;
+            schemeEnd = i;
+            pos = i + 1;
+            i = pos;
+        }
+
+        // authority: //([^/?#]*)
+        if (pos + 1 < length && value.charAt(pos) == '/' && value.charAt(pos + 1) == '/') {
+            i = pos + 2;
+            while (i < length) {
+                c = value.charAt(i);
+                if (c == '/' || c == '?' || c == '#') {
+                    break;
+                }
+                i++;
+            }
+            authorityStart = pos + 2;
+            authorityEnd = i;
+            pos = i;
+        }
+
+        // path: ([^?#]*) - a scheme-less prefix has already been scanned up to i
+        while (i < length) {
+            c = value.charAt(i);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            i++;
+        }
+        pathStart = pos;
+        pathEnd = i;
+        pos = i;
+
+        // query: \?([^#]*)
+        if (pos < length && value.charAt(pos) == '?') {
+            i = pos + 1;
+            while (i < length && value.charAt(i) != '#') {
+                i++;
+            }
+            queryStart = pos + 1;
+            queryEnd = i;
+            pos = i;
+        }
+
+        // fragment: #(.*) - '.' does not match line terminators
+        if (pos < length) {
+            fragmentStart = pos + 1;
+            fragmentEnd = length;
+            if (indexOfLineTerminator(value, fragmentStart, fragmentEnd) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    String scheme() {
+        return component(schemeStart, schemeEnd);
+    }
+
+    String authority() {
+        return component(authorityStart, authorityEnd);
+    }
+
+    String path() {
+        return component(pathStart, pathEnd);
+    }
+
+    String query() {
+        return component(queryStart, queryEnd);
+    }
+
+    String fragment() {
+        return component(fragmentStart, fragmentEnd);
+    }
+
+    private String component(int start, int end) {
+        return start < 0 ? null : input.subSequence(start, end).toString();
+    }
+
+    /**
+     * Returns the index of the first character the regular expression
+     * <code>.</code> does not match (outside of DOTALL mode).
+     *
+     * @param value The value to search
+     * @param start The start offset, inclusive
+     * @param end The end offset, exclusive
+     * @return the index of the first line terminator or <code>-1</code>
+     */
+    static int indexOfLineTerminator(CharSequence value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -17,12 +17,12 @@
 package commons.validator.routines;
 
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Executor;
 
 /**
  * <p><b>URL Validation</b> routines.</p>
@@ -100,63 +100,34 @@ public class UrlValidator implements Serializable {
      */
     public static final long ALLOW_LOCAL_URLS = 1 << 3;
 
-    /**
-     * This expression derived/taken from the BNF for URI (RFC2396).
-     */
-    private static final String URL_REGEX =
-            "^(([^:/?#]+):)?(//([^/?#]*))?([^?#]*)(\\?([^#]*))?(#(.*))?";
-    //        12            3  4          5       6   7        8 9
-    private static final Pattern URL_PATTERN = Pattern.compile(URL_REGEX);
-
-    /**
-     * Schema/Protocol (ie. http:, ftp:, file:, etc).
-     */
-    private static final int PARSE_URL_SCHEME = 2;
-
-    /**
-     * Includes hostname/ip and port number.
-     */
-    private static final int PARSE_URL_AUTHORITY = 4;
-
-    private static final int PARSE_URL_PATH = 5;
-
-    private static final int PARSE_URL_QUERY = 7;
-
-    private static final int PARSE_URL_FRAGMENT = 9;
-
-    /**
-     * Protocol scheme (e.g. http, ftp, https).
+    /*
+     * The URL structure is split by UrlScanner, which follows the expression
+     * derived/taken from the BNF for URI (RFC2396):
+     *
+     *   ^(([^:/?#]+):)?(//([^/?#]*))?([^?#]*)(\?([^#]*))?(#(.*))?
+     *
+     * The components are then checked by hand written scanners, which accept
+     * exactly what the following expressions used to accept:
+     *
+     *   scheme:    ^\p{Alpha}[\p{Alnum}\+\-\.]*
+     *   authority: ^([\p{Alnum}\-\.]*)(:\d*)?(.*)?   port: ^:(\d{1,5})$
+     *   path:      ^(/[-\w:@&?=+,.!/~*'%$_;\(\)]*)?$
+     *   query:     ^(.*)$
      */
-    private static final String SCHEME_REGEX = "^\\p{Alpha}[\\p{Alnum}\\+\\-\\.]*";
-    private static final Pattern SCHEME_PATTERN = Pattern.compile(SCHEME_REGEX);
 
     // Drop numeric, and  "+-." for now
     // TODO does not allow for optional userinfo. 
     // Validation of character set is done by isValidAuthority
-    private static final String AUTHORITY_CHARS_REGEX = "\\p{Alnum}\\-\\.";
-
-    private static final String AUTHORITY_REGEX =
-            "^([" + AUTHORITY_CHARS_REGEX + "]*)(:\\d*)?(.*)?";
-    //        1                                 2       3
-    private static final Pattern AUTHORITY_PATTERN = Pattern.compile(AUTHORITY_REGEX);
-
-    private static final int PARSE_AUTHORITY_HOST_IP = 1;
-
-    private static final int PARSE_AUTHORITY_PORT = 2;
 
     /**
-     * Should always be empty. The code currently allows spaces.
+     * The longest port number accepted, in digits.
      */
-    private static final int PARSE_AUTHORITY_EXTRA = 3;
-
-    private static final String PATH_REGEX = "^(/[-\\w:@&?=+,.!/~*'%$_;\\(\\)]*)?$";
-    private static final Pattern PATH_PATTERN = Pattern.compile(PATH_REGEX);
+    private static final int MAX_PORT_DIGITS = 5;
 
-    private static final String QUERY_REGEX = "^(.*)$";
-    private static final Pattern QUERY_PATTERN = Pattern.compile(QUERY_REGEX);
-
-    private static final String PORT_REGEX = "^:(\\d{1,5})$";
-    private static final Pattern PORT_PATTERN = Pattern.compile(PORT_REGEX);
+    /**
+     * Path characters other than \w.
+     */
+    private static final String PATH_PUNCTUATION = "-:@&?=+,.!/~*'%$;()";
 
     /**
      * Holds the set of current validation options.
@@ -164,9 +135,10 @@ public class UrlValidator implements Serializable {
     private final long options;
 
     /**
-     * The set of schemes that are allowed to be in a URL.
+     * The distinct schemes that are allowed to be in a URL, matched without
+     * building a lower-case copy of the scheme being validated.
      */
-    private final Set allowedSchemes; // Must be lower-case
+    private final String[] allowedSchemes; // Must be lower-case
 
     /**
      * Regular expressions used to manually validate authorities if IANA
@@ -184,6 +156,16 @@ public class UrlValidator implements Serializable {
      */
     private static final UrlValidator DEFAULT_URL_VALIDATOR = new UrlValidator();
 
+    /**
+     * Maximum number of shared instances with custom schemes or options.
+     */
+    private static final int MAX_INSTANCES = 32;
+
+    /**
+     * Shared instances by their canonical schemes and options.
+     */
+    private static final ConcurrentLruCache INSTANCES = new ConcurrentLruCache(MAX_INSTANCES);
+
     /**
      * Returns the singleton instance of this class with default schemes and options.
      * @return singleton instance with default schemes and options
@@ -192,6 +174,38 @@ public class UrlValidator implements Serializable {
         return DEFAULT_URL_VALIDATOR;
     }
 
+    /**
+     * Returns a shared instance of this class with the given schemes and options.
+     * <p>
+     * Schemes are compared case-blind and regardless of their order, so
+     * <code>{"HTTP", "ftp"}</code> and <code>{"ftp", "http"}</code> share an
+     * instance. The most recently used instances are kept.
+     * </p>
+     * @param schemes The set of valid schemes, passing in a <code>null</code> will
+     * default to "http,https,ftp". Ignored if the ALLOW_ALL_SCHEMES option is set.
+     * @param options Validation options. Set using the public constants of this class.
+     * @return a shared instance with the given schemes and options
+     */
+    public static UrlValidator getInstance(String[] schemes, long options) {
+        String[] canonical = (options & ALLOW_ALL_SCHEMES) > 0
+                ? new String[0] : toLowerCase(schemes == null ? DEFAULT_SCHEMES : schemes);
+        Arrays.sort(canonical);
+
+        StringBuilder key = new StringBuilder();
+        key.append(options);
+        for (int i = 0; i < canonical.length; i++) {
+            // ':' cannot appear in a valid scheme
+            key.append(':').append(canonical[i]);
+        }
+
+        UrlValidator validator = (UrlValidator) INSTANCES.get(key.toString());
+        if (validator == null) {
+            validator = new UrlValidator(canonical, options);
+            INSTANCES.put(key.toString(), validator);
+        }
+        return validator;
+    }
+
     /**
      * Create a UrlValidator with default properties.
      */
@@ -258,15 +272,12 @@ public class UrlValidator implements Serializable {
         this.options = options;
 
         if (isOn(ALLOW_ALL_SCHEMES)) {
-            allowedSchemes = Collections.EMPTY_SET;
+            allowedSchemes = new String[0];
         } else {
             if (schemes == null) {
                 schemes = DEFAULT_SCHEMES;
             }
-            allowedSchemes = new HashSet(schemes.length);
-            for(int i=0; i < schemes.length; i++) {
-                allowedSchemes.add(schemes[i].toLowerCase(Locale.ENGLISH));
-            }
+            allowedSchemes = toLowerCase(schemes);
         }
 
         this.authorityValidator = authorityValidator;
@@ -283,22 +294,146 @@ public class UrlValidator implements Serializable {
      * @return true if the url is valid.
      */
     public boolean isValid(String value) {
+        return isValid((CharSequence) value);
+    }
+
+    /**
+     * <p>Checks if a character sequence, such as an <code>Editable</code>,
+     * holds a valid url address.</p>
+     *
+     * @param value The value validation is being performed on.  A <code>null</code>
+     * value is considered invalid.
+     * @return true if the url is valid.
+     */
+    public boolean isValid(CharSequence value) {
+        if (value == null) {
+            return false;
+        }
+        return isValid(value, 0, value.length(), new UrlScanner());
+    }
+
+    /**
+     * <p>Checks if part of a character sequence holds a valid url address.</p>
+     *
+     * @param value The characters containing the value validation is being
+     * performed on.  A <code>null</code> value is considered invalid.
+     * @param offset The index of the first character of the url.
+     * @param length The number of characters of the url.
+     * @return true if the url is valid.
+     */
+    public boolean isValid(CharSequence value, int offset, int length) {
         if (value == null) {
             return false;
         }
+        return isValid(value, offset, offset + length, new UrlScanner());
+    }
 
+    /**
+     * <p>Checks an array of url addresses.</p>
+     *
+     * @param values The values validation is being performed on, <code>null</code>
+     * entries are considered invalid.
+     * @param results Receives whether each url is valid.
+     * @return the number of valid urls.
+     */
+    public int isValidAll(CharSequence[] values, boolean[] results) {
+        return isValidAll(values, results, null);
+    }
+
+    /**
+     * <p>Checks an array of url addresses, splitting large arrays into chunks
+     * which are validated by the executor.</p>
+     *
+     * @param values The values validation is being performed on, <code>null</code>
+     * entries are considered invalid.
+     * @param results Receives whether each url is valid.
+     * @param executor Validates the chunks, or <code>null</code> to validate
+     * all urls in the calling thread.
+     * @return the number of valid urls.
+     */
+    public int isValidAll(CharSequence[] values, boolean[] results, Executor executor) {
+        return new UrlBatch().run(values, results, executor);
+    }
+
+    /**
+     * <p>Checks an array of url addresses.</p>
+     *
+     * @param values The values validation is being performed on, <code>null</code>
+     * entries are considered invalid.
+     * @return the indexes of the valid urls.
+     */
+    public BitSet isValidAll(CharSequence[] values) {
+        return new UrlBatch().run(values);
+    }
+
+    private boolean isValid(CharSequence value, int start, int end, UrlScanner url) {
         // Check the whole url address structure
-        Matcher urlMatcher = URL_PATTERN.matcher(value);
-        if (!urlMatcher.matches()) {
+        if (!url.scan(value, start, end)) {
+            return false;
+        }
+
+        if (getClass() != UrlValidator.class) {
+            // a subclass may override the isValidXxx() methods, so hand them the components
+            return isValidComponents(url.scheme(), url.authority(), url.path(),
+                    url.query(), url.fragment());
+        }
+
+        if (!isValidScheme(value, url.schemeStart, url.schemeEnd)) {
+            return false;
+        }
+
+        if (url.schemeEnd - url.schemeStart == 4 && regionMatches(value, url.schemeStart, "file")
+                && url.authorityStart >= 0 && url.authorityStart == url.authorityEnd) {
+            // Special case - file: allows an empty authority
+        } else {
+            // Validate the authority
+            if (url.authorityStart < 0
+                    || !isValidAuthority(value.subSequence(url.authorityStart, url.authorityEnd).toString())) {
+                return false;
+            }
+        }
+
+        if (!isValidPath(value, url.pathStart, url.pathEnd)) {
+            return false;
+        }
+
+        if (url.queryStart >= 0 && !isValidQuery(value, url.queryStart, url.queryEnd)) {
             return false;
         }
 
-        String scheme = urlMatcher.group(PARSE_URL_SCHEME);
+        if (url.fragmentStart >= 0 && isOn(NO_FRAGMENTS)) {
+            return false;
+        }
+
+        return true;
+    }
+
+    private class UrlBatch extends Batch {
+        int validate(CharSequence[] values, int from, int to, boolean[] results) {
+            // one scanner for the whole chunk
+            UrlScanner url = new UrlScanner();
+            int valid = 0;
+            for (int i = from; i < to; i++) {
+                CharSequence value = values[i];
+                results[i] = value != null && isValid(value, 0, value.length(), url);
+                if (results[i]) {
+                    valid++;
+                }
+            }
+            return valid;
+        }
+    }
+
+    /**
+     * Checks the components of a url address through the (possibly overridden)
+     * isValidXxx() methods.
+     */
+    private boolean isValidComponents(String scheme, String authority, String path,
+            String query, String fragment) {
         if (!isValidScheme(scheme)) {
             return false;
         }
 
-        String authority = urlMatcher.group(PARSE_URL_AUTHORITY);
         if ("file".equals(scheme) && "".equals(authority)) {
             // Special case - file: allows an empty authority
         } else {
@@ -308,15 +443,15 @@ public class UrlValidator implements Serializable {
             }
         }
 
-        if (!isValidPath(urlMatcher.group(PARSE_URL_PATH))) {
+        if (!isValidPath(path)) {
             return false;
         }
 
-        if (!isValidQuery(urlMatcher.group(PARSE_URL_QUERY))) {
+        if (!isValidQuery(query)) {
             return false;
         }
 
-        if (!isValidFragment(urlMatcher.group(PARSE_URL_FRAGMENT))) {
+        if (!isValidFragment(fragment)) {
             return false;
         }
 
@@ -337,25 +472,79 @@ public class UrlValidator implements Serializable {
             return false;
         }
 
+        return isValidScheme(scheme, 0, scheme.length());
+    }
+
+    private boolean isValidScheme(CharSequence value, int start, int end) {
+        // ^\p{Alpha}[\p{Alnum}\+\-\.]*
         // TODO could be removed if external schemes were checked in the ctor before being stored
-        if (!SCHEME_PATTERN.matcher(scheme).matches()) {
+        if (start < 0 || start == end || !isAsciiAlpha(value.charAt(start))) {
             return false;
         }
+        for (int i = start + 1; i < end; i++) {
+            char c = value.charAt(i);
+            if (!isAsciiAlpha(c) && !isAsciiDigit(c) && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
 
-        if (isOff(ALLOW_ALL_SCHEMES) && !allowedSchemes.contains(scheme.toLowerCase(Locale.ENGLISH))) {
+        if (isOff(ALLOW_ALL_SCHEMES) && !isAllowedScheme(value, start, end)) {
             return false;
         }
 
         return true;
     }
 
+    /**
+     * Looks the scheme up in the allowed schemes. The scheme must only
+     * contain ASCII characters, which are lowered one at a time.
+     */
+    private boolean isAllowedScheme(CharSequence value, int start, int end) {
+        int length = end - start;
+        for (int s = 0; s < allowedSchemes.length; s++) {
+            String scheme = allowedSchemes[s];
+            if (scheme.length() != length) {
+                continue;
+            }
+            int i = 0;
+            while (i < length) {
+                char c = value.charAt(start + i);
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+                if (c != scheme.charAt(i)) {
+                    break;
+                }
+                i++;
+            }
+            if (i == length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the distinct lower-case forms of the schemes.
+     */
+    private static String[] toLowerCase(String[] schemes) {
+        List distinct = new ArrayList(schemes.length);
+        for (int i = 0; i < schemes.length; i++) {
+            String scheme = schemes[i].toLowerCase(Locale.ENGLISH);
+            if (!distinct.contains(scheme)) {
+                distinct.add(scheme);
+            }
+        }
+        return (String[]) distinct.toArray(new String[distinct.size()]);
+    }
+
     /**
      * Returns true if the authority is properly formatted.  An authority is the combination
      * of hostname and port.  A <code>null</code> authority value is considered invalid.
      * Note: this implementation validates the domain unless a RegexValidator was provided.
      * If a RegexValidator was supplied and it matches, then the authority is regarded
-     * as valid with no further checks, otherwise the method checks against the
-     * AUTHORITY_PATTERN and the DomainValidator (ALLOW_LOCAL_URLS)
+     * as valid with no further checks, otherwise the method checks the host and port
+     * syntax and the DomainValidator (ALLOW_LOCAL_URLS)
      * @param authority Authority value to validate, alllows IDN
      * @return true if authority (hostname and port) is valid.
      */
@@ -370,13 +559,41 @@ public class UrlValidator implements Serializable {
         }
         // convert to ASCII if possible
         final String authorityASCII = DomainValidator.unicodeToASCII(authority);
+        final int length = authorityASCII.length();
+
+        // host name or IP address: [\p{Alnum}\-\.]*
+        int hostEnd = 0;
+        while (hostEnd < length) {
+            char c = authorityASCII.charAt(hostEnd);
+            if (!isAsciiAlpha(c) && !isAsciiDigit(c) && c != '-' && c != '.') {
+                break;
+            }
+            hostEnd++;
+        }
 
-        Matcher authorityMatcher = AUTHORITY_PATTERN.matcher(authorityASCII);
-        if (!authorityMatcher.matches()) {
-            return false;
+        // port: (:\d*)? which must be :\d{1,5}
+        int portEnd = hostEnd;
+        if (portEnd < length && authorityASCII.charAt(portEnd) == ':') {
+            portEnd++;
+            while (portEnd < length && isAsciiDigit(authorityASCII.charAt(portEnd))) {
+                portEnd++;
+            }
+            int digits = portEnd - hostEnd - 1;
+            if (digits < 1 || digits > MAX_PORT_DIGITS) {
+                return false;
+            }
+        }
+
+        // anything else should always be empty, but the code currently allows spaces
+        // (i.e. whatever trim() removes, apart from line terminators)
+        for (int i = portEnd; i < length; i++) {
+            char c = authorityASCII.charAt(i);
+            if (c > ' ' || c == '\n' || c == '\r') {
+                return false;
+            }
         }
 
-        String hostLocation = authorityMatcher.group(PARSE_AUTHORITY_HOST_IP);
+        String hostLocation = authorityASCII.substring(0, hostEnd);
         // check if authority is hostname or IP address:
         // try a hostname first since that's much more likely
         DomainValidator domainValidator = DomainValidator.getInstance(isOn(ALLOW_LOCAL_URLS));
@@ -390,16 +607,6 @@ public class UrlValidator implements Serializable {
             }
         }
 
-        String port = authorityMatcher.group(PARSE_AUTHORITY_PORT);
-        if (port != null && !PORT_PATTERN.matcher(port).matches()) {
-            return false;
-        }
-
-        String extra = authorityMatcher.group(PARSE_AUTHORITY_EXTRA);
-        if (extra != null && extra.trim().length() > 0){
-            return false;
-        }
-
         return true;
     }
 
@@ -413,17 +620,45 @@ public class UrlValidator implements Serializable {
             return false;
         }
 
-        if (!PATH_PATTERN.matcher(path).matches()) {
+        return isValidPath(path, 0, path.length());
+    }
+
+    private boolean isValidPath(CharSequence value, int start, int end) {
+        // ^(/[-\w:@&?=+,.!/~*'%$_;\(\)]*)?$
+        if (start == end) {
+            return true;
+        }
+        if (value.charAt(start) != '/') {
             return false;
         }
 
-        int slash2Count = countToken("//", path);
+        // count the (overlapping) tokens "/", "//" and ".." in the same pass
+        int slashCount = 1;
+        int slash2Count = 0;
+        int dot2Count = 0;
+        char previous = '/';
+        for (int i = start + 1; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '/') {
+                slashCount++;
+                if (previous == '/') {
+                    slash2Count++;
+                }
+            } else if (c == '.') {
+                if (previous == '.') {
+                    dot2Count++;
+                }
+            } else if (!isAsciiAlpha(c) && !isAsciiDigit(c) && c != '_'
+                    && PATH_PUNCTUATION.indexOf(c) < 0) {
+                return false;
+            }
+            previous = c;
+        }
+
         if (isOff(ALLOW_2_SLASHES) && (slash2Count > 0)) {
             return false;
         }
 
-        int slashCount = countToken("/", path);
-        int dot2Count = countToken("..", path);
         if (dot2Count > 0 && (slashCount - slash2Count - 1) <= dot2Count) {
             return false;
         }
@@ -441,7 +676,12 @@ public class UrlValidator implements Serializable {
             return true;
         }
 
-        return QUERY_PATTERN.matcher(query).matches();
+        return isValidQuery(query, 0, query.length());
+    }
+
+    private boolean isValidQuery(CharSequence value, int start, int end) {
+        // ^(.*)$
+        return UrlScanner.indexOfLineTerminator(value, start, end) < 0;
     }
 
     /**
@@ -499,4 +739,21 @@ public class UrlValidator implements Serializable {
     private boolean isOff(long flag) {
         return (options & flag) == 0;
     }
+
+    private static boolean isAsciiAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean regionMatches(CharSequence value, int offset, String other) {
+        for (int i = 0; i < other.length(); i++) {
+            if (value.charAt(offset + i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines.checkdigit;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+/**
+ * Table driven <b>Luhn</b>, <b>EAN-13</b> and <b>ISBN-10</b> Check Digit
+ * calculation/validation.
+ * <p>
+ * Gives the same results as {@link LuhnCheckDigit}, {@link EAN13CheckDigit}
+ * and {@link ISBN10CheckDigit}, which use it, but looks the weighted value
+ * of each digit up in a table precomputed for its position instead of
+ * calling the {@link ModulusCheckDigit} methods, and reports invalid codes
+ * through its result instead of a {@link CheckDigitException}. Codes are
+ * read from any {@link CharSequence} without being copied.
+ * </p>
+ *
+ * @version $Revision$
+ */
+public final class CheckDigitTable implements Serializable {
+
+    private static final long serialVersionUID = -4313802930611327421L;
+
+    /** Result of {@link #calculate(CharSequence)} for invalid codes */
+    public static final int INVALID = -1;
+
+    /** Luhn Check Digit table, weighting digits 1 and 2 alternately */
+    public static final CheckDigitTable LUHN = new CheckDigitTable(10, new int[] {2, 1}, true, false);
+
+    /** EAN-13 Check Digit table, weighting digits 1 and 3 alternately */
+    public static final CheckDigitTable EAN13 = new CheckDigitTable(10, new int[] {3, 1}, false, false);
+
+    /** ISBN-10 Check Digit table, weighting digits by their position */
+    public static final CheckDigitTable ISBN10 = new CheckDigitTable(11,
+            new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, false, true);
+
+    private final int modulus;
+
+    /**
+     * The weighted values, modulo the modulus, by position from the right
+     * modulo the number of weights, and then by digit value.
+     */
+    private final int[][] weighted;
+
+    /** Whether a check digit of 10 is written 'X' */
+    private final boolean tenIsX;
+
+    private CheckDigitTable(int modulus, int[] weights, boolean sumDigits, boolean tenIsX) {
+        this.modulus = modulus;
+        this.tenIsX = tenIsX;
+        int values = tenIsX ? 11 : 10;
+        weighted = new int[weights.length][values];
+        for (int p = 0; p < weights.length; p++) {
+            for (int v = 0; v < values; v++) {
+                int value = v * weights[p];
+                if (sumDigits && value > 9) {
+                    value -= 9;
+                }
+                weighted[p][v] = value % modulus;
+            }
+        }
+    }
+
+    /**
+     * Return the modulus value this check digit routine is based on.
+     *
+     * @return The modulus value this check digit routine is based on
+     */
+    public int getModulus() {
+        return modulus;
+    }
+
+    /**
+     * Validate the check digit of a code.
+     *
+     * @param code The code to validate, including the check digit
+     * @return <code>true</code> if the check digit is valid, otherwise
+     * <code>false</code>
+     */
+    public boolean isValid(CharSequence code) {
+        if (code == null) {
+            return false;
+        }
+        return isValid(code, 0, code.length());
+    }
+
+    /**
+     * Validate the check digit of a code in part of a character sequence.
+     *
+     * @param code The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code, including the
+     * check digit
+     * @return <code>true</code> if the check digit is valid, otherwise
+     * <code>false</code>
+     */
+    public boolean isValid(CharSequence code, int offset, int length) {
+        if (code == null || length == 0) {
+            return false;
+        }
+        return modulus(code, offset, length, true) == 0;
+    }
+
+    /**
+     * Validate the check digits of an array of codes.
+     *
+     * @param codes The codes to validate, <code>null</code> entries are
+     * considered invalid
+     * @param results Receives whether the check digit of each code is valid
+     * @return the number of valid codes
+     */
+    public int isValidAll(CharSequence[] codes, boolean[] results) {
+        if (results.length < codes.length) {
+            throw new IllegalArgumentException("Results must hold " + codes.length + " values");
+        }
+        int valid = 0;
+        for (int i = 0; i < codes.length; i++) {
+            results[i] = isValid(codes[i]);
+            if (results[i]) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Validate the check digits of an array of codes.
+     *
+     * @param codes The codes to validate, <code>null</code> entries are
+     * considered invalid
+     * @return the indexes of the valid codes
+     */
+    public BitSet isValidAll(CharSequence[] codes) {
+        BitSet valid = new BitSet(codes.length);
+        for (int i = 0; i < codes.length; i++) {
+            if (isValid(codes[i])) {
+                valid.set(i);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Calculate the check digit for a code.
+     *
+     * @param code The code, excluding the check digit
+     * @return The check digit character, or {@link #INVALID} if the code
+     * is not valid
+     */
+    public int calculate(CharSequence code) {
+        if (code == null) {
+            return INVALID;
+        }
+        return calculate(code, 0, code.length());
+    }
+
+    /**
+     * Calculate the check digit for a code in part of a character sequence.
+     *
+     * @param code The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code, excluding the
+     * check digit
+     * @return The check digit character, or {@link #INVALID} if the code
+     * is not valid
+     */
+    public int calculate(CharSequence code, int offset, int length) {
+        if (code == null || length == 0) {
+            return INVALID;
+        }
+        int modulusResult = modulus(code, offset, length, false);
+        if (modulusResult < 0) {
+            return INVALID;
+        }
+        int value = (modulus - modulusResult) % modulus;
+        return value == 10 ? 'X' : '0' + value;
+    }
+
+    /**
+     * Returns the sum of the weighted values modulo the modulus, or
+     * {@link #INVALID} if a character is not a digit or all are zero.
+     */
+    private int modulus(CharSequence code, int offset, int length, boolean includesCheckDigit) {
+        int[][] weighted = this.weighted;
+        int positions = weighted.length;
+        int total = 0;
+        int nonZero = 0;
+        // the position from the right of the last character, modulo the weights
+        int position = includesCheckDigit ? 1 : 2 % positions;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            char c = code.charAt(i);
+            int value = c - '0';
+            if (value < 0 || value > 9) {
+                if (tenIsX && c == 'X' && includesCheckDigit && i == offset + length - 1) {
+                    value = 10;
+                } else if (c > 0x7F && Character.isDigit(c)) {
+                    value = Character.getNumericValue(c);
+                } else {
+                    return INVALID;
+                }
+            }
+            total += weighted[position][value];
+            nonZero |= value;
+            if (++position == positions) {
+                position = 0;
+            }
+        }
+        if (nonZero == 0) {
+            return INVALID; // sum is zero
+        }
+        return total % modulus;
+    }
+
+}
@@ -56,6 +56,39 @@ public final class ISBN10CheckDigit extends ModulusCheckDigit {
         super(11);
     }
 
+    /**
+     * Validate the check digit for part of a character sequence using
+     * the precomputed {@link CheckDigitTable#ISBN10} table.
+     *
+     * @param code The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code
+     * @return <code>true</code> if the check digit is valid, otherwise
+     * <code>false</code>
+     */
+    public boolean isValid(CharSequence code, int offset, int length) {
+        return CheckDigitTable.ISBN10.isValid(code, offset, length);
+    }
+
+    /**
+     * Calculate the check digit for part of a character sequence using
+     * the precomputed {@link CheckDigitTable#ISBN10} table.
+     *
+     * @param code The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code
+     * @return The calculated Check Digit
+     * @throws CheckDigitException if an error occurs calculating
+     * the check digit for the specified code
+     */
+    public String calculate(CharSequence code, int offset, int length) throws CheckDigitException {
+        int checkDigit = CheckDigitTable.ISBN10.calculate(code, offset, length);
+        if (checkDigit == CheckDigitTable.INVALID) {
+            return super.calculate(code, offset, length); // throws the reason
+        }
+        return toCheckDigit(checkDigit == 'X' ? 10 : checkDigit - '0');
+    }
+
     /**
      * Calculates the <i>weighted</i> value of a charcter in the
      * code at a specified position.
@@ -37,10 +37,19 @@ public abstract class ModulusCheckDigit implements CheckDigit, Serializable {
 
     private static final long serialVersionUID = 2948962251251528941L;
 
+    /** The single-digit check digits, to avoid creating new strings */
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
     // N.B. The modulus can be > 10 provided that the implementing class overrides toCheckDigit and toInt
     // (for example as in ISBN10CheckDigit)
     private final int modulus;
 
+    /**
+     * Whether a subclass overrides {@link #calculateModulus(String, boolean)},
+     * looked up on first use: 0 if not known yet, 1 if not or 2 if it does.
+     */
+    private transient volatile int stringModulus;
+
     /**
      * Construct a {@link CheckDigit} routine for a specified modulus.
      *
@@ -67,11 +76,27 @@ public abstract class ModulusCheckDigit implements CheckDigit, Serializable {
      * <code>false</code>
      */
     public boolean isValid(String code) {
-        if (code == null || code.length() == 0) {
+        if (code == null) {
+            return false;
+        }
+        return isValid(code, 0, code.length());
+    }
+
+    /**
+     * Validate a modulus check digit for part of a character sequence.
+     *
+     * @param code The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code
+     * @return <code>true</code> if the check digit is valid, otherwise
+     * <code>false</code>
+     */
+    public boolean isValid(CharSequence code, int offset, int length) {
+        if (code == null || length == 0) {
             return false;
         }
         try {
-            int modulusResult = calculateModulus(code, true);
+            int modulusResult = modulus(code, offset, length, true);
             return (modulusResult == 0);
         } catch (CheckDigitException ex) {
             return false;
@@ -87,16 +112,38 @@ public abstract class ModulusCheckDigit implements CheckDigit, Serializable {
      * the check digit for the specified code
      */
     public String calculate(String code) throws CheckDigitException {
-        if (code == null || code.length() == 0) {
+        if (code == null) {
+            throw new CheckDigitException("Code is missing");
+        }
+        return calculate(code, 0, code.length());
+    }
+
+    /**
+     * Calculate a modulus <i>Check Digit</i> for part of a character sequence.
+     *
+     * @param code The characters containing the code
+     * @param offset The index of the first character of the code
+     * @param length The number of characters of the code
+     * @return The calculated Check Digit
+     * @throws CheckDigitException if an error occurs calculating
+     * the check digit for the specified code
+     */
+    public String calculate(CharSequence code, int offset, int length) throws CheckDigitException {
+        if (code == null || length == 0) {
             throw new CheckDigitException("Code is missing");
         }
-        int modulusResult = calculateModulus(code, false);
+        int modulusResult = modulus(code, offset, length, false);
         int charValue = (modulus - modulusResult) % modulus;
         return toCheckDigit(charValue);
     }
 
     /**
      * Calculate the modulus for a code.
+     * <p>
+     * Subclasses which override this method rather than
+     * {@link #calculateModulus(CharSequence, int, int, boolean)} have it
+     * called for parts of character sequences too, which are copied
+     * into Strings for it.
      *
      * @param code The code to calculate the modulus for.
      * @param includesCheckDigit Whether the code includes the Check Digit or not.
@@ -105,12 +152,28 @@ public abstract class ModulusCheckDigit implements CheckDigit, Serializable {
      * for the specified code
      */
     protected int calculateModulus(String code, boolean includesCheckDigit) throws CheckDigitException {
+        return calculateModulus(code, 0, code.length(), includesCheckDigit);
+    }
+
+    /**
+     * Calculate the modulus for part of a character sequence.
+     *
+     * @param code The characters containing the code.
+     * @param offset The index of the first character of the code.
+     * @param length The number of characters of the code.
+     * @param includesCheckDigit Whether the code includes the Check Digit or not.
+     * @return The modulus value
+     * @throws CheckDigitException if an error occurs calculating the modulus
+     * for the specified code
+     */
+    protected int calculateModulus(CharSequence code, int offset, int length, boolean includesCheckDigit)
+            throws CheckDigitException {
         int total = 0;
-        for (int i = 0; i < code.length(); i++) {
-            int lth = code.length() + (includesCheckDigit ? 0 : 1);
+        int lth = length + (includesCheckDigit ? 0 : 1);
+        for (int i = 0; i < length; i++) {
             int leftPos  = i + 1;
             int rightPos = lth - i;
-            int charValue = toInt(code.charAt(i), leftPos, rightPos);
+            int charValue = toInt(code.charAt(offset + i), leftPos, rightPos);
             total += weightedValue(charValue, leftPos, rightPos);
         }
         if (total == 0) {
@@ -119,6 +182,39 @@ public abstract class ModulusCheckDigit implements CheckDigit, Serializable {
         return total % modulus;
     }
 
+    /**
+     * Calculate the modulus for part of a character sequence with
+     * {@link #calculateModulus(String, boolean)} if a subclass overrides it,
+     * otherwise without copying the characters.
+     */
+    private int modulus(CharSequence code, int offset, int length, boolean includesCheckDigit)
+            throws CheckDigitException {
+        if (overridesStringModulus()) {
+            String value = code instanceof String && offset == 0 && length == code.length()
+                    ? (String) code : code.subSequence(offset, offset + length).toString();
+            return calculateModulus(value, includesCheckDigit);
+        }
+        return calculateModulus(code, offset, length, includesCheckDigit);
+    }
+
+    private boolean overridesStringModulus() {
+        int local = stringModulus;
+        if (local == 0) {
+            local = 1;
+            for (Class type = getClass(); type != ModulusCheckDigit.class; type = type.getSuperclass()) {
+                try {
+                    type.getDeclaredMethod("calculateModulus", new Class[] {String.class, Boolean.TYPE});
+                    local = 2;
+                    break;
+                } catch (NoSuchMethodException e) {
+                    // not overridden by this class
+                }
+            }
+            stringModulus = local;
+        }
+        return local == 2;
+    }
+
     /**
      * Calculates the <i>weighted</i> value of a character in the
      * code at a specified position.
@@ -155,6 +251,9 @@ public abstract class ModulusCheckDigit implements CheckDigit, Serializable {
      */
     protected int toInt(char character, int leftPos, int rightPos)
             throws CheckDigitException {
+        if (character >= '0' && character <= '9') {
+            return character - '0';
+        }
         if (Character.isDigit(character)) {
             return Character.getNumericValue(character);
         }
@@ -177,7 +276,7 @@ public abstract class ModulusCheckDigit implements CheckDigit, Serializable {
     protected String toCheckDigit(int charValue)
             throws CheckDigitException {
         if (charValue >= 0 && charValue <= 9) {
-            return Integer.toString(charValue);
+            return DIGITS[charValue];
         }
         throw new CheckDigitException("Invalid Check Digit Value =" +
                 + charValue);
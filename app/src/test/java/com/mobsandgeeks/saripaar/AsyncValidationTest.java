@@ -0,0 +1,239 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar;
+
+import android.app.Activity;
+import android.content.Context;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+
+import com.mobsandgeeks.saripaar.annotation.NotEmpty;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import sinia.com.linkfarm.BuildConfig;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that asynchronous validations are debounced, superseded and cancelled.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class AsyncValidationTest {
+    private static final long DEBOUNCE_DELAY_MILLIS = 300;
+
+    private Form mForm;
+    private Validator mValidator;
+    private QueueExecutor mExecutor;
+    private Listener mListener;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mForm = new Form();
+        mForm.mName = new EditText(activity);
+        LinearLayout layout = new LinearLayout(activity);
+        layout.addView(mForm.mName);
+        activity.setContentView(layout);
+
+        mExecutor = new QueueExecutor();
+        mListener = new Listener();
+        mValidator = new Validator(mForm);
+        mValidator.setExecutor(mExecutor);
+        mValidator.setValidationListener(mListener);
+    }
+
+    @Test
+    public void testDebounce() {
+        mValidator.setDebounceDelay(DEBOUNCE_DELAY_MILLIS);
+        mValidator.validate(true);
+        ShadowLooper.idleMainLooper(DEBOUNCE_DELAY_MILLIS - 1);
+        mValidator.validate(true);
+        ShadowLooper.idleMainLooper(DEBOUNCE_DELAY_MILLIS - 1);
+        mValidator.validate(true);
+        assertEquals(0, mExecutor.mQueue.size());
+        assertTrue(mValidator.isValidating());
+
+        // Only the last call runs, once the delay has passed
+        ShadowLooper.idleMainLooper(DEBOUNCE_DELAY_MILLIS);
+        assertEquals(1, mExecutor.mQueue.size());
+        mExecutor.runAll();
+        ShadowLooper.idleMainLooper(0);
+        assertEquals(1, mListener.mFailures);
+        assertEquals(0, mListener.mSuccesses);
+        assertFalse(mValidator.isValidating());
+    }
+
+    @Test
+    public void testSupersededRunStopsBetweenRules() {
+        final int[] ruleCalls = new int[2];
+        mValidator.put(mForm.mName, new TestRule() {
+            @Override
+            public boolean isValid(final EditText view) {
+                // Another validation is requested while this one runs
+                ruleCalls[0]++;
+                if (ruleCalls[0] == 1) {
+                    mValidator.validate(true);
+                }
+                return true;
+            }
+        }, new TestRule() {
+            @Override
+            public boolean isValid(final EditText view) {
+                ruleCalls[1]++;
+                return true;
+            }
+        });
+
+        mValidator.validate(true);
+        assertEquals(1, mExecutor.mQueue.size());
+        mExecutor.runNext();
+        assertEquals(1, ruleCalls[0]);
+        assertEquals(0, ruleCalls[1]);
+        ShadowLooper.idleMainLooper(0);
+        assertEquals(0, mListener.mFailures + mListener.mSuccesses);
+        assertTrue(mValidator.isValidating());
+
+        // The superseding validation runs all the rules and reports
+        mExecutor.runAll();
+        ShadowLooper.idleMainLooper(0);
+        assertEquals(2, ruleCalls[0]);
+        assertEquals(1, ruleCalls[1]);
+        assertEquals(1, mListener.mFailures);
+        assertFalse(mValidator.isValidating());
+    }
+
+    @Test
+    public void testStaleResultDropped() {
+        mValidator.validate(true);
+        ShadowLooper.pauseMainLooper();
+        try {
+            // The result is posted, and superseded before it reaches the main thread
+            mExecutor.runAll();
+            mForm.mName.setText("Name");
+            mValidator.validate(true);
+            ShadowLooper.idleMainLooper(0);
+            assertEquals(0, mListener.mFailures + mListener.mSuccesses);
+
+            mExecutor.runAll();
+            ShadowLooper.idleMainLooper(0);
+            assertEquals(0, mListener.mFailures);
+            assertEquals(1, mListener.mSuccesses);
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+
+        // Cancelled after it was posted
+        ShadowLooper.pauseMainLooper();
+        try {
+            mValidator.validate(true);
+            mExecutor.runAll();
+            assertTrue(mValidator.cancelAsync());
+            ShadowLooper.idleMainLooper(0);
+            assertEquals(1, mListener.mSuccesses);
+        } finally {
+            ShadowLooper.unPauseMainLooper();
+        }
+    }
+
+    @Test
+    public void testCancelAsync() {
+        assertFalse(mValidator.isValidating());
+        assertFalse(mValidator.cancelAsync());
+
+        // Pending
+        mValidator.setDebounceDelay(DEBOUNCE_DELAY_MILLIS);
+        mValidator.validate(true);
+        assertTrue(mValidator.isValidating());
+        assertTrue(mValidator.cancelAsync());
+        assertFalse(mValidator.isValidating());
+        assertFalse(mValidator.cancelAsync());
+        ShadowLooper.idleMainLooper(DEBOUNCE_DELAY_MILLIS);
+        assertEquals(0, mExecutor.mQueue.size());
+
+        // Queued on the executor
+        mValidator.setDebounceDelay(0);
+        mValidator.validate(true);
+        assertTrue(mValidator.isValidating());
+        assertTrue(mValidator.cancelAsync());
+        mExecutor.runAll();
+        ShadowLooper.idleMainLooper(0);
+        assertEquals(0, mListener.mFailures + mListener.mSuccesses);
+        assertFalse(mValidator.isValidating());
+
+        // Synchronous validations are not cancelled
+        mValidator.validate();
+        assertEquals(1, mListener.mFailures);
+        assertFalse(mValidator.cancelAsync());
+    }
+
+    static class Form {
+        @NotEmpty
+        EditText mName;
+    }
+
+    static class Listener implements Validator.ValidationListener {
+        int mSuccesses;
+        int mFailures;
+
+        @Override
+        public void onValidationSucceeded() {
+            mSuccesses++;
+        }
+
+        @Override
+        public void onValidationFailed(final List<ValidationError> errors) {
+            mFailures++;
+        }
+    }
+
+    abstract static class TestRule extends QuickRule<EditText> {
+        @Override
+        public String getMessage(final Context context) {
+            return "Invalid";
+        }
+    }
+
+    // Runs the validations on the test thread when told to
+    static class QueueExecutor implements Executor {
+        final List<Runnable> mQueue = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(final Runnable runnable) {
+            mQueue.add(runnable);
+        }
+
+        void runNext() {
+            mQueue.remove(0).run();
+        }
+
+        void runAll() {
+            while (!mQueue.isEmpty()) {
+                runNext();
+            }
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar;
+
+import android.app.Activity;
+import android.util.Pair;
+import android.view.View;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+
+import com.mobsandgeeks.saripaar.adapter.ViewDataAdapter;
+import com.mobsandgeeks.saripaar.annotation.Checked;
+import com.mobsandgeeks.saripaar.annotation.ConfirmPassword;
+import com.mobsandgeeks.saripaar.annotation.NotEmpty;
+import com.mobsandgeeks.saripaar.annotation.Password;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sinia.com.linkfarm.BuildConfig;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that incremental validation runs the rules of a {@link View} again when it changes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class IncrementalValidationTest {
+
+    @Test
+    public void testEditedText() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        EditText editText = new EditText(activity);
+        show(activity, editText);
+
+        // A custom adapter returning the live text, which is edited in place
+        NotEmpty notEmpty = Form.class.getDeclaredField("mName").getAnnotation(NotEmpty.class);
+        Rule rule = new AnnotationRule<NotEmpty, CharSequence>(notEmpty) {
+            @Override
+            public boolean isValid(final CharSequence text) {
+                return text.length() > 0;
+            }
+        };
+        ViewDataAdapter dataAdapter = new ViewDataAdapter<EditText, CharSequence>() {
+            @Override
+            public CharSequence getData(final EditText view) {
+                return view.getText();
+            }
+        };
+        ArrayList<Pair<Rule, ViewDataAdapter>> ruleAdapterPairs =
+                new ArrayList<Pair<Rule, ViewDataAdapter>>();
+        ruleAdapterPairs.add(new Pair<Rule, ViewDataAdapter>(rule, dataAdapter));
+        Map<View, ArrayList<Pair<Rule, ViewDataAdapter>>> viewRulesMap =
+                new LinkedHashMap<View, ArrayList<Pair<Rule, ViewDataAdapter>>>();
+        viewRulesMap.put(editText, ruleAdapterPairs);
+
+        // Baseline, the empty text fails without being reported
+        IncrementalValidation incrementalValidation =
+                new IncrementalValidation(new ValidationContext());
+        assertTrue(incrementalValidation.validate(viewRulesMap).isEmpty());
+
+        editText.getText().append("a");
+        incrementalValidation.markChanged(editText);
+        assertTrue(incrementalValidation.validate(viewRulesMap).isEmpty());
+
+        editText.getText().clear();
+        incrementalValidation.markChanged(editText);
+        IncrementalValidation.Changes changes = incrementalValidation.validate(viewRulesMap);
+        assertEquals(1, changes.errors.size());
+        assertTrue(editText == changes.errors.get(0).getView());
+
+        editText.getText().append("b");
+        incrementalValidation.markChanged(editText);
+        changes = incrementalValidation.validate(viewRulesMap);
+        assertTrue(changes.errors.isEmpty());
+        assertEquals(1, changes.passedViews.size());
+        assertTrue(editText == changes.passedViews.get(0));
+    }
+
+    @Test
+    public void testCompoundButton() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        Form form = new Form();
+        form.mName = new EditText(activity);
+        form.mAccept = new CheckBox(activity);
+        show(activity, form.mName, form.mAccept);
+
+        final List<ValidationError> errors = new ArrayList<ValidationError>();
+        final List<View> passedViews = new ArrayList<View>();
+        Validator validator = new Validator(form);
+        validator.startIncrementalValidation(new Validator.IncrementalValidationListener() {
+            @Override
+            public void onValidationChanged(final List<ValidationError> newErrors,
+                    final List<View> newPassedViews) {
+                errors.addAll(newErrors);
+                passedViews.addAll(newPassedViews);
+            }
+        }, true);
+
+        // CompoundButtons are TextViews, checking them does not change their text
+        form.mAccept.setChecked(true);
+        form.mAccept.setChecked(false);
+        assertEquals(1, errors.size());
+        assertTrue(form.mAccept == errors.get(0).getView());
+
+        form.mAccept.setChecked(true);
+        assertEquals(1, passedViews.size());
+        assertTrue(form.mAccept == passedViews.get(0));
+
+        validator.stopIncrementalValidation();
+        form.mAccept.setChecked(false);
+        assertEquals(1, errors.size());
+        assertEquals(1, passedViews.size());
+    }
+
+    @Test
+    public void testCompoundButtonListenerKept() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        Form form = new Form();
+        form.mName = new EditText(activity);
+        form.mAccept = new CheckBox(activity);
+        show(activity, form.mName, form.mAccept);
+
+        final List<ValidationError> errors = new ArrayList<ValidationError>();
+        final Validator validator = new Validator(form);
+        final AtomicInteger checkedChanges = new AtomicInteger();
+        form.mAccept.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(final CompoundButton buttonView,
+                    final boolean isChecked) {
+                checkedChanges.incrementAndGet();
+                validator.notifyViewChanged(buttonView);
+            }
+        });
+        validator.startIncrementalValidation(new Validator.IncrementalValidationListener() {
+            @Override
+            public void onValidationChanged(final List<ValidationError> newErrors,
+                    final List<View> newPassedViews) {
+                errors.addAll(newErrors);
+            }
+        });
+
+        // The app's listener is not replaced, it reports the changes
+        form.mAccept.setChecked(true);
+        form.mAccept.setChecked(false);
+        assertEquals(2, checkedChanges.get());
+        assertEquals(1, errors.size());
+        assertTrue(form.mAccept == errors.get(0).getView());
+    }
+
+    @Test
+    public void testContextualRule() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        PasswordForm form = new PasswordForm();
+        form.mPassword = new EditText(activity);
+        form.mConfirmPassword = new EditText(activity);
+        form.mPassword.setText("secret");
+        form.mConfirmPassword.setText("secret");
+        show(activity, form.mPassword, form.mConfirmPassword);
+
+        final List<ValidationError> errors = new ArrayList<ValidationError>();
+        final List<View> passedViews = new ArrayList<View>();
+        Validator validator = new Validator(form);
+        validator.startIncrementalValidation(new Validator.IncrementalValidationListener() {
+            @Override
+            public void onValidationChanged(final List<ValidationError> newErrors,
+                    final List<View> newPassedViews) {
+                errors.addAll(newErrors);
+                passedViews.addAll(newPassedViews);
+            }
+        });
+
+        // The confirmation read the password, it runs again when only the password changes
+        form.mPassword.setText("secrets");
+        assertEquals(1, errors.size());
+        assertTrue(form.mConfirmPassword == errors.get(0).getView());
+        assertTrue(passedViews.isEmpty());
+
+        form.mPassword.setText("secret");
+        assertEquals(1, errors.size());
+        assertEquals(1, passedViews.size());
+        assertTrue(form.mConfirmPassword == passedViews.get(0));
+    }
+
+    @Test
+    public void testHiddenView() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        Form form = new Form();
+        form.mName = new EditText(activity);
+        form.mAccept = new CheckBox(activity);
+        form.mAccept.setChecked(true);
+        show(activity, form.mName, form.mAccept);
+
+        final List<ValidationError> errors = new ArrayList<ValidationError>();
+        final List<View> passedViews = new ArrayList<View>();
+        Validator validator = new Validator(form);
+        validator.startIncrementalValidation(new Validator.IncrementalValidationListener() {
+            @Override
+            public void onValidationChanged(final List<ValidationError> newErrors,
+                    final List<View> newPassedViews) {
+                errors.addAll(newErrors);
+                passedViews.addAll(newPassedViews);
+            }
+        });
+        form.mName.setText("a");
+        form.mName.setText("");
+        assertEquals(1, errors.size());
+
+        // A failing view is not reported as passed while hidden
+        form.mName.setVisibility(View.GONE);
+        form.mName.setText("");
+        assertEquals(1, errors.size());
+        assertTrue(passedViews.isEmpty());
+
+        // Shown again without being edited, it still fails
+        form.mName.setVisibility(View.VISIBLE);
+        validator.notifyViewChanged(form.mAccept);
+        assertEquals(1, errors.size());
+        assertTrue(passedViews.isEmpty());
+
+        // Edited while hidden, it is validated again once shown
+        form.mName.setVisibility(View.GONE);
+        form.mName.setText("b");
+        assertTrue(passedViews.isEmpty());
+        form.mName.setVisibility(View.VISIBLE);
+        validator.notifyViewChanged(form.mAccept);
+        assertEquals(1, passedViews.size());
+        assertTrue(form.mName == passedViews.get(0));
+    }
+
+    @Test
+    public void testDoesNotWaitForAsyncValidation() throws Exception {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        Form form = new Form();
+        form.mName = new EditText(activity);
+        form.mAccept = new CheckBox(activity);
+        show(activity, form.mName, form.mAccept);
+
+        final List<ValidationError> errors = new ArrayList<ValidationError>();
+        final Validator validator = new Validator(form);
+        validator.startIncrementalValidation(new Validator.IncrementalValidationListener() {
+            @Override
+            public void onValidationChanged(final List<ValidationError> newErrors,
+                    final List<View> newPassedViews) {
+                errors.addAll(newErrors);
+            }
+        });
+
+        // Holds the Validator like a running asynchronous validation
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch edited = new CountDownLatch(1);
+        final AtomicBoolean released = new AtomicBoolean();
+        Thread asyncValidation = new Thread() {
+            @Override
+            public void run() {
+                synchronized (validator) {
+                    locked.countDown();
+                    try {
+                        edited.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // Release
+                    }
+                    released.set(true);
+                }
+            }
+        };
+        asyncValidation.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        form.mName.setText("a");
+        form.mName.setText("");
+        assertFalse(released.get());
+        edited.countDown();
+        asyncValidation.join();
+
+        assertEquals(1, errors.size());
+        assertTrue(form.mName == errors.get(0).getView());
+    }
+
+    /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *  Private Methods
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+    private static void show(final Activity activity, final View... views) {
+        // Rules of views that are not shown do not run
+        LinearLayout layout = new LinearLayout(activity);
+        for (View view : views) {
+            layout.addView(view);
+        }
+        activity.setContentView(layout);
+    }
+
+    static class Form {
+        @NotEmpty
+        EditText mName;
+
+        @Checked
+        CheckBox mAccept;
+    }
+
+    static class PasswordForm {
+        @Password
+        EditText mPassword;
+
+        @ConfirmPassword
+        EditText mConfirmPassword;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar;
+
+import android.app.Activity;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+
+import com.mobsandgeeks.saripaar.adapter.ViewDataAdapter;
+import com.mobsandgeeks.saripaar.annotation.ConfirmPassword;
+import com.mobsandgeeks.saripaar.annotation.NotEmpty;
+import com.mobsandgeeks.saripaar.annotation.Password;
+import com.mobsandgeeks.saripaar.annotation.ValidateUsing;
+import com.mobsandgeeks.saripaar.rule.ConfirmPasswordRule;
+import com.mobsandgeeks.saripaar.rule.NotEmptyRule;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.List;
+
+import sinia.com.linkfarm.BuildConfig;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the {@link ValidationPlan} of a controller class is shared by its
+ * {@link Validator}s, along with its stock rules, and discarded by registrations.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class ValidationPlanTest {
+
+    @BeforeClass
+    public static void registerRejected() {
+        Validator.registerAnnotation(Rejected.class);
+    }
+
+    @Test
+    public void testSharedPlan() {
+        ValidationPlan plan = ValidationPlan.get(Form.class);
+        assertSame(plan, ValidationPlan.get(Form.class));
+
+        List<ValidationError> errors = validate(newForm());
+        List<ValidationError> otherErrors = validate(newForm());
+        assertSame(plan, ValidationPlan.get(Form.class));
+
+        // Stock rules are shared by the Validators of the class
+        assertSame(getFailedRule(errors, NotEmptyRule.class),
+                getFailedRule(otherErrors, NotEmptyRule.class));
+
+        // Custom and contextual rules are created for each Validator
+        assertNotSame(getFailedRule(errors, RejectedRule.class),
+                getFailedRule(otherErrors, RejectedRule.class));
+        assertNotSame(getFailedRule(errors, ConfirmPasswordRule.class),
+                getFailedRule(otherErrors, ConfirmPasswordRule.class));
+    }
+
+    @Test
+    public void testRegistrationClearsPlans() {
+        ValidationPlan plan = ValidationPlan.get(Form.class);
+        Validator.registerAnnotation(Rejected.class);
+        ValidationPlan newPlan = ValidationPlan.get(Form.class);
+        assertNotSame(plan, newPlan);
+
+        Validator.registerAdapter(EditText.class, new ViewDataAdapter<EditText, String>() {
+            @Override
+            public String getData(final EditText editText) {
+                return editText.getText().toString();
+            }
+        });
+        assertNotSame(newPlan, ValidationPlan.get(Form.class));
+
+        // Plans made after a registration are kept again
+        newPlan = ValidationPlan.get(Form.class);
+        assertSame(newPlan, ValidationPlan.get(Form.class));
+    }
+
+    /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *  Private Methods
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+    private static Form newForm() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        Form form = new Form();
+        form.mName = new EditText(activity);
+        form.mPassword = new EditText(activity);
+        form.mConfirmPassword = new EditText(activity);
+        form.mPassword.setText("secret");
+
+        // Rules of views that are not shown do not run
+        LinearLayout layout = new LinearLayout(activity);
+        layout.addView(form.mName);
+        layout.addView(form.mPassword);
+        layout.addView(form.mConfirmPassword);
+        activity.setContentView(layout);
+
+        return form;
+    }
+
+    private static List<ValidationError> validate(final Form form) {
+        final List<ValidationError> errors = new ArrayList<ValidationError>();
+        Validator validator = new Validator(form);
+        validator.setValidationListener(new Validator.ValidationListener() {
+            @Override
+            public void onValidationSucceeded() {
+                fail("Expected the name and password confirmation to fail");
+            }
+
+            @Override
+            public void onValidationFailed(final List<ValidationError> newErrors) {
+                errors.addAll(newErrors);
+            }
+        });
+        validator.validate();
+
+        return errors;
+    }
+
+    private static Rule getFailedRule(final List<ValidationError> errors,
+            final Class<? extends Rule> ruleType) {
+        for (ValidationError error : errors) {
+            for (Rule rule : error.getFailedRules()) {
+                if (ruleType.isInstance(rule)) {
+                    return rule;
+                }
+            }
+        }
+        fail(ruleType.getSimpleName() + " did not fail");
+        return null;
+    }
+
+    static class Form {
+        @NotEmpty
+        @Rejected
+        EditText mName;
+
+        @Password
+        EditText mPassword;
+
+        @ConfirmPassword
+        EditText mConfirmPassword;
+    }
+
+    @ValidateUsing(RejectedRule.class)
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.FIELD)
+    public @interface Rejected {
+        public int sequence()       default -1;
+        public int messageResId()   default -1;
+        public String message()     default "Always rejected";
+    }
+
+    // A custom rule, which may keep state
+    public static class RejectedRule extends AnnotationRule<Rejected, String> {
+        protected RejectedRule(final Rejected rejected) {
+            super(rejected);
+        }
+
+        @Override
+        public boolean isValid(final String text) {
+            return false;
+        }
+    }
+}
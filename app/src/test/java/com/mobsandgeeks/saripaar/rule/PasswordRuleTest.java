@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar.rule;
+
+import com.mobsandgeeks.saripaar.annotation.Password;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the character class scan of {@link PasswordRule} against the regular expressions it
+ * replaced, compiled with the Unicode classes and line terminators of Android.
+ */
+public class PasswordRuleTest {
+    // The expressions PasswordRule used to match passwords with
+    private static final Map<Password.Scheme, Pattern> SCHEME_PATTERNS =
+            new EnumMap<Password.Scheme, Pattern>(Password.Scheme.class);
+
+    // Android's '.' does not match any of its line terminators
+    private static final String ANDROID_DOT = "[^\\n\\x0B\\f\\r\\u0085\\u2028\\u2029]";
+
+    static {
+        SCHEME_PATTERNS.put(Password.Scheme.ANY, compile(".+"));
+        SCHEME_PATTERNS.put(Password.Scheme.ALPHA, compile("\\w+"));
+        SCHEME_PATTERNS.put(Password.Scheme.ALPHA_MIXED_CASE,
+                compile("(?=.*[a-z])(?=.*[A-Z]).+"));
+        SCHEME_PATTERNS.put(Password.Scheme.NUMERIC, compile("\\d+"));
+        SCHEME_PATTERNS.put(Password.Scheme.ALPHA_NUMERIC,
+                compile("(?=.*[a-zA-Z])(?=.*[\\d]).+"));
+        SCHEME_PATTERNS.put(Password.Scheme.ALPHA_NUMERIC_MIXED_CASE,
+                compile("(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d]).+"));
+        SCHEME_PATTERNS.put(Password.Scheme.ALPHA_NUMERIC_SYMBOLS,
+                compile("(?=.*[a-zA-Z])(?=.*[\\d])(?=.*([^\\w])).+"));
+        SCHEME_PATTERNS.put(Password.Scheme.ALPHA_NUMERIC_MIXED_CASE_SYMBOLS,
+                compile("(?=.*[a-z])(?=.*[A-Z])(?=.*[\\d])(?=.*([^\\w])).+"));
+    }
+
+    // One character of each class, and those the classes are easily confused with
+    private static final String FUZZ_ALPHABET =
+            "aZ0_!é\n\r\u000b\f\u0085\u2028\u2029 \t٣😀\ud83d‿\u200cⅫ\u0301Ⓐ𝐀";
+
+    private static final String[] CORPUS = {
+        "",
+        "a",
+        "password",
+        "PASSWORD",
+        "Password",
+        "12345678",
+        "pass1234",
+        "Pass1234",
+        "pass_1234",
+        "pass 1234",
+        "Pass 1234",
+        "Pass@1234",
+        "päss1234",
+        "café",
+        "Café1234!",
+        "٣٤٥",
+        "pass٣٤٥",
+        "Pass1234\n",
+        "\nPass1234",
+        "Pass\r\n1234!",
+    };
+
+    @Test
+    public void testCorpus() {
+        for (String password : CORPUS) {
+            assertSchemes(password);
+        }
+    }
+
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20160803L);
+        for (int n = 0; n < 300000; n++) {
+            StringBuilder password = new StringBuilder();
+            int length = random.nextInt(7);
+            for (int i = 0; i < length; i++) {
+                password.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+            }
+            assertSchemes(password.toString());
+        }
+    }
+
+    @Test
+    public void testCharacterClasses() {
+        assertEquals(0, PasswordRule.getCharacterClasses(""));
+        assertEquals(PasswordRule.LOWER_CASE | PasswordRule.UPPER_CASE | PasswordRule.DIGIT,
+                PasswordRule.getCharacterClasses("Pass1234"));
+        assertEquals(PasswordRule.UNDERSCORE | PasswordRule.SYMBOL,
+                PasswordRule.getCharacterClasses("_ !"));
+        assertEquals(PasswordRule.OTHER_LETTER, PasswordRule.getCharacterClasses("éß\u0301"));
+        assertEquals(PasswordRule.DIGIT, PasswordRule.getCharacterClasses("1٣"));
+        assertEquals(PasswordRule.LINE_TERMINATOR, PasswordRule.getCharacterClasses("\r\n\f"));
+    }
+
+    @Test
+    public void testStrength() {
+        assertEquals(PasswordRule.VERY_WEAK, PasswordRule.getStrength(""));
+        assertEquals(PasswordRule.VERY_WEAK, PasswordRule.getStrength("Ab1!"));
+        assertEquals(0, PasswordRule.getStrength("abcdef"));
+        assertEquals(1, PasswordRule.getStrength("abcdefgh"));
+        assertEquals(3, PasswordRule.getStrength("Abcdefg1"));
+        assertEquals(PasswordRule.STRONG, PasswordRule.getStrength("Abcdefgh1!"));
+        assertEquals(3, PasswordRule.getStrength("abcdefghijklmnop"));
+        assertEquals(PasswordRule.STRONG, PasswordRule.getStrength("Abcdefghijklmnop"));
+    }
+
+    /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *  Private Methods
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+    private static Pattern compile(final String regex) {
+        return Pattern.compile(regex.replace(".", ANDROID_DOT), Pattern.UNICODE_CHARACTER_CLASS);
+    }
+
+    private static void assertSchemes(final String password) {
+        for (Password.Scheme scheme : Password.Scheme.values()) {
+            boolean expected = SCHEME_PATTERNS.get(scheme).matcher(password).matches();
+            assertEquals(scheme + " [" + password + "]", expected,
+                    PasswordRule.matches(scheme, password));
+            assertEquals(scheme + " [" + password + "]", expected,
+                    PasswordRule.matches(scheme, new StringBuilder(password)));
+        }
+    }
+}
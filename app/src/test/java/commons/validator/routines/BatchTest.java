@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import commons.validator.routines.checkdigit.EAN13CheckDigit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the batch validation of the e-mail, URL, domain, IP address and
+ * code validators against validating the values one at a time.
+ *
+ * @version $Revision$
+ */
+public class BatchTest {
+
+    private static final String[] SAMPLES = {
+        "jsmith@apache.org",
+        "jsmith@apache.",
+        "http://www.apache.org/",
+        "http://www.apache.org:80000/",
+        "apache.org",
+        "apache..org",
+        "192.168.0.1",
+        "256.168.0.1",
+        "2001:db8::ff00:42:8329",
+        "9780072129519",
+        "9780072129510",
+        "",
+        null,
+    };
+
+    // more than one chunk, with a partial last chunk
+    private static final int BATCH_SIZE = Batch.CHUNK_SIZE * 3 + 17;
+
+    private static final EmailValidator EMAIL_VALIDATOR = EmailValidator.getInstance();
+    private static final UrlValidator URL_VALIDATOR = UrlValidator.getInstance();
+    private static final DomainValidator DOMAIN_VALIDATOR = DomainValidator.getInstance();
+    private static final InetAddressValidator INET_ADDRESS_VALIDATOR = InetAddressValidator.getInstance();
+    private static final CodeValidator EAN13_VALIDATOR =
+            new CodeValidator("^([0-9]{13})$", EAN13CheckDigit.EAN13_CHECK_DIGIT);
+
+    @Test
+    public void testNullValue() {
+        // the batch entry points must not make a null argument ambiguous
+        assertFalse(EMAIL_VALIDATOR.isValid(null));
+        assertFalse(URL_VALIDATOR.isValid(null));
+        assertFalse(DOMAIN_VALIDATOR.isValid(null));
+        assertFalse(INET_ADDRESS_VALIDATOR.isValid(null));
+        assertFalse(EAN13_VALIDATOR.isValid(null));
+    }
+
+    @Test
+    public void testSingleThread() {
+        CharSequence[] values = newBatch(BATCH_SIZE);
+        assertBatch(values, null);
+        assertTrue(EMAIL_VALIDATOR.isValidAll(values).cardinality() > 0);
+        assertTrue(EAN13_VALIDATOR.isValidAll(values).cardinality() > 0);
+    }
+
+    @Test
+    public void testSmallBatch() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertBatch(newBatch(SAMPLES.length), executor);
+            assertBatch(new CharSequence[0], executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testThreadPool() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertBatch(newBatch(BATCH_SIZE), executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutorRunningNoTasks() {
+        Executor discarding = new Executor() {
+            public void execute(Runnable command) {
+                // never runs the command
+            }
+        };
+        assertBatch(newBatch(BATCH_SIZE), discarding);
+
+        Executor rejecting = new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+        assertBatch(newBatch(BATCH_SIZE), rejecting);
+    }
+
+    @Test
+    public void testCalledFromOwnSingleThreadExecutor() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final CharSequence[] values = newBatch(BATCH_SIZE);
+            Future<Integer> valid = executor.submit(new Callable<Integer>() {
+                public Integer call() {
+                    return Integer.valueOf(EMAIL_VALIDATOR.isValidAll(values,
+                            new boolean[values.length], executor));
+                }
+            });
+            assertEquals(EMAIL_VALIDATOR.isValidAll(values).cardinality(),
+                    valid.get(10, TimeUnit.SECONDS).intValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailures() {
+        try {
+            EMAIL_VALIDATOR.isValidAll(null);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            EMAIL_VALIDATOR.isValidAll(new CharSequence[2], new boolean[1]);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static CharSequence[] newBatch(int size) {
+        Random random = new Random(20160803L);
+        CharSequence[] values = new CharSequence[size];
+        for (int i = 0; i < size; i++) {
+            String sample = SAMPLES[random.nextInt(SAMPLES.length)];
+            values[i] = sample == null || random.nextBoolean() ? sample : new StringBuilder(sample);
+        }
+        return values;
+    }
+
+    private static void assertBatch(CharSequence[] values, Executor executor) {
+        boolean[] emails = new boolean[values.length];
+        boolean[] urls = new boolean[values.length];
+        boolean[] domains = new boolean[values.length];
+        boolean[] inetAddresses = new boolean[values.length];
+        boolean[] codes = new boolean[values.length];
+        int validEmails = EMAIL_VALIDATOR.isValidAll(values, emails, executor);
+        int validUrls = URL_VALIDATOR.isValidAll(values, urls, executor);
+        int validDomains = DOMAIN_VALIDATOR.isValidAll(values, domains, executor);
+        int validInetAddresses = INET_ADDRESS_VALIDATOR.isValidAll(values, inetAddresses, executor);
+        int validCodes = EAN13_VALIDATOR.isValidAll(values, codes, executor);
+
+        BitSet emailSet = EMAIL_VALIDATOR.isValidAll(values);
+        int expectedEmails = 0;
+        int expectedUrls = 0;
+        int expectedDomains = 0;
+        int expectedInetAddresses = 0;
+        int expectedCodes = 0;
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i] == null ? null : values[i].toString();
+            boolean email = EMAIL_VALIDATOR.isValid(value);
+            boolean url = URL_VALIDATOR.isValid(value);
+            boolean domain = DOMAIN_VALIDATOR.isValid(value);
+            boolean inetAddress = INET_ADDRESS_VALIDATOR.isValid(value);
+            boolean code = EAN13_VALIDATOR.isValid(value);
+            assertEquals("email [" + value + "]", email, emails[i]);
+            assertEquals("email set [" + value + "]", email, emailSet.get(i));
+            assertEquals("url [" + value + "]", url, urls[i]);
+            assertEquals("domain [" + value + "]", domain, domains[i]);
+            assertEquals("inet address [" + value + "]", inetAddress, inetAddresses[i]);
+            assertEquals("code [" + value + "]", code, codes[i]);
+            expectedEmails += email ? 1 : 0;
+            expectedUrls += url ? 1 : 0;
+            expectedDomains += domain ? 1 : 0;
+            expectedInetAddresses += inetAddress ? 1 : 0;
+            expectedCodes += code ? 1 : 0;
+        }
+        assertEquals(expectedEmails, validEmails);
+        assertEquals(expectedUrls, validUrls);
+        assertEquals(expectedDomains, validDomains);
+        assertEquals(expectedInetAddresses, validInetAddresses);
+        assertEquals(expectedCodes, validCodes);
+    }
+}
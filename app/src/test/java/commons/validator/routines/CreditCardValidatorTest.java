@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.Random;
+
+import commons.validator.routines.checkdigit.EAN13CheckDigit;
+import commons.validator.routines.checkdigit.LuhnCheckDigit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the {@link CreditCardValidator} prefix trie against the
+ * card type regular expressions it replaced.
+ *
+ * @version $Revision$
+ */
+public class CreditCardValidatorTest {
+
+    private static final String[] CORPUS = {
+        "4417123456789113",
+        "4222222222222",
+        "4111111111111111",
+        " 4111111111111111 ",
+        "4111 1111 1111 1111",
+        "411111111111111",
+        "378282246310005",
+        "371449635398431",
+        "5105105105105100",
+        "5555555555554444",
+        "6011111111111117",
+        "6011000990139424",
+        "6445644564456445",
+        "6500000000000002",
+        "30569309025904",
+        "38520000023237",
+        "36000000000008",
+        "30950000000000",
+        "6212345678901265",
+        "62123456789012347",
+        "0000000000000000",
+        "",
+        " ",
+        "abc",
+        "４１１１１１１１１１１１１１１１",
+    };
+
+    private static final long[] OPTIONS = {
+        CreditCardValidator.NONE,
+        CreditCardValidator.VISA,
+        CreditCardValidator.AMEX + CreditCardValidator.DINERS,
+        CreditCardValidator.AMEX + CreditCardValidator.VISA + CreditCardValidator.MASTERCARD
+                + CreditCardValidator.DISCOVER + CreditCardValidator.DINERS,
+    };
+
+    private static final CodeValidator[] VALIDATORS = {
+        CreditCardValidator.VISA_VALIDATOR,
+        CreditCardValidator.AMEX_VALIDATOR,
+        CreditCardValidator.MASTERCARD_VALIDATOR,
+        CreditCardValidator.DISCOVER_VALIDATOR,
+        CreditCardValidator.DINERS_VALIDATOR,
+    };
+
+    private static final long[] FLAGS = {
+        CreditCardValidator.VISA,
+        CreditCardValidator.AMEX,
+        CreditCardValidator.MASTERCARD,
+        CreditCardValidator.DISCOVER,
+        CreditCardValidator.DINERS,
+    };
+
+    @Test
+    public void testCorpus() {
+        for (int i = 0; i < CORPUS.length; i++) {
+            for (int o = 0; o < OPTIONS.length; o++) {
+                assertSame(OPTIONS[o], CORPUS[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20160803L);
+        String[] prefixes = {"4", "34", "37", "30", "3095", "36", "38", "5", "6011", "64", "65", "62", ""};
+        int[] lengths = {13, 14, 15, 16};
+        StringBuffer buffer = new StringBuffer();
+        for (int n = 0; n < 20000; n++) {
+            buffer.setLength(0);
+            buffer.append(prefixes[random.nextInt(prefixes.length)]);
+            int length = lengths[random.nextInt(lengths.length)];
+            while (buffer.length() < length - 1) {
+                buffer.append((char) ('0' + random.nextInt(10)));
+            }
+            // make the check digit valid most of the time
+            String code = buffer.toString();
+            try {
+                if (random.nextInt(4) > 0) {
+                    code += LuhnCheckDigit.LUHN_CHECK_DIGIT.calculate(code);
+                } else {
+                    code += (char) ('0' + random.nextInt(10));
+                }
+            } catch (Exception e) {
+                code += '0';
+            }
+            for (int o = 0; o < OPTIONS.length; o++) {
+                assertSame(OPTIONS[o], code);
+            }
+        }
+    }
+
+    @Test
+    public void testCardType() {
+        CreditCardValidator validator = new CreditCardValidator();
+        assertEquals(CreditCardType.VISA, validator.getCardType("4111111111111111"));
+        assertEquals(CreditCardType.AMEX, validator.getCardType("378282246310005"));
+        assertNull(validator.getCardType("4111111111111112"));
+        assertNull(validator.getCardType("6212345678901265"));
+
+        validator = new CreditCardValidator(CreditCardValidator.UNIONPAY);
+        assertEquals(CreditCardType.UNIONPAY, validator.getCardType("6212345678901265"));
+        assertTrue(validator.isValid("62123456789012347"));
+        // Not all UnionPay cards pass the Luhn check
+        assertEquals(CreditCardType.UNIONPAY, validator.getCardType("6212345678901266"));
+        assertFalse(validator.isValid("621234567890126"));
+        assertFalse(validator.isValid("4111111111111111"));
+
+        CreditCardType jcb = new CreditCardType("JCB", new String[] {"3528-3589"}, new int[] {16},
+                LuhnCheckDigit.LUHN_CHECK_DIGIT);
+        validator.addAllowedCardType(jcb);
+        assertEquals(jcb, validator.getCardType("3530111333300000"));
+        assertEquals(jcb, validator.getCardType("3566002020360505"));
+        assertNull(validator.getCardType("3590000000000000"));
+    }
+
+    @Test
+    public void testSkipWhitespace() {
+        Random random = new Random(20160803L);
+        String separators = " \t\n\u000B\f\r\u0001\u00A0-";
+        CodeValidator[] validators = {
+            CreditCardValidator.VISA_VALIDATOR,
+            new CodeValidator("^(9\\d{3}-\\d{4})$", null),
+        };
+        StringBuffer buffer = new StringBuffer();
+        for (int n = 0; n < 20000; n++) {
+            String card = CORPUS[random.nextInt(CORPUS.length)];
+            buffer.setLength(0);
+            for (int i = 0; i <= card.length(); i++) {
+                if (random.nextInt(4) == 0) {
+                    buffer.append(separators.charAt(random.nextInt(separators.length())));
+                }
+                if (i < card.length()) {
+                    buffer.append(card.charAt(i));
+                }
+            }
+            String value = buffer.toString();
+            String stripped = value.replaceAll("\\s", "");
+            for (int o = 0; o < OPTIONS.length; o++) {
+                CreditCardValidator validator = new CreditCardValidator(OPTIONS[o]);
+                String message = "options=" + OPTIONS[o] + " card=[" + value + "]";
+                assertEquals(message, validator.isValid(stripped), validator.isValid(value, true));
+                assertEquals(message, validator.isValid(value), validator.isValid(value, false));
+            }
+            CreditCardValidator validator = new CreditCardValidator(validators);
+            assertEquals(value, validator.isValid(stripped), validator.isValid(value, true));
+        }
+        assertTrue(new CreditCardValidator(validators).isValid("9 876-5432", true));
+
+        // other check digits than Luhn
+        CreditCardValidator ean = new CreditCardValidator(0);
+        ean.addAllowedCardType(new CreditCardType("EAN", new String[] {"97"}, new int[] {13},
+                EAN13CheckDigit.EAN13_CHECK_DIGIT));
+        assertTrue(ean.isValid("978 0072 129519", true));
+        assertTrue(ean.isValid(" 9780072129519 ", true));
+        assertFalse(ean.isValid("978 0072 129518", true));
+        assertFalse(ean.isValid("978 0072 129519", false));
+    }
+
+    private static void assertSame(long options, String card) {
+        boolean expected = false;
+        Object expectedResult = null;
+        for (int i = 0; i < VALIDATORS.length; i++) {
+            if ((options & FLAGS[i]) != 0 && VALIDATORS[i].isValid(card)) {
+                expected = true;
+                expectedResult = VALIDATORS[i].validate(card);
+                break;
+            }
+        }
+        CreditCardValidator validator = new CreditCardValidator(options);
+        String message = "options=" + options + " card=[" + card + "]";
+        assertEquals(message, expected, validator.isValid(card));
+        assertEquals(message, expectedResult, validator.validate(card));
+    }
+}
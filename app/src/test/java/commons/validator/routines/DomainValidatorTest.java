@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the {@link DomainValidator} label scanner against the regular
+ * expressions it replaced, and the TLD lists loaded at runtime.
+ *
+ * @version $Revision$
+ */
+public class DomainValidatorTest {
+
+    private static final String LABEL_63 =
+            "a23456789012345678901234567890123456789012345678901234567890123";
+
+    private static final String[] CORPUS = {
+        "apache.org",
+        "www.apache.org",
+        "WWW.APACHE.ORG",
+        "apache.org.",
+        "apache.org..",
+        ".apache.org",
+        "apache..org",
+        "apache",
+        "apache.",
+        "localhost",
+        "localhost.",
+        "machine.localdomain",
+        "1.2.3.4",
+        "1apache.org",
+        "apache.1org",
+        "apache.o-g",
+        "apache.org-",
+        "-apache.org",
+        "apache-.org",
+        "ap--ache.org",
+        "a.b",
+        "a.co",
+        "xn--d1abbgf6aiiy.xn--p1ai",
+        "президент.рф",
+        "apache.xn--",
+        "apache_org.org",
+        "apache org.org",
+        "apache.org\n",
+        "",
+        ".",
+        "..",
+        "-",
+        LABEL_63 + ".com",
+        LABEL_63 + "4.com",
+        LABEL_63,
+        LABEL_63 + "4",
+        "www." + LABEL_63,
+        "apache.invalidtld",
+    };
+
+    private static final String FUZZ_ALPHABET = "ab9Z.-_ .coмpg";
+
+    @Test
+    public void testCorpus() {
+        for (int i = 0; i < CORPUS.length; i++) {
+            assertSame(CORPUS[i]);
+        }
+    }
+
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20160803L);
+        String[] suffixes = {"", ".com", ".org.", ".localhost", ".x"};
+        StringBuffer buffer = new StringBuffer();
+        for (int n = 0; n < 20000; n++) {
+            buffer.setLength(0);
+            int length = random.nextInt(12);
+            for (int i = 0; i < length; i++) {
+                buffer.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+            }
+            buffer.append(suffixes[random.nextInt(suffixes.length)]);
+            assertSame(buffer.toString());
+        }
+    }
+
+    @Test
+    public void testUpdateTlds() throws IOException {
+        DomainValidator validator = DomainValidator.getInstance();
+        try {
+            DomainValidator.updateTlds(new StringReader(
+                    "# Version 2016080300, Last Updated Wed Aug  3 07:07:01 2016 UTC\n"
+                    + "\n"
+                    + "ARPA\n"
+                    + "  COM  \n"
+                    + "\n"
+                    + "# a comment between entries\n"
+                    + "DE\n"
+                    + "ZZ\n"
+                    + "NEWGTLD\n"
+                    + "XN--P1AI\n"));
+
+            assertTrue(validator.isValidInfrastructureTld("arpa"));
+            assertTrue(validator.isValidGenericTld("com"));
+            assertTrue(validator.isValidCountryCodeTld("de"));
+            assertTrue(validator.isValidGenericTld("newgtld"));
+            assertTrue(validator.isValidCountryCodeTld("xn--p1ai"));
+            assertTrue(validator.isValidCountryCodeTld("рф"));
+
+            // A new two letter TLD is a country code
+            assertTrue(validator.isValidCountryCodeTld("zz"));
+            assertFalse(validator.isValidGenericTld("zz"));
+
+            // TLDs missing from the list are gone, local TLDs are kept
+            assertFalse(validator.isValidTld("org"));
+            assertFalse(validator.isValidTld("uk"));
+            assertFalse(validator.isValidTld("#"));
+            assertTrue(validator.isValidLocalTld("localhost"));
+            assertTrue(validator.isValidLocalTld("localdomain"));
+            assertTrue(DomainValidator.getInstance(true).isValid("localhost"));
+
+            assertTrue(validator.isValidTld("COM"));
+            assertTrue(validator.isValidTld(".newgtld"));
+            assertTrue(validator.isValid("apache.zz"));
+            assertTrue(validator.isValid("www.apache.newgtld"));
+            assertFalse(validator.isValid("apache.org"));
+        } finally {
+            DomainValidator.resetTlds();
+        }
+
+        assertTrue(validator.isValidTld("org"));
+        assertFalse(validator.isValidTld("zz"));
+        assertFalse(validator.isValidTld("newgtld"));
+        assertTrue(validator.isValid("apache.org"));
+    }
+
+    @Test
+    public void testUpdateTldsRejectsInvalidList() throws IOException {
+        DomainValidator validator = DomainValidator.getInstance();
+        try {
+            DomainValidator.updateTlds(new StringReader("COM\nZZ\n"));
+            assertUpdateFails("COM\nORG\nBAD_TLD\nNET\n");
+            assertUpdateFails("COM\n-ORG\n");
+            assertUpdateFails("COM\nORG-\n");
+            assertUpdateFails("COM\n1ORG\n");
+            assertUpdateFails("COM\napache.org\n");
+            assertUpdateFails("# Version 2016080300\n\n");
+            assertUpdateFails("");
+
+            // The list loaded before is still in use
+            assertTrue(validator.isValidTld("zz"));
+            assertFalse(validator.isValidTld("org"));
+            assertFalse(validator.isValidTld("net"));
+        } finally {
+            DomainValidator.resetTlds();
+        }
+    }
+
+    private static void assertUpdateFails(String tlds) {
+        try {
+            DomainValidator.updateTlds(new StringReader(tlds));
+            fail("Expected IOException for [" + tlds + "]");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static void assertSame(String domain) {
+        DomainValidator validator = DomainValidator.getInstance();
+        DomainValidator local = DomainValidator.getInstance(true);
+        try {
+            DomainValidator.useRegex = true;
+            boolean valid = validator.isValid(domain);
+            boolean validLocal = local.isValid(domain);
+            boolean syntax = validator.isValidDomainSyntax(domain);
+            DomainValidator.useRegex = false;
+            assertEquals("isValid [" + domain + "]", valid, validator.isValid(domain));
+            assertEquals("isValid local [" + domain + "]", validLocal, local.isValid(domain));
+            assertEquals("isValidDomainSyntax [" + domain + "]", syntax, validator.isValidDomainSyntax(domain));
+        } finally {
+            DomainValidator.useRegex = false;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the {@link EmailValidator} scanner against the regular
+ * expressions it replaced.
+ *
+ * @version $Revision$
+ */
+public class EmailValidatorTest {
+
+    private static final String[] CORPUS = {
+        "jsmith@apache.org",
+        "jsmith@apache.com",
+        "jsmith@apache.net",
+        "jsmith@apache.info",
+        "jsmith@apache.",
+        "jsmith@apache.c",
+        "someone@yahoo.museum",
+        "someone@yahoo.mu-seum",
+        "jsmith@apache.invalidtld",
+        "joe1blow@apache.org",
+        "joe$blow@apache.org",
+        "joe&blow@apache.org",
+        "joe'blow@apache.org",
+        "joe.@apache.org",
+        ".joe@apache.org",
+        "joe..blow@apache.org",
+        "joe.blow@apache.org",
+        "joe@ap...ache.org",
+        "joe@apache.org.",
+        "joeblow @apache.org",
+        " joeblow@apache.org",
+        "\tjoeblow@apache.org \t",
+        "joeblow@apache.org\n",
+        "\njoeblow@apache.org",
+        "joe\nblow@apache.org",
+        "joeblow@apache.org ",
+        "joeblow@apache.org\u0085",
+        "joe blow@apache.org",
+        "joe\u0000blow@apache.org",
+        "joe\u007Fblow@apache.org",
+        "joe(blow@apache.org",
+        "joe,blow@apache.org",
+        "joe;blow@apache.org",
+        "joe:blow@apache.org",
+        "joe[blow@apache.org",
+        "joe\\blow@apache.org",
+        "joe\"blow@apache.org",
+        "\"joe.blow\"@apache.org",
+        "\"joe@blow\"@apache.org",
+        "\"joe blow\".smith@apache.org",
+        "\"joe\"\"blow\"@apache.org",
+        "\"joe\"blow@apache.org",
+        "\"joe@apache.org",
+        "\"\"@apache.org",
+        "joe@blow@apache.org",
+        "joe@apache.org@",
+        "joe@",
+        "@apache.org",
+        "@",
+        "joe@a",
+        "joe@.",
+        "joe@ ",
+        "joe@[127.0.0.1]",
+        "joe@[::1]",
+        "joe@[IPv6:::1]",
+        "joe@[999.0.0.1]",
+        "joe@[]",
+        "joe@localhost",
+        "joe@localhost.localdomain",
+        "joe@com",
+        "joe@xn--d1abbgf6aiiy.xn--p1ai",
+        "joe@президент.рф",
+        "джо@apache.org",
+        "",
+        " ",
+    };
+
+    private static final String FUZZ_ALPHABET = "ab. @\"\t\n[]:1'( ф";
+
+    @Test
+    public void testCorpus() {
+        for (int i = 0; i < CORPUS.length; i++) {
+            assertSame(CORPUS[i]);
+        }
+    }
+
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20160803L);
+        String[] suffixes = {"", "@apache.org", "@[1.2.3.4]", "@localhost", ".org", " \n"};
+        StringBuffer buffer = new StringBuffer();
+        for (int n = 0; n < 50000; n++) {
+            buffer.setLength(0);
+            int length = random.nextInt(14);
+            for (int i = 0; i < length; i++) {
+                buffer.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+            }
+            buffer.append(suffixes[random.nextInt(suffixes.length)]);
+            assertSame(buffer.toString());
+        }
+    }
+
+    @Test
+    public void testLongUser() {
+        StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < 20000; i++) {
+            buffer.append("ab.");
+        }
+        buffer.append("c@apache.org");
+        assertTrue(EmailValidator.getInstance().isValid(buffer.toString()));
+        buffer.insert(0, '(');
+        assertFalse(EmailValidator.getInstance().isValid(buffer.toString()));
+    }
+
+    @Test
+    public void testSubclassHooks() {
+        EmailValidator validator = new EmailValidator(false) {
+            protected boolean isValidDomain(String domain) {
+                return "example".equals(domain);
+            }
+        };
+        assertTrue(validator.isValid("joe@example"));
+        assertFalse(validator.isValid("joe@apache.org"));
+        assertFalse(EmailValidator.getInstance().isValid("joe@example"));
+    }
+
+    private static void assertSame(String email) {
+        assertSame(false, email);
+        assertSame(true, email);
+    }
+
+    private static void assertSame(boolean allowLocal, String email) {
+        boolean expected = new RegexEmailValidator(allowLocal).isValid(email);
+        EmailValidator validator = EmailValidator.getInstance(allowLocal);
+        assertEquals("local=" + allowLocal + " email=[" + email + "]", expected, validator.isValid(email));
+        String padded = "<" + email + ">";
+        assertEquals("slice [" + email + "]", expected, validator.isValid(padded, 1, email.length()));
+    }
+
+    /**
+     * The regular expression based implementation of {@link EmailValidator#isValid(String)}.
+     */
+    private static class RegexEmailValidator {
+
+        private static final String SPECIAL_CHARS = "\\p{Cntrl}\\(\\)<>@,;:'\\\\\\\"\\.\\[\\]";
+        private static final String VALID_CHARS = "[^\\s" + SPECIAL_CHARS + "]";
+        private static final String QUOTED_USER = "(\"[^\"]*\")";
+        private static final String WORD = "((" + VALID_CHARS + "|')+|" + QUOTED_USER + ")";
+
+        private static final Pattern EMAIL_PATTERN = Pattern.compile("^\\s*?(.+)@(.+?)\\s*$");
+        private static final Pattern IP_DOMAIN_PATTERN = Pattern.compile("^\\[(.*)\\]$");
+        private static final Pattern USER_PATTERN = Pattern.compile("^\\s*" + WORD + "(\\." + WORD + ")*$");
+
+        private final boolean allowLocal;
+
+        RegexEmailValidator(boolean allowLocal) {
+            this.allowLocal = allowLocal;
+        }
+
+        boolean isValid(String email) {
+            if (email.length() == 0 || email.endsWith(".")) {
+                return false;
+            }
+            Matcher emailMatcher = EMAIL_PATTERN.matcher(email);
+            if (!emailMatcher.matches()) {
+                return false;
+            }
+            if (!USER_PATTERN.matcher(emailMatcher.group(1)).matches()) {
+                return false;
+            }
+            String domain = emailMatcher.group(2);
+            Matcher ipDomainMatcher = IP_DOMAIN_PATTERN.matcher(domain);
+            if (ipDomainMatcher.matches()) {
+                return InetAddressValidator.getInstance().isValid(ipDomainMatcher.group(1));
+            }
+            DomainValidator domainValidator = DomainValidator.getInstance(allowLocal);
+            return domainValidator.isValid(domain) || domainValidator.isValidTld(domain);
+        }
+    }
+}
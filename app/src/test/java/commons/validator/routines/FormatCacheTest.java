@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.text.DecimalFormat;
+import java.text.Format;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the {@link FormatCache} and how the number validators use it.
+ *
+ * @version $Revision$
+ */
+public class FormatCacheTest {
+
+    // patterns not used by other tests, so that the cache starts empty for them
+    private static int nextPattern;
+
+    @Test
+    public void testHitsAndMisses() {
+        DoubleValidator validator = new DoubleValidator();
+        String pattern = newPattern();
+
+        long hits = AbstractNumberValidator.getFormatCacheHitCount();
+        long misses = AbstractNumberValidator.getFormatCacheMissCount();
+        assertEquals(Double.valueOf(1234.5), validator.validate("1,234.5", pattern, Locale.US));
+        assertEquals(hits, AbstractNumberValidator.getFormatCacheHitCount());
+        assertEquals(misses + 1, AbstractNumberValidator.getFormatCacheMissCount());
+
+        assertEquals(Double.valueOf(5), validator.validate("5", pattern, Locale.US));
+        assertNull(validator.validate("x", pattern, Locale.US));
+        assertEquals(hits + 2, AbstractNumberValidator.getFormatCacheHitCount());
+        assertEquals(misses + 1, AbstractNumberValidator.getFormatCacheMissCount());
+
+        // another validator of the same class and settings shares the format
+        assertTrue(new DoubleValidator().isValid("1.5", pattern, Locale.US));
+        assertEquals(hits + 3, AbstractNumberValidator.getFormatCacheHitCount());
+        assertEquals(misses + 1, AbstractNumberValidator.getFormatCacheMissCount());
+    }
+
+    @Test
+    public void testKeys() {
+        String pattern = newPattern();
+        DoubleValidator validator = new DoubleValidator();
+        long misses = AbstractNumberValidator.getFormatCacheMissCount();
+
+        assertEquals(Double.valueOf(1234.5), validator.validate("1,234.5", pattern, Locale.US));
+        assertEquals(misses + 1, AbstractNumberValidator.getFormatCacheMissCount());
+
+        // each locale has its own format
+        assertEquals(Double.valueOf(1234.5), validator.validate("1.234,5", pattern, Locale.GERMANY));
+        assertEquals(misses + 2, AbstractNumberValidator.getFormatCacheMissCount());
+        assertEquals(Double.valueOf(1.2345), validator.validate("1.2345", pattern, Locale.US));
+        assertEquals(misses + 2, AbstractNumberValidator.getFormatCacheMissCount());
+
+        // and each pattern
+        assertEquals(Double.valueOf(1.5), validator.validate("1.5", newPattern(), Locale.US));
+        assertEquals(misses + 3, AbstractNumberValidator.getFormatCacheMissCount());
+
+        // and each validator type and settings
+        assertEquals(Integer.valueOf(1234), new IntegerValidator().validate("1,234", pattern, Locale.US));
+        assertEquals(misses + 4, AbstractNumberValidator.getFormatCacheMissCount());
+        assertNull(new IntegerValidator().validate("1,234.5", pattern, Locale.US));
+        assertEquals(misses + 4, AbstractNumberValidator.getFormatCacheMissCount());
+        assertEquals(Double.valueOf(1234.5),
+                new DoubleValidator(false, AbstractNumberValidator.STANDARD_FORMAT)
+                        .validate("1,234.5", pattern, Locale.US));
+        assertEquals(misses + 5, AbstractNumberValidator.getFormatCacheMissCount());
+        assertEquals(Double.valueOf(1234.5), validator.validate("1,234.5", pattern, Locale.US));
+        assertEquals(misses + 5, AbstractNumberValidator.getFormatCacheMissCount());
+    }
+
+    @Test
+    public void testFormatTypes() {
+        Locale locale = Locale.US;
+        DoubleValidator standard = new DoubleValidator(true, AbstractNumberValidator.STANDARD_FORMAT);
+        DoubleValidator currency = new DoubleValidator(true, AbstractNumberValidator.CURRENCY_FORMAT);
+        DoubleValidator percent = new DoubleValidator(true, AbstractNumberValidator.PERCENT_FORMAT);
+        for (int i = 0; i < 2; i++) {
+            assertEquals(Double.valueOf(12.5), standard.validate("12.5", locale));
+            assertNull(standard.validate("$12.50", locale));
+            assertEquals(Double.valueOf(12.5), currency.validate("$12.50", locale));
+            assertNull(currency.validate("12.5%", locale));
+            assertEquals(Double.valueOf(0.125), percent.validate("12.5%", locale));
+            assertNull(percent.validate("$12.50", locale));
+        }
+    }
+
+    @Test
+    public void testOverriddenGetFormat() {
+        final int[] created = new int[1];
+        IntegerValidator overriding = new IntegerValidator() {
+            protected Format getFormat(String pattern, Locale locale) {
+                created[0]++;
+                return super.getFormat(pattern, locale);
+            }
+        };
+        IntegerValidator overridingLocale = new IntegerValidator() {
+            protected Format getFormat(Locale locale) {
+                created[0]++;
+                return super.getFormat(locale);
+            }
+        };
+        IntegerValidator inheriting = new IntegerValidator() {
+        };
+        String pattern = newPattern();
+
+        // the formats of subclasses overriding getFormat() are not cached
+        long hits = AbstractNumberValidator.getFormatCacheHitCount();
+        long misses = AbstractNumberValidator.getFormatCacheMissCount();
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.valueOf(1234), overriding.validate("1,234", pattern, Locale.US));
+            assertEquals(Integer.valueOf(1234), overridingLocale.validate("1,234", Locale.US));
+        }
+        assertEquals(6, created[0]);
+        assertEquals(hits, AbstractNumberValidator.getFormatCacheHitCount());
+        assertEquals(misses, AbstractNumberValidator.getFormatCacheMissCount());
+
+        // subclasses which only inherit getFormat() are
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.valueOf(1234), inheriting.validate("1,234", pattern, Locale.US));
+        }
+        assertEquals(hits + 2, AbstractNumberValidator.getFormatCacheHitCount());
+        assertEquals(misses + 1, AbstractNumberValidator.getFormatCacheMissCount());
+    }
+
+    @Test
+    public void testThreadClones() throws InterruptedException {
+        final Object key = new Object();
+        assertNull(FormatCache.get(key));
+
+        DecimalFormat prototype = new DecimalFormat("#,##0.0#");
+        final Format format = FormatCache.put(key, prototype);
+        assertNotSame(prototype, format);
+        assertEquals(prototype, format);
+        assertTrue(format == FormatCache.get(key));
+
+        // other threads get their own clones
+        final Format[] other = new Format[2];
+        Thread thread = new Thread() {
+            public void run() {
+                other[0] = FormatCache.get(key);
+                other[1] = FormatCache.get(key);
+            }
+        };
+        thread.start();
+        thread.join();
+        assertNotNull(other[0]);
+        assertNotSame(format, other[0]);
+        assertEquals(format, other[0]);
+        assertTrue(other[0] == other[1]);
+    }
+
+    @Test
+    public void testParsePosition() {
+        assertTrue(FormatCache.parsePosition() == FormatCache.parsePosition());
+        FormatCache.parsePosition().setIndex(3);
+        FormatCache.parsePosition().setErrorIndex(2);
+        assertEquals(0, FormatCache.parsePosition().getIndex());
+        assertEquals(-1, FormatCache.parsePosition().getErrorIndex());
+    }
+
+    private static synchronized String newPattern() {
+        // only the number of optional fraction digits differs
+        StringBuilder pattern = new StringBuilder("#,##0.####");
+        for (int i = 0; i <= nextPattern; i++) {
+            pattern.append('#');
+        }
+        nextPattern++;
+        return pattern.toString();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.text.Format;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the plain number parsing of {@link IntegerValidator} and
+ * {@link DoubleValidator} against parsing with the default format.
+ *
+ * @version $Revision$
+ */
+public class NumberValidatorTest {
+
+    private static final String[] CORPUS = {
+        "0",
+        "-0",
+        "00",
+        "123",
+        "-123",
+        " 123 ",
+        "+123",
+        "1,234",
+        "1.234",
+        "1.5",
+        "-1.5",
+        "-0.0",
+        ".5",
+        "5.",
+        "-",
+        ".",
+        "",
+        " ",
+        "12a",
+        "1e3",
+        "2147483647",
+        "2147483648",
+        "-2147483648",
+        "-2147483649",
+        "999999999999999999",
+        "9999999999999999999",
+        "123456789012345",
+        "1234567890123456",
+        "0.1",
+        "0.000000000000000000001",
+        "3.141592653589793",
+        "１２３",
+        "1 234",
+    };
+
+    private static final Locale[] LOCALES = {
+        Locale.US,
+        Locale.GERMANY,
+        Locale.FRANCE,
+        new Locale("ar", "EG"),
+    };
+
+    private static final String FUZZ_ALPHABET = "0123456789-.,";
+
+    /** Parses with the format, as subclasses overriding getFormat() do */
+    private static final IntegerValidator INTEGER_REFERENCE = new IntegerValidator() {
+        protected Format getFormat(String pattern, Locale locale) {
+            return super.getFormat(pattern, locale);
+        }
+    };
+
+    /** Parses with the format, as subclasses overriding getFormat() do */
+    private static final DoubleValidator DOUBLE_REFERENCE = new DoubleValidator() {
+        protected Format getFormat(String pattern, Locale locale) {
+            return super.getFormat(pattern, locale);
+        }
+    };
+
+    @Test
+    public void testCorpus() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            for (int l = 0; l < LOCALES.length; l++) {
+                Locale.setDefault(LOCALES[l]);
+                for (int i = 0; i < CORPUS.length; i++) {
+                    assertSame(CORPUS[i]);
+                }
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20160803L);
+        StringBuffer buffer = new StringBuffer();
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.US);
+            for (int n = 0; n < 20000; n++) {
+                buffer.setLength(0);
+                int length = 1 + random.nextInt(20);
+                for (int i = 0; i < length; i++) {
+                    buffer.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+                }
+                assertSame(buffer.toString());
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private static void assertSame(String value) {
+        String message = "locale=" + Locale.getDefault() + " value=[" + value + "]";
+
+        Integer expectedInteger = INTEGER_REFERENCE.validate(value);
+        IntegerValidator integerValidator = IntegerValidator.getInstance();
+        assertEquals(message, expectedInteger, integerValidator.validate(value));
+        assertEquals(message, expectedInteger != null, integerValidator.isValid(value));
+        assertEquals(message, expectedInteger == null ? -1 : expectedInteger.intValue(),
+                integerValidator.validateInt(value, -1));
+
+        Double expectedDouble = DOUBLE_REFERENCE.validate(value);
+        DoubleValidator doubleValidator = DoubleValidator.getInstance();
+        // Double.equals() tells 0.0 and -0.0 apart
+        assertEquals(message, expectedDouble, doubleValidator.validate(value));
+        assertEquals(message, expectedDouble != null, doubleValidator.isValid(value));
+        if (expectedDouble != null) {
+            assertEquals(message, expectedDouble, Double.valueOf(doubleValidator.validateDouble(value, Double.NaN)));
+        } else {
+            assertTrue(message, Double.isNaN(doubleValidator.validateDouble(value, Double.NaN)));
+        }
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the per-thread {@link java.util.regex.Matcher} reuse, the group
+ * offsets and the step-limited matching of {@link RegexValidator}.
+ *
+ * @version $Revision$
+ */
+public class RegexValidatorTest {
+
+    private static final String[] REGEXS = {
+        "^([0-9]{3})(?:-|\\s)?([0-9]{4})$",
+        "^([a-z]+)(?:@([a-z]+))?$",
+    };
+
+    private static final String[] VALUES = {
+        "123-4567",
+        "123 4567",
+        "1234567",
+        "123-456",
+        "jsmith",
+        "jsmith@apache",
+        "JSMITH@APACHE",
+        "jsmith@",
+        "",
+    };
+
+    private static final String FUZZ_ALPHABET = "0123456789- az@Z";
+
+    @Test
+    public void testMatcherReuse() {
+        RegexValidator validator = new RegexValidator(REGEXS, false);
+        Random random = new Random(20160803L);
+        for (int n = 0; n < 2000; n++) {
+            String value = n < VALUES.length ? VALUES[n] : randomValue(random);
+            assertSame(validator, value);
+        }
+    }
+
+    @Test
+    public void testMatcherReuseAcrossThreads() throws InterruptedException {
+        final RegexValidator validator = new RegexValidator(REGEXS, false);
+        final Throwable[] failures = new Throwable[4];
+        Thread[] threads = new Thread[failures.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int index = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        Random random = new Random(index);
+                        for (int n = 0; n < 2000; n++) {
+                            assertSame(validator, randomValue(random));
+                        }
+                    } catch (Throwable e) {
+                        failures[index] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            if (failures[t] != null) {
+                throw new AssertionError(failures[t]);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchOffsets() {
+        RegexValidator validator = new RegexValidator(REGEXS, false);
+        int[] offsets = new int[4];
+
+        assertEquals(2, validator.match("123-4567", offsets));
+        assertArrayEquals(new int[] {0, 3, 4, 8}, offsets);
+
+        assertEquals(2, validator.match(new StringBuilder("jsmith@apache"), offsets));
+        assertArrayEquals(new int[] {0, 6, 7, 13}, offsets);
+
+        // unmatched groups
+        assertEquals(2, validator.match("jsmith", offsets));
+        assertArrayEquals(new int[] {0, 6, -1, -1}, offsets);
+
+        // offsets within the characters, not the region
+        StringBuilder padded = new StringBuilder("xx 1234567 yy");
+        assertEquals(2, validator.match(padded, 3, 7, offsets));
+        assertArrayEquals(new int[] {3, 6, 6, 10}, offsets);
+        assertEquals(-1, validator.match(padded, 2, 8, offsets));
+
+        Arrays.fill(offsets, 9);
+        assertEquals(-1, validator.match("123-456", offsets));
+        assertArrayEquals(new int[] {9, 9, 9, 9}, offsets);
+        assertEquals(-1, validator.match((CharSequence) null, offsets));
+
+        try {
+            validator.match("123-4567", new int[3]);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        // the matcher is still usable
+        assertEquals(2, validator.match("123-4567", offsets));
+        assertArrayEquals(new int[] {0, 3, 4, 8}, offsets);
+    }
+
+    @Test
+    public void testReleaseAfterMatch() {
+        RegexValidator validator = new RegexValidator(REGEXS, false);
+        assertReleased(matchAndForget(validator, new int[4]));
+    }
+
+    @Test
+    public void testReleaseAfterFailure() {
+        RegexValidator validator = new RegexValidator(REGEXS, false);
+
+        // too few offsets for the groups
+        assertReleased(matchAndForget(validator, new int[1]));
+
+        // a value which fails while it is read, like text edited concurrently
+        assertReleased(validateAndForget(validator));
+        assertTrue(validator.isValid("123-4567"));
+    }
+
+    @Test
+    public void testCheck() {
+        RegexValidator validator = new RegexValidator(REGEXS, false);
+        Random random = new Random(20160803L);
+        for (int n = 0; n < 2000; n++) {
+            String value = n < VALUES.length ? VALUES[n] : randomValue(random);
+            int expected = validator.isValid(value) ? RegexValidator.MATCH : RegexValidator.NO_MATCH;
+            assertEquals("[" + value + "]", expected, validator.check(value, Long.MAX_VALUE));
+        }
+        assertEquals(RegexValidator.MATCH, validator.check(new StringBuilder("xx123-4567yy"), 2, 8, 1000));
+        assertEquals(RegexValidator.NO_MATCH, validator.check(new StringBuilder("xx123-4567yy"), 1, 8, 1000));
+        assertEquals(RegexValidator.NO_MATCH, validator.check(null, 1000));
+    }
+
+    @Test
+    public void testCheckBudget() {
+        // the back reference keeps the JDK from memoizing the nested loops
+        RegexValidator validator = new RegexValidator("^(?:(a+)\\1?)+$");
+        String value = repeat('a', 40) + "b";
+
+        // backtracks for far longer than any test runs without a budget
+        assertEquals(RegexValidator.BUDGET_EXHAUSTED, validator.check(value, 100000));
+        assertEquals(RegexValidator.BUDGET_EXHAUSTED, validator.check(repeat('a', 40), 10));
+        assertEquals(RegexValidator.MATCH, validator.check(repeat('a', 40), 1000));
+        assertEquals(RegexValidator.NO_MATCH, validator.check("aab", 100000));
+        assertEquals(RegexValidator.BUDGET_EXHAUSTED, validator.check("a", 0));
+
+        // the matcher is reused after the budget ran out
+        assertEquals(RegexValidator.MATCH, validator.check("aaa", 1000));
+        assertTrue(validator.isValid("aaa"));
+    }
+
+    @Test
+    public void testCheckUncounted() {
+        // engines which copy the value, like Android's, match it without the budget
+        assertTrue(RegexValidator.isStepCounting());
+
+        RegexValidator validator = new RegexValidator("^(?:(a+)\\1?)+$");
+        String value = repeat('a', 40);
+        assertEquals(RegexValidator.MATCH, validator.check(value, 0, 40, 10, false));
+        assertEquals(RegexValidator.MATCH, validator.check("xaaay", 1, 3, 1, false));
+        assertEquals(RegexValidator.NO_MATCH, validator.check("aab", 0, 3, 1, false));
+        assertEquals(RegexValidator.MATCH, validator.check("a", 0, 1, 0, false));
+        assertEquals(RegexValidator.NO_MATCH, validator.check(null, 0, 0, 9, false));
+    }
+
+    @Test
+    public void testStepLimitedCharSequence() {
+        StepLimitedCharSequence limited = new StepLimitedCharSequence("abcdef", 4);
+        assertEquals(6, limited.length());
+        assertEquals("abcdef", limited.toString());
+        assertEquals('a', limited.charAt(0));
+
+        // reads of derived sequences count against the same budget
+        CharSequence sub = limited.subSequence(2, 5);
+        assertEquals(3, sub.length());
+        assertEquals("cde", sub.toString());
+        assertEquals('c', sub.charAt(0));
+        assertEquals('e', sub.subSequence(1, 3).charAt(1));
+        assertEquals('f', limited.charAt(5));
+        try {
+            sub.charAt(1);
+            fail("Expected BudgetExhaustedException");
+        } catch (StepLimitedCharSequence.BudgetExhaustedException e) {
+            // expected
+        }
+        try {
+            limited.charAt(0);
+            fail("Expected BudgetExhaustedException");
+        } catch (StepLimitedCharSequence.BudgetExhaustedException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testHistograms() {
+        RegexValidator validator = new RegexValidator(REGEXS, false);
+        RegexValidator other = new RegexValidator(REGEXS, false);
+        TimingHistogram[] histograms = validator.getHistograms();
+        assertEquals(REGEXS.length, histograms.length);
+        assertEquals(0, histograms[0].getCount());
+
+        // isValid is not timed
+        validator.isValid("jsmith");
+        assertEquals(0, histograms[0].getCount());
+
+        // the first expression matches, the second is not run
+        validator.check("123-4567", 1000);
+        assertEquals(1, histograms[0].getCount());
+        assertEquals(0, histograms[1].getCount());
+
+        // both expressions run
+        validator.check("jsmith", 1000);
+        validator.check("not valid", 1000);
+        assertEquals(3, histograms[0].getCount());
+        assertEquals(2, histograms[1].getCount());
+        assertTrue(histograms[0] == validator.getHistograms()[0]);
+
+        // each validator has its own histograms
+        assertEquals(0, other.getHistograms()[0].getCount());
+
+        validator.clearHistograms();
+        assertEquals(0, histograms[0].getCount());
+        assertEquals(0, histograms[1].getCount());
+    }
+
+    private static WeakReference matchAndForget(RegexValidator validator, int[] offsets) {
+        StringBuilder value = new StringBuilder("123-4567");
+        try {
+            validator.match(value, offsets);
+        } catch (IllegalArgumentException e) {
+            // released regardless
+        }
+        return new WeakReference(value);
+    }
+
+    private static WeakReference validateAndForget(RegexValidator validator) {
+        CharSequence value = new FailingCharSequence("123-4567", 5);
+        try {
+            validator.validate(value, 0, value.length());
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            validator.isValid(value);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        return new WeakReference(value);
+    }
+
+    private static void assertReleased(WeakReference reference) {
+        for (int i = 0; i < 20 && reference.get() != null; i++) {
+            System.gc();
+        }
+        assertNull("The value is still referenced", reference.get());
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder buffer = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            buffer.append(c);
+        }
+        return buffer.toString();
+    }
+
+    private static String randomValue(Random random) {
+        StringBuilder buffer = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            buffer.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+        }
+        return buffer.toString();
+    }
+
+    private static void assertSame(RegexValidator validator, String value) {
+        String[] expected = null;
+        for (int i = 0; i < REGEXS.length && expected == null; i++) {
+            Matcher matcher = Pattern.compile(REGEXS[i], Pattern.CASE_INSENSITIVE).matcher(value);
+            if (matcher.matches()) {
+                expected = new String[matcher.groupCount()];
+                for (int j = 0; j < expected.length; j++) {
+                    expected[j] = matcher.group(j + 1);
+                }
+            }
+        }
+        String message = "[" + value + "]";
+        assertEquals(message, expected != null, validator.isValid(value));
+        assertEquals(message, expected != null, validator.isValid(new StringBuilder(value)));
+        assertArrayEquals(message, expected, validator.match(value));
+
+        int[] offsets = new int[4];
+        int count = validator.match(value, offsets);
+        assertEquals(message, expected == null ? -1 : expected.length, count);
+        for (int j = 0; j < count; j++) {
+            String group = offsets[j * 2] < 0 ? null : value.substring(offsets[j * 2], offsets[j * 2 + 1]);
+            assertEquals(message, expected[j], group);
+        }
+
+        String aggregated = null;
+        if (expected != null) {
+            StringBuilder buffer = new StringBuilder();
+            for (int j = 0; j < expected.length; j++) {
+                if (expected[j] != null) {
+                    buffer.append(expected[j]);
+                }
+            }
+            aggregated = buffer.toString();
+        }
+        assertEquals(message, aggregated, validator.validate(value));
+    }
+
+    /**
+     * Throws when a character past a limit is read.
+     */
+    private static final class FailingCharSequence implements CharSequence {
+        private final String value;
+        private final int limit;
+
+        FailingCharSequence(String value, int limit) {
+            this.value = value;
+            this.limit = limit;
+        }
+
+        public int length() {
+            return value.length();
+        }
+
+        public char charAt(int index) {
+            if (index >= limit) {
+                throw new IndexOutOfBoundsException("Changed while reading: " + index);
+            }
+            return value.charAt(index);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return value.subSequence(start, end);
+        }
+
+        public String toString() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Differential test of the {@link UrlScanner} based {@link UrlValidator} against
+ * the regular expression implementation it replaced.
+ *
+ * @version $Revision$
+ */
+public class UrlValidatorTest {
+
+    private static final String[] CORPUS = {
+        "http://www.google.com",
+        "http://www.google.com/",
+        "https://www.apache.org:8080/path/to/file?query=1&b=2#frag",
+        "HTTP://WWW.GOOGLE.COM",
+        "ftp://ftp.example.com/pub/file.txt",
+        "file:///etc/hosts",
+        "file://",
+        "file:/etc/hosts",
+        "file://localhost/etc/hosts",
+        "http://localhost/",
+        "http://localhost:8080/",
+        "http://machine/",
+        "http://1.2.3.4:65535/",
+        "http://1.2.3.4:65536/",
+        "http://1.2.3.4:123456/",
+        "http://256.256.256.256/",
+        "http://[::1]/",
+        "http://www.example.com:/",
+        "http://www.example.com:80a/",
+        "http://www.example.com /path",
+        "http://www.example.com\t/path",
+        "http://www.example.com\n/path",
+        "http://www.example.com\u0085/path",
+        "http://www.example.com:80 /",
+        "http://user@www.example.com/",
+        "http://münchen.de/",
+        "http://xn--mnchen-3ya.de/",
+        "http://www.example.com/a//b",
+        "http://www.example.com//",
+        "http://www.example.com/../",
+        "http://www.example.com/a/../b",
+        "http://www.example.com/a/b/../c",
+        "http://www.example.com/.../",
+        "http://www.example.com/a/b/c/...",
+        "http://www.example.com/..",
+        "http://www.example.com/a b",
+        "http://www.example.com/a%20b",
+        "http://www.example.com/$;()~*'!,",
+        "http://www.example.com/<>",
+        "http://www.example.com/a?b?c",
+        "http://www.example.com/?q=\n",
+        "http://www.example.com/?q=\u2028",
+        "http://www.example.com/#",
+        "http://www.example.com/#a#b",
+        "http://www.example.com/#\r",
+        "http://www.example.com/#\u2029x",
+        "http://www.example.com?",
+        "http://www.example.com#",
+        "http:/www.example.com",
+        "http:www.example.com",
+        "http//www.example.com",
+        "://www.example.com",
+        "1http://www.example.com",
+        "h+t-t.p://www.example.com",
+        "http",
+        "http:",
+        "http://",
+        "http:///",
+        "",
+        ":",
+        "/",
+        "//",
+        "?",
+        "#",
+        "www.example.com",
+        "//www.example.com/",
+        "mailto:someone@example.com",
+        "http://www.example.local/",
+        "http://example.invalidtld/",
+        "http://-example.com/",
+        "http://example-.com/",
+        "http://a.b.c.d.example.com./",
+    };
+
+    private static final String[][] SCHEMES = {
+        null,
+        {"http", "FILE", "foo"},
+        {"HTTPS", "ht", "h+t-t.p", "https"},
+    };
+
+    private static final long[] OPTIONS = {
+        0,
+        UrlValidator.ALLOW_ALL_SCHEMES,
+        UrlValidator.ALLOW_2_SLASHES | UrlValidator.NO_FRAGMENTS,
+        UrlValidator.ALLOW_LOCAL_URLS,
+        UrlValidator.ALLOW_ALL_SCHEMES | UrlValidator.ALLOW_LOCAL_URLS | UrlValidator.ALLOW_2_SLASHES,
+    };
+
+    private static final String FUZZ_ALPHABET =
+            "htpfiles:/?#.@-+_~%[]  \t\n\r\u0085\u2028aZ09ü";
+
+    @Test
+    public void testCorpus() {
+        for (int s = 0; s < SCHEMES.length; s++) {
+            for (int o = 0; o < OPTIONS.length; o++) {
+                for (int i = 0; i < CORPUS.length; i++) {
+                    assertSame(SCHEMES[s], null, OPTIONS[o], CORPUS[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAuthorityValidator() {
+        RegexValidator authority = new RegexValidator("localhost|.*\\.test(:\\d+)?");
+        for (int o = 0; o < OPTIONS.length; o++) {
+            for (int i = 0; i < CORPUS.length; i++) {
+                assertSame(null, authority, OPTIONS[o], CORPUS[i]);
+            }
+            assertSame(null, authority, OPTIONS[o], "http://foo.test:99999/");
+            assertSame(null, authority, OPTIONS[o], "http://localhost/");
+        }
+    }
+
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20160803L);
+        String[] prefixes = {"", "http://", "file://", "ftp://www.example.com", "http://1.2.3.4"};
+        StringBuffer buffer = new StringBuffer();
+        for (int n = 0; n < 20000; n++) {
+            buffer.setLength(0);
+            buffer.append(prefixes[random.nextInt(prefixes.length)]);
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                buffer.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+            }
+            String value = buffer.toString();
+            for (int o = 0; o < OPTIONS.length; o++) {
+                assertSame(null, null, OPTIONS[o], value);
+            }
+        }
+    }
+
+    @Test
+    public void testSharedInstances() {
+        UrlValidator validator = UrlValidator.getInstance(new String[] {"HTTP", "ftp"}, 0);
+        assertTrue(validator == UrlValidator.getInstance(new String[] {"ftp", "http", "Http"}, 0));
+        assertFalse(validator == UrlValidator.getInstance(new String[] {"ftp", "http"}, UrlValidator.NO_FRAGMENTS));
+        assertTrue(UrlValidator.getInstance(null, UrlValidator.ALLOW_ALL_SCHEMES)
+                == UrlValidator.getInstance(new String[] {"foo"}, UrlValidator.ALLOW_ALL_SCHEMES));
+
+        for (int s = 0; s < SCHEMES.length; s++) {
+            for (int o = 0; o < OPTIONS.length; o++) {
+                UrlValidator shared = UrlValidator.getInstance(SCHEMES[s], OPTIONS[o]);
+                UrlValidator expected = new UrlValidator(SCHEMES[s], OPTIONS[o]);
+                for (int i = 0; i < CORPUS.length; i++) {
+                    assertEquals(CORPUS[i], expected.isValid(CORPUS[i]), shared.isValid(CORPUS[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSubclassHooks() {
+        UrlValidator validator = new UrlValidator() {
+            protected boolean isValidPath(String path) {
+                return path != null && !path.startsWith("/private");
+            }
+        };
+        assertTrue(validator.isValid("http://www.example.com/a b"));
+        assertFalse(validator.isValid("http://www.example.com/private/file"));
+        assertFalse(new UrlValidator().isValid("http://www.example.com/a b"));
+    }
+
+    private static void assertSame(String[] schemes, RegexValidator authority, long options, String value) {
+        UrlValidator validator = new UrlValidator(schemes, authority, options);
+        RegexUrlValidator reference = new RegexUrlValidator(schemes, authority, options);
+        boolean expected = reference.isValid(value);
+        assertEquals("options=" + options + " url=[" + value + "]", expected, validator.isValid(value));
+    }
+
+    /**
+     * The regular expression based implementation of {@link UrlValidator#isValid(String)}.
+     */
+    private static class RegexUrlValidator {
+
+        private static final Pattern URL_PATTERN =
+                Pattern.compile("^(([^:/?#]+):)?(//([^/?#]*))?([^?#]*)(\\?([^#]*))?(#(.*))?");
+        private static final Pattern SCHEME_PATTERN = Pattern.compile("^\\p{Alpha}[\\p{Alnum}\\+\\-\\.]*");
+        private static final Pattern AUTHORITY_PATTERN = Pattern.compile("^([\\p{Alnum}\\-\\.]*)(:\\d*)?(.*)?");
+        private static final Pattern PATH_PATTERN = Pattern.compile("^(/[-\\w:@&?=+,.!/~*'%$_;\\(\\)]*)?$");
+        private static final Pattern QUERY_PATTERN = Pattern.compile("^(.*)$");
+        private static final Pattern PORT_PATTERN = Pattern.compile("^:(\\d{1,5})$");
+
+        private final long options;
+        private final Set allowedSchemes = new HashSet();
+        private final RegexValidator authorityValidator;
+
+        RegexUrlValidator(String[] schemes, RegexValidator authorityValidator, long options) {
+            this.options = options;
+            if (schemes == null) {
+                schemes = new String[] {"http", "https", "ftp"};
+            }
+            for (int i = 0; i < schemes.length; i++) {
+                allowedSchemes.add(schemes[i].toLowerCase(Locale.ENGLISH));
+            }
+            this.authorityValidator = authorityValidator;
+        }
+
+        boolean isValid(String value) {
+            Matcher urlMatcher = URL_PATTERN.matcher(value);
+            if (!urlMatcher.matches()) {
+                return false;
+            }
+            String scheme = urlMatcher.group(2);
+            if (scheme == null || !SCHEME_PATTERN.matcher(scheme).matches()) {
+                return false;
+            }
+            if ((options & UrlValidator.ALLOW_ALL_SCHEMES) == 0
+                    && !allowedSchemes.contains(scheme.toLowerCase(Locale.ENGLISH))) {
+                return false;
+            }
+            String authority = urlMatcher.group(4);
+            if (!("file".equals(scheme) && "".equals(authority)) && !isValidAuthority(authority)) {
+                return false;
+            }
+            String path = urlMatcher.group(5);
+            if (!PATH_PATTERN.matcher(path).matches()) {
+                return false;
+            }
+            int slash2Count = countToken("//", path);
+            if ((options & UrlValidator.ALLOW_2_SLASHES) == 0 && slash2Count > 0) {
+                return false;
+            }
+            int slashCount = countToken("/", path);
+            int dot2Count = countToken("..", path);
+            if (dot2Count > 0 && (slashCount - slash2Count - 1) <= dot2Count) {
+                return false;
+            }
+            String query = urlMatcher.group(7);
+            if (query != null && !QUERY_PATTERN.matcher(query).matches()) {
+                return false;
+            }
+            return urlMatcher.group(9) == null || (options & UrlValidator.NO_FRAGMENTS) == 0;
+        }
+
+        private boolean isValidAuthority(String authority) {
+            if (authority == null) {
+                return false;
+            }
+            if (authorityValidator != null && authorityValidator.isValid(authority)) {
+                return true;
+            }
+            String authorityASCII = DomainValidator.unicodeToASCII(authority);
+            Matcher authorityMatcher = AUTHORITY_PATTERN.matcher(authorityASCII);
+            if (!authorityMatcher.matches()) {
+                return false;
+            }
+            String hostLocation = authorityMatcher.group(1);
+            boolean allowLocal = (options & UrlValidator.ALLOW_LOCAL_URLS) != 0;
+            if (!DomainValidator.getInstance(allowLocal).isValid(hostLocation)
+                    && !InetAddressValidator.getInstance().isValid(hostLocation)) {
+                return false;
+            }
+            String port = authorityMatcher.group(2);
+            if (port != null && !PORT_PATTERN.matcher(port).matches()) {
+                return false;
+            }
+            String extra = authorityMatcher.group(3);
+            return extra == null || extra.trim().length() == 0;
+        }
+
+        private static int countToken(String token, String target) {
+            int tokenIndex = 0;
+            int count = 0;
+            while (tokenIndex != -1) {
+                tokenIndex = target.indexOf(token, tokenIndex);
+                if (tokenIndex > -1) {
+                    tokenIndex++;
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines.checkdigit;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the {@link CheckDigitTable} tables against the
+ * {@link ModulusCheckDigit} calculations they replace.
+ *
+ * @version $Revision$
+ */
+public class CheckDigitTableTest {
+
+    private static final String[] CORPUS = {
+        "4111111111111111",
+        "4111111111111112",
+        "5500000000000004",
+        "378282246310005",
+        "9780072129519",
+        "9780072129510",
+        "0201633612",
+        "020163361X",
+        "080442957X",
+        "X80442957X",
+        "0",
+        "00000",
+        "1",
+        "",
+        "12a4",
+        "١٢٣٤٥٦٧٨٩٠",
+        "４１１１１１１１１１１１１１１１",
+    };
+
+    private static final String FUZZ_ALPHABET = "0123456789X0123456789-";
+
+    private static final ModulusCheckDigit LUHN = new ModulusCheckDigit(10) {
+        protected int weightedValue(int charValue, int leftPos, int rightPos) {
+            int weightedValue = charValue * (rightPos % 2 == 0 ? 2 : 1);
+            return weightedValue > 9 ? (weightedValue - 9) : weightedValue;
+        }
+    };
+
+    private static final ModulusCheckDigit EAN13 = new ModulusCheckDigit(10) {
+        protected int weightedValue(int charValue, int leftPos, int rightPos) {
+            return charValue * (rightPos % 2 == 0 ? 3 : 1);
+        }
+    };
+
+    private static final ModulusCheckDigit ISBN10 = new ModulusCheckDigit(11) {
+        protected int weightedValue(int charValue, int leftPos, int rightPos) {
+            return charValue * rightPos;
+        }
+
+        protected int toInt(char character, int leftPos, int rightPos)
+                throws CheckDigitException {
+            if (rightPos == 1 && character == 'X') {
+                return 10;
+            }
+            return super.toInt(character, leftPos, rightPos);
+        }
+
+        protected String toCheckDigit(int charValue)
+                throws CheckDigitException {
+            return charValue == 10 ? "X" : super.toCheckDigit(charValue);
+        }
+    };
+
+    @Test
+    public void testCorpus() {
+        for (int i = 0; i < CORPUS.length; i++) {
+            assertSame(CORPUS[i]);
+        }
+    }
+
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20160803L);
+        StringBuffer buffer = new StringBuffer();
+        for (int n = 0; n < 50000; n++) {
+            buffer.setLength(0);
+            int length = 1 + random.nextInt(24);
+            for (int i = 0; i < length; i++) {
+                buffer.append(FUZZ_ALPHABET.charAt(random.nextInt(FUZZ_ALPHABET.length())));
+            }
+            assertSame(buffer.toString());
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        boolean[] results = new boolean[CORPUS.length + 1];
+        CharSequence[] codes = new CharSequence[CORPUS.length + 1];
+        System.arraycopy(CORPUS, 0, codes, 0, CORPUS.length);
+        int valid = CheckDigitTable.LUHN.isValidAll(codes, results);
+        BitSet bits = CheckDigitTable.LUHN.isValidAll(codes);
+        assertEquals(bits.cardinality(), valid);
+        for (int i = 0; i < CORPUS.length; i++) {
+            assertEquals(CORPUS[i], LUHN.isValid(CORPUS[i]), results[i]);
+            assertEquals(CORPUS[i], results[i], bits.get(i));
+        }
+        assertFalse(results[CORPUS.length]);
+        assertFalse(CheckDigitTable.LUHN.isValid(null));
+    }
+
+    private static void assertSame(String code) {
+        assertSame(LUHN, CheckDigitTable.LUHN, LuhnCheckDigit.LUHN_CHECK_DIGIT, code);
+        assertSame(EAN13, CheckDigitTable.EAN13, EAN13CheckDigit.EAN13_CHECK_DIGIT, code);
+        assertSame(ISBN10, CheckDigitTable.ISBN10, ISBN10CheckDigit.ISBN10_CHECK_DIGIT, code);
+    }
+
+    private static void assertSame(ModulusCheckDigit reference, CheckDigitTable table,
+            CheckDigit checkDigit, String code) {
+        String message = "modulus=" + reference.getModulus() + " code=[" + code + "]";
+        boolean valid = reference.isValid(code);
+        assertEquals(message, valid, table.isValid(code));
+        assertEquals(message, valid, checkDigit.isValid(code));
+        assertEquals(message, valid, table.isValid("<" + code + ">", 1, code.length()));
+
+        String expected;
+        try {
+            expected = reference.calculate(code);
+        } catch (CheckDigitException e) {
+            expected = null;
+        }
+        int calculated = table.calculate(code);
+        assertEquals(message, expected, calculated == CheckDigitTable.INVALID
+                ? null : String.valueOf((char) calculated));
+        try {
+            assertEquals(message, expected, checkDigit.calculate(code));
+        } catch (CheckDigitException e) {
+            assertNull(message, expected);
+        }
+    }
+}
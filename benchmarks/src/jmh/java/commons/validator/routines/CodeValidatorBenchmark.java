@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks {@link CodeValidator} through {@link ISBNValidator}, which combines
+ * format regexes, length checks and the ISBN-10 / EAN-13 check digits.
+ */
+public class CodeValidatorBenchmark extends CorpusBenchmark {
+
+    private final ISBNValidator isbnValidator = ISBNValidator.getInstance(false);
+
+    private final ISBNValidator convertingValidator = ISBNValidator.getInstance();
+
+    protected String[] inputs(String corpus) {
+        return Corpus.isbns(corpus);
+    }
+
+    @Benchmark
+    public boolean isbnIsValid() {
+        return isbnValidator.isValid(next());
+    }
+
+    @Benchmark
+    public String isbnValidateAndConvert() {
+        return convertingValidator.validate(next());
+    }
+}
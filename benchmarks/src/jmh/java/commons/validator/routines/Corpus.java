@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+/**
+ * Input corpora for the validator benchmarks.
+ * <p>
+ * Every routine is measured against four corpora:
+ * <ul>
+ *   <li><code>valid</code> - well formed values as seen in real form and import traffic</li>
+ *   <li><code>invalid</code> - typical typos and malformed values</li>
+ *   <li><code>idn</code> - internationalised (non-ASCII) values</li>
+ *   <li><code>pathological</code> - very long or adversarial values that stress
+ *       backtracking and allocation</li>
+ * </ul>
+ */
+public final class Corpus {
+
+    public static final String VALID = "valid";
+    public static final String INVALID = "invalid";
+    public static final String IDN = "idn";
+    public static final String PATHOLOGICAL = "pathological";
+
+    // ---------------------------------------------------------------- URLs
+
+    private static final String[] URL_VALID = {
+        "http://www.apache.org",
+        "https://www.example.com/",
+        "http://www.example.com:8080/path/to/page.html",
+        "https://example.com/search?q=link+farm&page=2",
+        "http://sub.domain.example.co.uk/a/b/c?x=1#section-2",
+        "ftp://ftp.example.org/pub/file.tar.gz",
+        "http://192.168.0.1/index.html",
+        "https://m.taobao.com/item.htm?id=520811231",
+        "http://localhost.example.com/~user/",
+        "https://www.baidu.com/s?wd=%E4%B8%AD%E5%9B%BD",
+    };
+
+    private static final String[] URL_INVALID = {
+        "http://",
+        "http:/www.example.com",
+        "www.example.com",
+        "http://example.com:99999/",
+        "http://exa mple.com/",
+        "http://example.com/../etc/passwd",
+        "javascript:alert(1)",
+        "http://example.c",
+        "http://-example.com/",
+        "htp//example.com",
+    };
+
+    private static final String[] URL_IDN = {
+        "http://www.清华大学.cn/",
+        "http://münchen.de/stadt",
+        "http://пример.рф/",
+        "https://例子.公司/path?q=1",
+        "http://中国.中国/",
+        "http://bücher.example.com/",
+        "http://例え.jp/",
+        "http://مثال.موقع/",
+    };
+
+    private static final String[] URL_PATHOLOGICAL = {
+        "http://www.example.com/" + repeat("a/", 1000),
+        "http://www.example.com/" + repeat("//", 500),
+        "http://www.example.com/" + repeat("../", 500),
+        "http://" + repeat("a.", 120) + "com/",
+        "http://" + repeat("a", 64) + ".com/",
+        "http://www.example.com/?" + repeat("k=v&", 1000),
+        "http://www.example.com/#" + repeat("f", 4000),
+        repeat(":", 2000),
+        "http://" + repeat("-", 2000),
+    };
+
+    // -------------------------------------------------------------- e-mail
+
+    private static final String[] EMAIL_VALID = {
+        "jsmith@apache.org",
+        "first.last@sub.example.co.uk",
+        "user+tag@gmail.com",
+        "\"quoted name\"@example.com",
+        "root@[192.168.0.1]",
+        "zhang.san@163.com",
+        "a@b.cn",
+        "o'brien@example.ie",
+        "info@example.museum",
+        "noreply@mail.qq.com",
+    };
+
+    private static final String[] EMAIL_INVALID = {
+        "plainaddress",
+        "@example.com",
+        "user@",
+        "user@.com",
+        "us er@example.com",
+        "user@example..com",
+        "user.@example.com",
+        "user@example.com.",
+        "user@@example.com",
+        "user@example.invalidtld",
+    };
+
+    private static final String[] EMAIL_IDN = {
+        "用户@例子.公司",
+        "info@münchen.de",
+        "почта@пример.рф",
+        "zhangsan@清华大学.cn",
+        "user@bücher.example.com",
+        "test@例え.jp",
+    };
+
+    // Long user names and domains which made the old regex based USER_PATTERN
+    // recurse once per character, now scanned in a single pass.
+    private static final String[] EMAIL_PATHOLOGICAL = {
+        repeat("a", 5000) + "@",
+        repeat("a.", 5000) + "a@example.com",
+        repeat("a", 5000) + "!@example.com",
+        "\"" + repeat("a", 5000) + "@example.com",
+        "user@" + repeat("a.", 2000) + "com",
+        repeat("@", 2000),
+        repeat("a'", 5000) + "@example.com",
+    };
+
+    // ------------------------------------------------------------- domains
+
+    private static final String[] DOMAIN_VALID = {
+        "apache.org",
+        "www.google.com",
+        "sub.domain.example.co.uk",
+        "mail.qq.com",
+        "WWW.EXAMPLE.COM",
+        "a.cn",
+        "example.museum",
+        "my-site.example.net",
+        "www.example.com.",
+        "xn--fiqs8s",
+    };
+
+    private static final String[] DOMAIN_INVALID = {
+        "example",
+        "-example.com",
+        "example-.com",
+        "exa_mple.com",
+        ".com",
+        "example.invalidtld",
+        "example..com",
+        "1.2.3.4",
+        "example.c",
+        "",
+    };
+
+    private static final String[] DOMAIN_IDN = {
+        "清华大学.cn",
+        "münchen.de",
+        "пример.рф",
+        "例子.公司",
+        "中国.中国",
+        "bücher.example.com",
+    };
+
+    private static final String[] DOMAIN_PATHOLOGICAL = {
+        repeat(repeat("a", 63) + ".", 3) + repeat("a", 61) + ".com",
+        repeat(repeat("a", 63) + ".", 4) + "com",
+        repeat("a", 64) + ".com",
+        repeat("a.", 126) + "com",
+        repeat("a-", 31) + "a." + repeat("b-", 31) + "b.com",
+        repeat("-", 253),
+        repeat(".", 253),
+    };
+
+    // ----------------------------------------------------------- addresses
+
+    private static final String[] INET_VALID = {
+        "192.168.0.1",
+        "255.255.255.255",
+        "0.0.0.0",
+        "10.1.2.3",
+        "::1",
+        "2001:db8::ff00:42:8329",
+        "::ffff:192.0.2.128",
+        "fe80::1",
+        "2001:0db8:85a3:0000:0000:8a2e:0370:7334",
+        "::",
+    };
+
+    private static final String[] INET_INVALID = {
+        "256.1.1.1",
+        "01.1.1.1",
+        "1.1.1",
+        "1.1.1.1.1",
+        "1:2:3:4:5:6:7:8:9",
+        "2001:db8:::1",
+        "gggg::1",
+        "1::2::3",
+        ":1:2:3:4:5:6:7",
+        "192.168.0.1:8080",
+    };
+
+    private static final String[] INET_IDN = {
+        "１９２.１６８.０.１",
+        "١٩٢.١٦٨.٠.١",
+        "192.168.0.١",
+        "::ｆｆｆｆ:1",
+        "２００１:db8::1",
+    };
+
+    private static final String[] INET_PATHOLOGICAL = {
+        repeat("1", 1000),
+        repeat(":", 1000),
+        repeat("1:", 500),
+        repeat("0", 1000) + "1.1.1.1",
+        repeat("1.", 500) + "1",
+        "::" + repeat("ffff:", 200) + "1",
+    };
+
+    // ---------------------------------------------------------------- cards
+
+    private static final String[] CARD_VALID = {
+        "4111111111111111",
+        "4012888888881881",
+        "4222222222222",
+        "5500000000000004",
+        "5105105105105100",
+        "340000000000009",
+        "378282246310005",
+        "6011000000000004",
+        "6011111111111117",
+        "6500000000000002",
+    };
+
+    private static final String[] CARD_INVALID = {
+        "4111111111111112",
+        "1234567890123456",
+        "0000000000000000",
+        "411111111111111a",
+        "5600000000000004",
+        "30000000000004",
+        "37828224631000",
+        "601100000000000",
+        "4111-1111-1111-1111",
+        "",
+    };
+
+    private static final String[] CARD_IDN = {
+        "４１１１１１１１１１１１１１１１",
+        "٤١١١١١١١١١١١١١١١",
+        "4111 1111 1111 1111",
+        "5500 0000 0000 0004",
+    };
+
+    private static final String[] CARD_PATHOLOGICAL = {
+        repeat("4", 10000),
+        "4" + repeat("0", 1000),
+        repeat(" ", 1000) + "4111111111111111" + repeat(" ", 1000),
+        repeat("6011", 2500),
+    };
+
+    // ---------------------------------------------------------------- ISBNs
+
+    private static final String[] ISBN_VALID = {
+        "1930110995",
+        "1-930110-99-5",
+        "1 930110 99 5",
+        "020163385X",
+        "0-201-63385-X",
+        "9781930110991",
+        "978-1-930110-99-1",
+        "978 1 930110 99 1",
+        "9780201633856",
+        "979-10-90636-07-1",
+    };
+
+    private static final String[] ISBN_INVALID = {
+        "1930110990",
+        "9781930110992",
+        "020163385x",
+        "1-930110-995",
+        "978-1930110991",
+        "123456789",
+        "97819301109911",
+        "978-1-930110-99-X",
+        "abcdefghij",
+        "",
+    };
+
+    private static final String[] ISBN_IDN = {
+        "１９３０１１０９９５",
+        "٩٧٨١٩٣٠١١٠٩٩١",
+        "978‐1‐930110‐99‐1",
+    };
+
+    private static final String[] ISBN_PATHOLOGICAL = {
+        repeat("9", 5000),
+        "978" + repeat("-1", 2000),
+        repeat(" ", 2000) + "1930110995",
+    };
+
+    // -------------------------------------------------------------- numbers
+
+    private static final String[] NUMBER_VALID = {
+        "0",
+        "7",
+        "123",
+        "-45",
+        "2147483647",
+        "-2147483648",
+        "1,234",
+        "3.14159",
+        "-0.5",
+        "100000",
+    };
+
+    private static final String[] NUMBER_INVALID = {
+        "abc",
+        "2147483648",
+        "12a",
+        "1..2",
+        "--1",
+        "",
+        "1e5",
+        "0x1F",
+        "12 34",
+        "+",
+    };
+
+    private static final String[] NUMBER_IDN = {
+        "١٢٣",
+        "１２３",
+        "1 234,5",
+        "1.234,5",
+        "٣٫١٤",
+    };
+
+    private static final String[] NUMBER_PATHOLOGICAL = {
+        repeat("9", 5000),
+        repeat("1,", 2000) + "1",
+        "0." + repeat("0", 5000) + "1",
+        repeat(" ", 5000) + "1",
+    };
+
+    // ------------------------------------------------------------ lookup
+
+    public static String[] urls(String corpus) {
+        return select(corpus, URL_VALID, URL_INVALID, URL_IDN, URL_PATHOLOGICAL);
+    }
+
+    public static String[] emails(String corpus) {
+        return select(corpus, EMAIL_VALID, EMAIL_INVALID, EMAIL_IDN, EMAIL_PATHOLOGICAL);
+    }
+
+    public static String[] domains(String corpus) {
+        return select(corpus, DOMAIN_VALID, DOMAIN_INVALID, DOMAIN_IDN, DOMAIN_PATHOLOGICAL);
+    }
+
+    public static String[] inetAddresses(String corpus) {
+        return select(corpus, INET_VALID, INET_INVALID, INET_IDN, INET_PATHOLOGICAL);
+    }
+
+    public static String[] cards(String corpus) {
+        return select(corpus, CARD_VALID, CARD_INVALID, CARD_IDN, CARD_PATHOLOGICAL);
+    }
+
+    public static String[] isbns(String corpus) {
+        return select(corpus, ISBN_VALID, ISBN_INVALID, ISBN_IDN, ISBN_PATHOLOGICAL);
+    }
+
+    public static String[] numbers(String corpus) {
+        return select(corpus, NUMBER_VALID, NUMBER_INVALID, NUMBER_IDN, NUMBER_PATHOLOGICAL);
+    }
+
+    private static String[] select(String corpus, String[] valid, String[] invalid,
+                                   String[] idn, String[] pathological) {
+        if (VALID.equals(corpus)) {
+            return valid;
+        }
+        if (INVALID.equals(corpus)) {
+            return invalid;
+        }
+        if (IDN.equals(corpus)) {
+            return idn;
+        }
+        if (PATHOLOGICAL.equals(corpus)) {
+            return pathological;
+        }
+        throw new IllegalArgumentException("Unknown corpus: " + corpus);
+    }
+
+    static String repeat(String s, int count) {
+        StringBuilder buffer = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            buffer.append(s);
+        }
+        return buffer.toString();
+    }
+
+    private Corpus() {
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class for benchmarks that feed a validator one {@link Corpus} entry per
+ * invocation.
+ * <p>
+ * Each invocation validates a single value so that the sampled time is the
+ * cost of one call; the cursor walks the corpus round-robin so the JIT cannot
+ * specialise on a single constant input.
+ * <p>
+ * Throughput is reported in operations per microsecond and sample time,
+ * including the p99 percentile, in microseconds per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(2)
+public abstract class CorpusBenchmark {
+
+    @Param({Corpus.VALID, Corpus.INVALID, Corpus.IDN, Corpus.PATHOLOGICAL})
+    public String corpus;
+
+    private String[] inputs;
+    private int cursor;
+
+    @Setup
+    public void loadCorpus() {
+        inputs = inputs(corpus);
+        cursor = 0;
+    }
+
+    /**
+     * Returns the inputs for the named corpus.
+     *
+     * @param corpus One of the {@link Corpus} names.
+     * @return the values to validate
+     */
+    protected abstract String[] inputs(String corpus);
+
+    /**
+     * Returns the next value of the corpus.
+     *
+     * @return the value to validate
+     */
+    protected final String next() {
+        String value = inputs[cursor];
+        if (++cursor == inputs.length) {
+            cursor = 0;
+        }
+        return value;
+    }
+}
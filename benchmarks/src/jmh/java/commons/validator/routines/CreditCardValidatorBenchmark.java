@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks {@link CreditCardValidator} and the per-network {@link CodeValidator}s.
+ */
+public class CreditCardValidatorBenchmark extends CorpusBenchmark {
+
+    private final CreditCardValidator validator = new CreditCardValidator();
+
+    private final CreditCardValidator allCardsValidator = new CreditCardValidator(
+            CreditCardValidator.AMEX + CreditCardValidator.VISA + CreditCardValidator.MASTERCARD
+                    + CreditCardValidator.DISCOVER + CreditCardValidator.DINERS);
+
+    protected String[] inputs(String corpus) {
+        return Corpus.cards(corpus);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(next());
+    }
+
+    @Benchmark
+    public boolean isValidAllCards() {
+        return allCardsValidator.isValid(next());
+    }
+
+    @Benchmark
+    public Object validate() {
+        return validator.validate(next());
+    }
+
+    @Benchmark
+    public boolean visaCodeValidator() {
+        return CreditCardValidator.VISA_VALIDATOR.isValid(next());
+    }
+}
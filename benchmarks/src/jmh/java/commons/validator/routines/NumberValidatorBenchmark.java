@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.Locale;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks the <code>java.text</code> based {@link IntegerValidator} and
+ * {@link DoubleValidator}.
+ */
+public class NumberValidatorBenchmark extends CorpusBenchmark {
+
+    private final IntegerValidator integerValidator = IntegerValidator.getInstance();
+
+    private final DoubleValidator doubleValidator = DoubleValidator.getInstance();
+
+    protected String[] inputs(String corpus) {
+        return Corpus.numbers(corpus);
+    }
+
+    @Benchmark
+    public Integer integerValidate() {
+        return integerValidator.validate(next());
+    }
+
+    @Benchmark
+    public Integer integerValidateLocale() {
+        return integerValidator.validate(next(), Locale.CHINA);
+    }
+
+    @Benchmark
+    public Integer integerValidatePattern() {
+        return integerValidator.validate(next(), "#,##0");
+    }
+
+    @Benchmark
+    public Double doubleValidate() {
+        return doubleValidator.validate(next());
+    }
+
+    @Benchmark
+    public boolean doubleIsValidGermany() {
+        return doubleValidator.isValid(next(), Locale.GERMANY);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks {@link RegexValidator} with a multi-pattern, multi-group validator,
+ * the shape used by the ISBN and card validators.
+ */
+public class RegexValidatorBenchmark extends CorpusBenchmark {
+
+    private final RegexValidator validator = new RegexValidator(new String[] {
+            ISBNValidator.ISBN10_REGEX, ISBNValidator.ISBN13_REGEX});
+
+    private final RegexValidator caseInsensitiveValidator =
+            new RegexValidator("^[a-z0-9]+(?:[-.][a-z0-9]+)*$", false);
+
+    protected String[] inputs(String corpus) {
+        return Corpus.isbns(corpus);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(next());
+    }
+
+    @Benchmark
+    public String[] match() {
+        return validator.match(next());
+    }
+
+    @Benchmark
+    public String validate() {
+        return validator.validate(next());
+    }
+
+    @Benchmark
+    public boolean isValidCaseInsensitive() {
+        return caseInsensitiveValidator.isValid(next());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Compares the {@link TldTrie} lookup behind
+ * {@link DomainValidator#isValidTld(String)} with the four binary searches
+ * over the sorted TLD arrays it replaced.
+ */
+public class TldLookupBenchmark extends CorpusBenchmark {
+
+    private static final String[] INFRASTRUCTURE_TLDS =
+            DomainValidator.getTldEntries(DomainValidator.INFRASTRUCTURE_TLD);
+    private static final String[] GENERIC_TLDS =
+            DomainValidator.getTldEntries(DomainValidator.GENERIC_TLD);
+    private static final String[] COUNTRY_CODE_TLDS =
+            DomainValidator.getTldEntries(DomainValidator.COUNTRY_CODE_TLD);
+    private static final String[] LOCAL_TLDS =
+            DomainValidator.getTldEntries(DomainValidator.LOCAL_TLD);
+
+    static {
+        Arrays.sort(INFRASTRUCTURE_TLDS);
+        Arrays.sort(GENERIC_TLDS);
+        Arrays.sort(COUNTRY_CODE_TLDS);
+        Arrays.sort(LOCAL_TLDS);
+    }
+
+    private final DomainValidator validator = DomainValidator.getInstance(true);
+
+    /**
+     * Uses the top label of each domain, with the leading dot.
+     */
+    protected String[] inputs(String corpus) {
+        String[] domains = Corpus.domains(corpus);
+        String[] tlds = new String[domains.length];
+        for (int i = 0; i < domains.length; i++) {
+            String ascii = DomainValidator.unicodeToASCII(domains[i]);
+            int dot = ascii.lastIndexOf('.');
+            tlds[i] = dot < 0 ? ascii : ascii.substring(dot);
+        }
+        return tlds;
+    }
+
+    @Benchmark
+    public boolean trie() {
+        return validator.isValidTld(next());
+    }
+
+    @Benchmark
+    public boolean binarySearch() {
+        String tld = chompLeadingDot(next().toLowerCase(Locale.ENGLISH));
+        return Arrays.binarySearch(LOCAL_TLDS, tld) >= 0
+                || Arrays.binarySearch(INFRASTRUCTURE_TLDS, tld) >= 0
+                || Arrays.binarySearch(GENERIC_TLDS, tld) >= 0
+                || Arrays.binarySearch(COUNTRY_CODE_TLDS, tld) >= 0;
+    }
+
+    private static String chompLeadingDot(String str) {
+        if (str.startsWith(".")) {
+            return str.substring(1);
+        }
+        return str;
+    }
+}
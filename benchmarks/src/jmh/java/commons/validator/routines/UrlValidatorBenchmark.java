@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks {@link UrlValidator#isValid(String)}.
+ */
+public class UrlValidatorBenchmark extends CorpusBenchmark {
+
+    private final UrlValidator defaultValidator = UrlValidator.getInstance();
+
+    private final UrlValidator localValidator =
+            new UrlValidator(null, null, UrlValidator.ALLOW_LOCAL_URLS + UrlValidator.ALLOW_2_SLASHES);
+
+    protected String[] inputs(String corpus) {
+        return Corpus.urls(corpus);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return defaultValidator.isValid(next());
+    }
+
+    @Benchmark
+    public boolean isValidAllowLocal() {
+        return localValidator.isValid(next());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package commons.validator.routines.checkdigit;
+
+import commons.validator.routines.Corpus;
+import commons.validator.routines.CorpusBenchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Benchmarks the {@link ModulusCheckDigit} implementations and the
+ * {@link CheckDigitTable} tables behind them on their own, without the
+ * format regexes of the code validators in front of them.
+ * <p>
+ * The ISBN and card corpora are fed unchanged, so the invalid, IDN and
+ * pathological inputs exercise the error paths, which throw
+ * {@link CheckDigitException} when calculating.
+ */
+public class CheckDigitBenchmark extends CorpusBenchmark {
+
+    private String[] inputs;
+    private boolean[] results;
+    private String[] digitsOnly;
+    private int digitsCursor;
+
+    protected String[] inputs(String corpus) {
+        String[] isbns = Corpus.isbns(corpus);
+        String[] cards = Corpus.cards(corpus);
+        String[] inputs = new String[isbns.length + cards.length];
+        System.arraycopy(isbns, 0, inputs, 0, isbns.length);
+        System.arraycopy(cards, 0, inputs, isbns.length, cards.length);
+
+        // calculate() requires the code without its check digit
+        digitsOnly = new String[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            String code = inputs[i];
+            digitsOnly[i] = code.length() > 1 ? code.substring(0, code.length() - 1) : code;
+        }
+        digitsCursor = 0;
+        this.inputs = inputs;
+        results = new boolean[inputs.length];
+        return inputs;
+    }
+
+    @Benchmark
+    public boolean luhnIsValid() {
+        return LuhnCheckDigit.LUHN_CHECK_DIGIT.isValid(next());
+    }
+
+    @Benchmark
+    public boolean ean13IsValid() {
+        return EAN13CheckDigit.EAN13_CHECK_DIGIT.isValid(next());
+    }
+
+    @Benchmark
+    public boolean isbn10IsValid() {
+        return ISBN10CheckDigit.ISBN10_CHECK_DIGIT.isValid(next());
+    }
+
+    @Benchmark
+    public boolean tableLuhnIsValid() {
+        return CheckDigitTable.LUHN.isValid(next());
+    }
+
+    @Benchmark
+    public int tableLuhnBatch() {
+        return CheckDigitTable.LUHN.isValidAll(inputs, results);
+    }
+
+    @Benchmark
+    public int tableLuhnCalculate() {
+        return CheckDigitTable.LUHN.calculate(nextDigitsOnly());
+    }
+
+    @Benchmark
+    public String luhnCalculate() {
+        String code = nextDigitsOnly();
+        try {
+            return LuhnCheckDigit.LUHN_CHECK_DIGIT.calculate(code);
+        } catch (CheckDigitException e) {
+            return null;
+        }
+    }
+
+    private String nextDigitsOnly() {
+        String code = digitsOnly[digitsCursor];
+        if (++digitsCursor == digitsOnly.length) {
+            digitsCursor = 0;
+        }
+        return code;
+    }
+}
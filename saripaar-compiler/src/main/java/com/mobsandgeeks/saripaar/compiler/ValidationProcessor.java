@@ -0,0 +1,733 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a {@code <Controller>_Validation} class, a subclass of
+ * {@code com.mobsandgeeks.saripaar.GeneratedValidation}, for each class with Saripaar annotated
+ * {@code View} fields. The generated class reads the fields and creates the rules directly, so
+ * that the {@code Validator} does not have to find them through reflection.
+ * <p>
+ * Classes whose fields, views or annotations are not accessible from their own package are
+ * skipped with a note, the {@code Validator} falls back to reflection for them. So does a rule
+ * whose constructor is not accessible.
+ * <p>
+ * The processor runs for the stock annotations and claims them. Custom rule annotations outside
+ * {@code com.mobsandgeeks.saripaar.annotation} are listed, as names or {@code package.*}
+ * patterns separated by commas, in the {@code saripaar.annotations} option, so that they are
+ * claimed too and classes annotated with them alone are processed as well.
+ */
+public final class ValidationProcessor extends AbstractProcessor {
+    private static final String SUFFIX = "_Validation";
+
+    private static final String OPTION_ANNOTATIONS = "saripaar.annotations";
+
+    private static final String VIEW = "android.view.View";
+    private static final String ANNOTATION_PACKAGE = "com.mobsandgeeks.saripaar.annotation";
+    private static final String ORDER = ANNOTATION_PACKAGE + ".Order";
+    private static final String VALIDATE_USING = ANNOTATION_PACKAGE + ".ValidateUsing";
+    private static final String GENERATED_VALIDATION =
+            "com.mobsandgeeks.saripaar.GeneratedValidation";
+    private static final String ANNOTATION_RULE = "com.mobsandgeeks.saripaar.AnnotationRule";
+    private static final String CONTEXTUAL_ANNOTATION_RULE =
+            "com.mobsandgeeks.saripaar.ContextualAnnotationRule";
+    private static final String VALIDATION_CONTEXT =
+            "com.mobsandgeeks.saripaar.ValidationContext";
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_ANNOTATIONS);
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> annotationTypes = new LinkedHashSet<String>();
+        annotationTypes.add(ANNOTATION_PACKAGE + ".*");
+
+        // Custom rule annotations can live in any package
+        String customAnnotationTypes = processingEnv != null
+                ? processingEnv.getOptions().get(OPTION_ANNOTATIONS)
+                : null;
+        if (customAnnotationTypes != null) {
+            for (String annotationType : customAnnotationTypes.split(",")) {
+                if (!annotationType.trim().isEmpty()) {
+                    annotationTypes.add(annotationType.trim());
+                }
+            }
+        }
+        return annotationTypes;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+            final RoundEnvironment roundEnvironment) {
+        TypeElement viewElement = processingEnv.getElementUtils().getTypeElement(VIEW);
+        if (viewElement == null) {
+            return true;
+        }
+
+        List<TypeElement> controllers = new ArrayList<TypeElement>();
+        for (TypeElement typeElement : ElementFilter.typesIn(roundEnvironment.getRootElements())) {
+            addClasses(typeElement, controllers);
+        }
+        for (TypeElement controller : controllers) {
+            process(controller, viewElement.asType());
+        }
+
+        // Only Saripaar annotations are supported, no other processor handles them
+        return true;
+    }
+
+    /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *  Private Methods
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+    private void addClasses(final TypeElement typeElement, final List<TypeElement> classes) {
+        if (typeElement.getKind() == ElementKind.CLASS) {
+            classes.add(typeElement);
+        }
+        for (TypeElement nestedElement
+                : ElementFilter.typesIn(typeElement.getEnclosedElements())) {
+            addClasses(nestedElement, classes);
+        }
+    }
+
+    private void process(final TypeElement controller, final TypeMirror viewType) {
+        Set<Modifier> modifiers = controller.getModifiers();
+        if (modifiers.contains(Modifier.ABSTRACT) || modifiers.contains(Modifier.PRIVATE)) {
+            return;
+        }
+
+        List<ViewField> fields = getAnnotatedViewFields(controller, viewType);
+        if (fields.isEmpty()) {
+            return;
+        }
+
+        String packageName = getPackageName(controller);
+        String inaccessible = findInaccessible(fields, packageName);
+        if (inaccessible == null && !isAccessible(controller, packageName)) {
+            inaccessible = controller.getQualifiedName().toString();
+        }
+        if (inaccessible != null) {
+            String message = String.format("'%s' is not accessible to generated code, "
+                    + "%s will be validated through reflection.", inaccessible,
+                    controller.getSimpleName());
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, controller);
+            return;
+        }
+
+        String binaryName = processingEnv.getElementUtils().getBinaryName(controller).toString();
+        String className = binaryName.substring(binaryName.lastIndexOf('.') + 1) + SUFFIX;
+        String source;
+        try {
+            source = new SourceWriter(controller, packageName, className, fields).write();
+        } catch (UnsupportedOperationException e) {
+            String message = String.format("%s, %s will be validated through reflection.",
+                    e.getMessage(), controller.getSimpleName());
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, controller);
+            return;
+        }
+
+        String qualifiedName = packageName.isEmpty()
+                ? className
+                : packageName + "." + className;
+        Writer writer = null;
+        try {
+            writer = processingEnv.getFiler()
+                    .createSourceFile(qualifiedName, controller)
+                    .openWriter();
+            writer.write(source);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    String.format("Unable to write '%s': %s", qualifiedName, e.getMessage()),
+                    controller);
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            String.format("Unable to close '%s': %s", qualifiedName,
+                                    e.getMessage()),
+                            controller);
+                }
+            }
+        }
+    }
+
+    private List<ViewField> getAnnotatedViewFields(final TypeElement controller,
+            final TypeMirror viewType) {
+        List<ViewField> viewFields = new ArrayList<ViewField>();
+
+        // Same order as reflection, fields declared in the controller and then inherited fields
+        TypeElement typeElement = controller;
+        while (typeElement != null) {
+            for (VariableElement field
+                    : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+                TypeMirror fieldType = processingEnv.getTypeUtils().erasure(field.asType());
+                if (!processingEnv.getTypeUtils().isAssignable(fieldType, viewType)) {
+                    continue;
+                }
+
+                List<AnnotationMirror> annotations = new ArrayList<AnnotationMirror>();
+                for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+                    if (isSaripaarAnnotation(annotation)) {
+                        annotations.add(annotation);
+                    }
+                }
+                if (!annotations.isEmpty()) {
+                    viewFields.add(new ViewField(typeElement, field, fieldType, annotations));
+                }
+            }
+
+            TypeMirror superclass = typeElement.getSuperclass();
+            typeElement = superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null;
+        }
+
+        return viewFields;
+    }
+
+    private boolean isSaripaarAnnotation(final AnnotationMirror annotation) {
+        TypeElement annotationElement = (TypeElement) annotation.getAnnotationType().asElement();
+        return ORDER.equals(annotationElement.getQualifiedName().toString())
+                || getRuleElement(annotationElement) != null;
+    }
+
+    private TypeElement getRuleElement(final TypeElement annotationElement) {
+        for (AnnotationMirror metaAnnotation : annotationElement.getAnnotationMirrors()) {
+            TypeElement metaElement = (TypeElement) metaAnnotation.getAnnotationType().asElement();
+            if (VALIDATE_USING.equals(metaElement.getQualifiedName().toString())) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : metaAnnotation.getElementValues().entrySet()) {
+                    if ("value".equals(entry.getKey().getSimpleName().toString())) {
+                        TypeMirror ruleType = (TypeMirror) entry.getValue().getValue();
+                        return (TypeElement) ((DeclaredType) ruleType).asElement();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private String findInaccessible(final List<ViewField> fields, final String packageName) {
+        for (ViewField field : fields) {
+            if (!isAccessible(field.mField, field.mDeclaringElement, packageName)) {
+                return field.mDeclaringElement.getQualifiedName() + "." + field.mField;
+            }
+            TypeElement fieldTypeElement = (TypeElement) ((DeclaredType) field.mType).asElement();
+            if (!isAccessible(fieldTypeElement, packageName)) {
+                return fieldTypeElement.getQualifiedName().toString();
+            }
+            for (AnnotationMirror annotation : field.mAnnotations) {
+                TypeElement annotationElement =
+                        (TypeElement) annotation.getAnnotationType().asElement();
+                if (!isAccessible(annotationElement, packageName)) {
+                    return annotationElement.getQualifiedName().toString();
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isAccessible(final Element member, final TypeElement declaringElement,
+            final String packageName) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || !isAccessible(declaringElement, packageName)) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC)
+                || packageName.equals(getPackageName(declaringElement));
+    }
+
+    private boolean isAccessible(final TypeElement typeElement, final String packageName) {
+        Element element = typeElement;
+        while (element.getKind().isClass() || element.getKind().isInterface()) {
+            Set<Modifier> modifiers = element.getModifiers();
+            boolean accessible = !modifiers.contains(Modifier.PRIVATE)
+                    && (modifiers.contains(Modifier.PUBLIC)
+                            || packageName.equals(getPackageName(element)));
+            if (!accessible) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+
+        // Local and anonymous classes cannot be named
+        return element.getKind() == ElementKind.PACKAGE;
+    }
+
+    private String getPackageName(final Element element) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(element);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    private boolean isSubtype(final TypeElement typeElement, final String superclassName) {
+        TypeElement superclassElement =
+                processingEnv.getElementUtils().getTypeElement(superclassName);
+        return superclassElement != null && processingEnv.getTypeUtils().isSubtype(
+                processingEnv.getTypeUtils().erasure(typeElement.asType()),
+                processingEnv.getTypeUtils().erasure(superclassElement.asType()));
+    }
+
+    /**
+     * An annotated {@code View} field, with the Saripaar annotations in declaration order.
+     */
+    private static final class ViewField {
+        private final TypeElement mDeclaringElement;
+        private final VariableElement mField;
+        private final TypeMirror mType;
+        private final List<AnnotationMirror> mAnnotations;
+
+        ViewField(final TypeElement declaringElement, final VariableElement field,
+                final TypeMirror type, final List<AnnotationMirror> annotations) {
+            mDeclaringElement = declaringElement;
+            mField = field;
+            mType = type;
+            mAnnotations = annotations;
+        }
+    }
+
+    /**
+     * Writes the source of a generated class.
+     */
+    private final class SourceWriter {
+        private final TypeElement mController;
+        private final String mPackageName;
+        private final String mClassName;
+        private final List<ViewField> mFields;
+        private final StringBuilder mBuilder = new StringBuilder();
+
+        SourceWriter(final TypeElement controller, final String packageName,
+                final String className, final List<ViewField> fields) {
+            mController = controller;
+            mPackageName = packageName;
+            mClassName = className;
+            mFields = fields;
+        }
+
+        String write() {
+            String controllerName = erasure(mController.asType());
+
+            line(0, "// Generated by the Saripaar annotation processor. Do not modify.");
+            if (!mPackageName.isEmpty()) {
+                line(0, "package " + mPackageName + ";");
+            }
+            line(0, "");
+            line(0, "@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            line(0, "public final class " + mClassName);
+            line(2, "extends " + GENERATED_VALIDATION + "<" + controllerName + "> {");
+
+            line(1, "private static final String[] NAMES = {");
+            for (ViewField field : mFields) {
+                line(3, literal(field.mField.getSimpleName().toString()) + ",");
+            }
+            line(1, "};");
+            line(0, "");
+
+            line(1, "private static final Class[] TYPES = {");
+            for (ViewField field : mFields) {
+                line(3, erasure(field.mType) + ".class,");
+            }
+            line(1, "};");
+            line(0, "");
+
+            line(1, "private static final java.lang.annotation.Annotation[][] ANNOTATIONS = {");
+            for (ViewField field : mFields) {
+                line(3, "{");
+                for (AnnotationMirror annotation : field.mAnnotations) {
+                    writeAnnotation(annotation);
+                }
+                line(3, "},");
+            }
+            line(1, "};");
+            line(0, "");
+
+            line(1, "@Override");
+            line(1, "public int getFieldCount() {");
+            line(2, "return " + mFields.size() + ";");
+            line(1, "}");
+            line(0, "");
+
+            line(1, "@Override");
+            line(1, "public String getFieldName(int field) {");
+            line(2, "return NAMES[field];");
+            line(1, "}");
+            line(0, "");
+
+            line(1, "@Override");
+            line(1, "public Class<? extends " + VIEW + "> getFieldType(int field) {");
+            line(2, "return TYPES[field];");
+            line(1, "}");
+            line(0, "");
+
+            line(1, "@Override");
+            line(1, "public java.lang.annotation.Annotation[] getAnnotations(int field) {");
+            line(2, "return ANNOTATIONS[field];");
+            line(1, "}");
+            line(0, "");
+
+            writeGetView(controllerName);
+            writeNewRule();
+            line(0, "}");
+
+            return mBuilder.toString();
+        }
+
+        private void writeGetView(final String controllerName) {
+            line(1, "@Override");
+            line(1, "public " + VIEW + " getView(" + controllerName + " controller, int field) {");
+            line(2, "switch (field) {");
+            for (int i = 0; i < mFields.size(); i++) {
+                ViewField field = mFields.get(i);
+
+                // Inherited fields may be hidden by fields of the same name
+                String target = field.mDeclaringElement.equals(mController)
+                        ? "controller"
+                        : "((" + erasure(field.mDeclaringElement.asType()) + ") controller)";
+                line(3, "case " + i + ":");
+                line(4, "return " + target + "." + field.mField.getSimpleName() + ";");
+            }
+            line(3, "default:");
+            line(4, "throw new IndexOutOfBoundsException(String.valueOf(field));");
+            line(2, "}");
+            line(1, "}");
+            line(0, "");
+        }
+
+        private void writeNewRule() {
+            line(1, "@Override");
+            line(1, "public com.mobsandgeeks.saripaar.AnnotationRule newRule(int field, "
+                    + "int annotation,");
+            line(3, VALIDATION_CONTEXT + " validationContext) {");
+            line(2, "switch (field) {");
+            for (int i = 0; i < mFields.size(); i++) {
+                List<AnnotationMirror> annotations = mFields.get(i).mAnnotations;
+                List<String> cases = new ArrayList<String>();
+                for (int j = 0; j < annotations.size(); j++) {
+                    String ruleCreation = getRuleCreation(annotations.get(j), i, j);
+                    if (ruleCreation != null) {
+                        cases.add("case " + j + ":");
+                        cases.add(ruleCreation);
+                    }
+                }
+                if (cases.isEmpty()) {
+                    continue;
+                }
+
+                line(3, "case " + i + ":");
+                line(4, "switch (annotation) {");
+                for (int k = 0; k < cases.size(); k += 2) {
+                    line(5, cases.get(k));
+                    line(6, "return " + cases.get(k + 1) + ";");
+                }
+                line(4, "}");
+                line(4, "break;");
+            }
+            line(2, "}");
+            line(2, "return null;");
+            line(1, "}");
+        }
+
+        private String getRuleCreation(final AnnotationMirror annotation, final int field,
+                final int index) {
+            TypeElement annotationElement =
+                    (TypeElement) annotation.getAnnotationType().asElement();
+            TypeElement ruleElement = getRuleElement(annotationElement);
+            if (ruleElement == null || !isSubtype(ruleElement, ANNOTATION_RULE)
+                    || ruleElement.getModifiers().contains(Modifier.ABSTRACT)
+                    || !isAccessible(ruleElement, mPackageName)) {
+                return null;
+            }
+
+            // Same constructor as Reflector.getRuleConstructor()
+            boolean contextual = isSubtype(ruleElement, CONTEXTUAL_ANNOTATION_RULE);
+            String annotationName = annotationElement.getQualifiedName().toString();
+            ExecutableElement constructor = null;
+            for (ExecutableElement candidate
+                    : ElementFilter.constructorsIn(ruleElement.getEnclosedElements())) {
+                List<? extends VariableElement> parameters = candidate.getParameters();
+                boolean matching = contextual
+                        ? parameters.size() == 2
+                                && VALIDATION_CONTEXT.equals(erasure(parameters.get(0).asType()))
+                                && annotationName.equals(erasure(parameters.get(1).asType()))
+                        : parameters.size() == 1
+                                && annotationName.equals(erasure(parameters.get(0).asType()));
+                if (matching) {
+                    constructor = candidate;
+                }
+            }
+            if (constructor == null) {
+                return null;
+            }
+
+            // A protected constructor is reached through an anonymous subclass
+            Set<Modifier> modifiers = constructor.getModifiers();
+            String body;
+            if (modifiers.contains(Modifier.PUBLIC)
+                    || !modifiers.contains(Modifier.PRIVATE)
+                            && mPackageName.equals(getPackageName(ruleElement))) {
+                body = "";
+            } else if (modifiers.contains(Modifier.PROTECTED)
+                    && !ruleElement.getModifiers().contains(Modifier.FINAL)) {
+                body = " {}";
+            } else {
+                return null;
+            }
+
+            String argument = "(" + annotationName + ") ANNOTATIONS[" + field + "][" + index + "]";
+            return "new " + ruleElement.getQualifiedName() + "("
+                    + (contextual ? "validationContext, " : "") + argument + ")" + body;
+        }
+
+        private void writeAnnotation(final AnnotationMirror annotation) {
+            TypeElement annotationElement =
+                    (TypeElement) annotation.getAnnotationType().asElement();
+            String annotationName = annotationElement.getQualifiedName().toString();
+            List<ExecutableElement> attributes =
+                    ElementFilter.methodsIn(annotationElement.getEnclosedElements());
+
+            line(4, "new " + annotationName + "() {");
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                    processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+            for (ExecutableElement attribute : attributes) {
+                TypeMirror returnType = attribute.getReturnType();
+                line(5, "public " + returnType + " " + attribute.getSimpleName() + "() {");
+                line(6, "return " + literal(values.get(attribute), returnType) + ";");
+                line(5, "}");
+                line(0, "");
+            }
+            line(5, "public Class<? extends java.lang.annotation.Annotation> "
+                    + "annotationType() {");
+            line(6, "return " + annotationName + ".class;");
+            line(5, "}");
+            line(0, "");
+
+            writeAnnotationEquals(annotationName, attributes);
+            writeAnnotationHashCode(attributes);
+            writeAnnotationToString(annotationName, attributes);
+            line(4, "},");
+        }
+
+        // Equal to any implementation of the annotation type with the same values, as specified
+        // by java.lang.annotation.Annotation
+        private void writeAnnotationEquals(final String annotationName,
+                final List<ExecutableElement> attributes) {
+            line(5, "@Override");
+            line(5, "public boolean equals(Object object) {");
+            if (attributes.isEmpty()) {
+                line(6, "return object instanceof " + annotationName + ";");
+                line(5, "}");
+                line(0, "");
+                return;
+            }
+
+            line(6, "if (!(object instanceof " + annotationName + ")) {");
+            line(7, "return false;");
+            line(6, "}");
+            line(6, annotationName + " other = (" + annotationName + ") object;");
+            for (int i = 0; i < attributes.size(); i++) {
+                ExecutableElement attribute = attributes.get(i);
+                String name = attribute.getSimpleName() + "()";
+                String otherName = "other." + name;
+                String comparison;
+                switch (attribute.getReturnType().getKind()) {
+                    case FLOAT:
+                        comparison = "Float.floatToIntBits(" + name
+                                + ") == Float.floatToIntBits(" + otherName + ")";
+                        break;
+                    case DOUBLE:
+                        comparison = "Double.doubleToLongBits(" + name
+                                + ") == Double.doubleToLongBits(" + otherName + ")";
+                        break;
+                    case ARRAY:
+                        comparison = "java.util.Arrays.equals(" + name + ", " + otherName + ")";
+                        break;
+                    case DECLARED:
+                        comparison = name + ".equals(" + otherName + ")";
+                        break;
+                    default:
+                        comparison = name + " == " + otherName;
+                        break;
+                }
+                boolean last = i == attributes.size() - 1;
+                line(i == 0 ? 6 : 8, (i == 0 ? "return " : "&& ") + comparison + (last ? ";" : ""));
+            }
+            line(5, "}");
+            line(0, "");
+        }
+
+        // The sum of (127 * name.hashCode()) ^ value hash code of the attributes, as specified by
+        // java.lang.annotation.Annotation
+        private void writeAnnotationHashCode(final List<ExecutableElement> attributes) {
+            line(5, "@Override");
+            line(5, "public int hashCode() {");
+            if (attributes.isEmpty()) {
+                line(6, "return 0;");
+            }
+            for (int i = 0; i < attributes.size(); i++) {
+                ExecutableElement attribute = attributes.get(i);
+                String name = attribute.getSimpleName().toString();
+                TypeMirror type = attribute.getReturnType();
+                String hashCode;
+                if (type.getKind() == TypeKind.ARRAY) {
+                    hashCode = "java.util.Arrays.hashCode(" + name + "())";
+                } else if (type.getKind().isPrimitive()) {
+                    TypeElement boxedElement =
+                            processingEnv.getTypeUtils().boxedClass((PrimitiveType) type);
+                    hashCode = boxedElement.getSimpleName() + ".valueOf(" + name + "())"
+                            + ".hashCode()";
+                } else {
+                    hashCode = name + "().hashCode()";
+                }
+                boolean last = i == attributes.size() - 1;
+                line(i == 0 ? 6 : 8, (i == 0 ? "return " : "+ ") + "(" + (127 * name.hashCode())
+                        + " ^ " + hashCode + ")" + (last ? ";" : ""));
+            }
+            line(5, "}");
+            line(0, "");
+        }
+
+        private void writeAnnotationToString(final String annotationName,
+                final List<ExecutableElement> attributes) {
+            line(5, "@Override");
+            line(5, "public String toString() {");
+            line(6, "return " + literal("@" + annotationName + "("));
+            for (int i = 0; i < attributes.size(); i++) {
+                ExecutableElement attribute = attributes.get(i);
+                String name = attribute.getSimpleName().toString();
+                String value = attribute.getReturnType().getKind() == TypeKind.ARRAY
+                        ? "java.util.Arrays.toString(" + name + "())"
+                        : name + "()";
+                line(8, "+ " + literal((i == 0 ? "" : ", ") + name + "=") + " + " + value);
+            }
+            line(8, "+ \")\";");
+            line(5, "}");
+        }
+
+        private String literal(final AnnotationValue annotationValue, final TypeMirror type) {
+            if (annotationValue == null) {
+                throw new UnsupportedOperationException("Missing annotation attribute value");
+            }
+
+            Object value = annotationValue.getValue();
+            if (value instanceof List) {
+                TypeMirror componentType = ((ArrayType) type).getComponentType();
+                StringBuilder builder = new StringBuilder("new ")
+                        .append(erasure(componentType))
+                        .append("[] {");
+                List<?> values = (List<?>) value;
+                for (int i = 0; i < values.size(); i++) {
+                    builder.append(i == 0 ? " " : ", ")
+                            .append(literal((AnnotationValue) values.get(i), componentType));
+                }
+                return builder.append(values.isEmpty() ? "}" : " }").toString();
+            } else if (value instanceof String) {
+                return literal((String) value);
+            } else if (value instanceof Character) {
+                return "'" + escape((Character) value) + "'";
+            } else if (value instanceof Float) {
+                return "Float.intBitsToFloat(" + Float.floatToRawIntBits((Float) value) + ")";
+            } else if (value instanceof Double) {
+                return "Double.longBitsToDouble(" + Double.doubleToRawLongBits((Double) value)
+                        + "L)";
+            } else if (value instanceof Long) {
+                return value + "L";
+            } else if (value instanceof Short) {
+                return "(short) " + value;
+            } else if (value instanceof Byte) {
+                return "(byte) " + value;
+            } else if (value instanceof Integer || value instanceof Boolean) {
+                return value.toString();
+            } else if (value instanceof TypeMirror) {
+                return erasure((TypeMirror) value) + ".class";
+            } else if (value instanceof VariableElement) {
+                VariableElement constant = (VariableElement) value;
+                return erasure(constant.asType()) + "." + constant.getSimpleName();
+            }
+
+            // Nested annotations
+            throw new UnsupportedOperationException(
+                    String.format("Unsupported annotation attribute value '%s'", annotationValue));
+        }
+
+        private String literal(final String value) {
+            StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+            for (int i = 0; i < value.length(); i++) {
+                builder.append(escape(value.charAt(i)));
+            }
+            return builder.append('"').toString();
+        }
+
+        private String escape(final char c) {
+            if (c == '"' || c == '\'' || c == '\\') {
+                return "\\" + c;
+            } else if (c >= ' ' && c < 0x7f) {
+                return String.valueOf(c);
+            } else if (c < ' ' || c == 0x7f) {
+                // Unicode escapes are translated before parsing, an escaped line feed would end
+                // the literal
+                return String.format("\\%03o", (int) c);
+            }
+            return String.format("\\u%04x", (int) c);
+        }
+
+        private String erasure(final TypeMirror type) {
+            return processingEnv.getTypeUtils().erasure(type).toString();
+        }
+
+        private void line(final int indent, final String line) {
+            for (int i = 0; i < indent; i++) {
+                mBuilder.append("    ");
+            }
+            mBuilder.append(line).append('\n');
+        }
+    }
+}
@@ -0,0 +1,561 @@
+/*
+ * Copyright (C) 2014 Mobs & Geeks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mobsandgeeks.saripaar.compiler;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compiles controller classes with the {@link ValidationProcessor}, against stand-ins for the
+ * Android and Saripaar types, and checks the generated classes.
+ */
+public class ValidationProcessorTest {
+    // The Android and Saripaar types the generated classes use, names and sources
+    private static final String[] SARIPAAR_SOURCES = {
+        "android.view.View",
+        "package android.view;\n"
+                + "public class View {}\n",
+        "android.widget.EditText",
+        "package android.widget;\n"
+                + "public class EditText extends android.view.View {}\n",
+        "com.mobsandgeeks.saripaar.ValidationContext",
+        "package com.mobsandgeeks.saripaar;\n"
+                + "public class ValidationContext {}\n",
+        "com.mobsandgeeks.saripaar.AnnotationRule",
+        "package com.mobsandgeeks.saripaar;\n"
+                + "public abstract class AnnotationRule<A extends java.lang.annotation.Annotation,"
+                + " T> {\n"
+                + "    protected final A mRuleAnnotation;\n"
+                + "    protected AnnotationRule(A ruleAnnotation) {\n"
+                + "        mRuleAnnotation = ruleAnnotation;\n"
+                + "    }\n"
+                + "    public abstract boolean isValid(T data);\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.ContextualAnnotationRule",
+        "package com.mobsandgeeks.saripaar;\n"
+                + "public abstract class ContextualAnnotationRule"
+                + "<A extends java.lang.annotation.Annotation, T> extends AnnotationRule<A, T> {\n"
+                + "    public final ValidationContext mValidationContext;\n"
+                + "    protected ContextualAnnotationRule(ValidationContext validationContext,"
+                + " A ruleAnnotation) {\n"
+                + "        super(ruleAnnotation);\n"
+                + "        mValidationContext = validationContext;\n"
+                + "    }\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.GeneratedValidation",
+        "package com.mobsandgeeks.saripaar;\n"
+                + "public abstract class GeneratedValidation<CONTROLLER> {\n"
+                + "    public abstract int getFieldCount();\n"
+                + "    public abstract String getFieldName(int field);\n"
+                + "    public abstract Class<? extends android.view.View>"
+                + " getFieldType(int field);\n"
+                + "    public abstract java.lang.annotation.Annotation[]"
+                + " getAnnotations(int field);\n"
+                + "    public abstract android.view.View"
+                + " getView(CONTROLLER controller, int field);\n"
+                + "    public abstract AnnotationRule newRule(int field, int annotation,\n"
+                + "            ValidationContext validationContext);\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.annotation.ValidateUsing",
+        "package com.mobsandgeeks.saripaar.annotation;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface ValidateUsing {\n"
+                + "    Class<? extends com.mobsandgeeks.saripaar.AnnotationRule> value();\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.annotation.Order",
+        "package com.mobsandgeeks.saripaar.annotation;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface Order {\n"
+                + "    int value();\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.annotation.NotEmpty",
+        "package com.mobsandgeeks.saripaar.annotation;\n"
+                + "@ValidateUsing(com.mobsandgeeks.saripaar.rule.NotEmptyRule.class)\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface NotEmpty {\n"
+                + "    int sequence() default -1;\n"
+                + "    String message() default \"This field is required\";\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.annotation.ConfirmPassword",
+        "package com.mobsandgeeks.saripaar.annotation;\n"
+                + "@ValidateUsing(com.mobsandgeeks.saripaar.rule.ConfirmPasswordRule.class)\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface ConfirmPassword {\n"
+                + "    int sequence() default -1;\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.rule.NotEmptyRule",
+        "package com.mobsandgeeks.saripaar.rule;\n"
+                + "import com.mobsandgeeks.saripaar.annotation.NotEmpty;\n"
+                + "public class NotEmptyRule\n"
+                + "        extends com.mobsandgeeks.saripaar.AnnotationRule<NotEmpty, String> {\n"
+                + "    protected NotEmptyRule(NotEmpty notEmpty) {\n"
+                + "        super(notEmpty);\n"
+                + "    }\n"
+                + "    public boolean isValid(String data) {\n"
+                + "        return data.length() > 0;\n"
+                + "    }\n"
+                + "}\n",
+        "com.mobsandgeeks.saripaar.rule.ConfirmPasswordRule",
+        "package com.mobsandgeeks.saripaar.rule;\n"
+                + "import com.mobsandgeeks.saripaar.ValidationContext;\n"
+                + "import com.mobsandgeeks.saripaar.annotation.ConfirmPassword;\n"
+                + "public class ConfirmPasswordRule extends\n"
+                + "        com.mobsandgeeks.saripaar.ContextualAnnotationRule<ConfirmPassword,"
+                + " String> {\n"
+                + "    protected ConfirmPasswordRule(ValidationContext validationContext,\n"
+                + "            ConfirmPassword confirmPassword) {\n"
+                + "        super(validationContext, confirmPassword);\n"
+                + "    }\n"
+                + "    public boolean isValid(String data) {\n"
+                + "        return true;\n"
+                + "    }\n"
+                + "}\n",
+    };
+
+    // Custom rules with constructors of every kind of access, and an annotation with values of
+    // every kind of attribute type
+    private static final String[] CUSTOM_SOURCES = {
+        "com.example.Custom",
+        "package com.example;\n"
+                + "@com.mobsandgeeks.saripaar.annotation.ValidateUsing(CustomRule.class)\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface Custom {\n"
+                + "    int sequence() default -1;\n"
+                + "    String message() default \"a\\n\\\"'\\\\\\u00e9\\u2028\\u0000\";\n"
+                + "    boolean flag() default true;\n"
+                + "    byte b() default 7;\n"
+                + "    short s() default -3;\n"
+                + "    char c() default '\\'';\n"
+                + "    long l() default Long.MIN_VALUE;\n"
+                + "    float f() default -0.0f;\n"
+                + "    double d() default Double.NaN;\n"
+                + "    java.lang.annotation.ElementType type() default"
+                + " java.lang.annotation.ElementType.FIELD;\n"
+                + "    Class<?> k() default int[].class;\n"
+                + "    String[] strings() default {\"x\", \"y\"};\n"
+                + "    int[] ints() default {};\n"
+                + "}\n",
+        "com.example.CustomRule",
+        "package com.example;\n"
+                + "public class CustomRule\n"
+                + "        extends com.mobsandgeeks.saripaar.AnnotationRule<Custom, String> {\n"
+                + "    CustomRule(Custom custom) {\n"
+                + "        super(custom);\n"
+                + "    }\n"
+                + "    public boolean isValid(String data) {\n"
+                + "        return true;\n"
+                + "    }\n"
+                + "}\n",
+        "com.example.Private",
+        "package com.example;\n"
+                + "@com.mobsandgeeks.saripaar.annotation.ValidateUsing(PrivateRule.class)\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface Private {\n"
+                + "}\n",
+        "com.example.PrivateRule",
+        "package com.example;\n"
+                + "public class PrivateRule\n"
+                + "        extends com.mobsandgeeks.saripaar.AnnotationRule<Private, String> {\n"
+                + "    private PrivateRule(Private annotation) {\n"
+                + "        super(annotation);\n"
+                + "    }\n"
+                + "    public boolean isValid(String data) {\n"
+                + "        return true;\n"
+                + "    }\n"
+                + "}\n",
+    };
+
+    private File mDirectory;
+
+    @After
+    public void deleteDirectory() {
+        if (mDirectory != null) {
+            delete(mDirectory);
+        }
+    }
+
+    @Test
+    public void testNestedClasses() throws Exception {
+        Compilation compilation = compile(null,
+                "com.example.Outer",
+                "package com.example;\n"
+                        + "import android.widget.EditText;\n"
+                        + "import com.mobsandgeeks.saripaar.annotation.*;\n"
+                        + "public class Outer {\n"
+                        + "    public static class Form {\n"
+                        + "        @NotEmpty EditText name;\n"
+                        + "    }\n"
+                        + "    static class Inner {\n"
+                        + "        static class Deeper {\n"
+                        + "            @NotEmpty EditText name;\n"
+                        + "        }\n"
+                        + "    }\n"
+                        + "    private static class Hidden {\n"
+                        + "        @NotEmpty EditText name;\n"
+                        + "    }\n"
+                        + "}\n");
+
+        Object form = compilation.newInstance("com.example.Outer$Form");
+        Object validation = compilation.newInstance("com.example.Outer$Form_Validation");
+        assertEquals(1, invoke(validation, "getFieldCount"));
+        assertEquals("name", invoke(validation, "getFieldName", 0));
+        Object view = setView(form, form.getClass(), "name");
+        assertTrue(view == invoke(validation, "getView", form, 0));
+
+        assertNotNull(compilation.loadClass("com.example.Outer$Inner$Deeper_Validation"));
+        assertNull(compilation.loadClass("com.example.Outer$Hidden_Validation"));
+    }
+
+    @Test
+    public void testInheritedFields() throws Exception {
+        Compilation compilation = compile(null,
+                "com.example.Base",
+                "package com.example;\n"
+                        + "import android.widget.EditText;\n"
+                        + "import com.mobsandgeeks.saripaar.annotation.*;\n"
+                        + "public class Base {\n"
+                        + "    @NotEmpty EditText name;\n"
+                        + "    @Order(2) @NotEmpty protected EditText base;\n"
+                        + "    EditText notAnnotated;\n"
+                        + "}\n",
+                "com.example.Form",
+                "package com.example;\n"
+                        + "import android.widget.EditText;\n"
+                        + "import com.mobsandgeeks.saripaar.annotation.*;\n"
+                        + "public class Form extends Base {\n"
+                        + "    @NotEmpty EditText name;\n"
+                        + "    @Order(1) @NotEmpty(sequence = 1) EditText own;\n"
+                        + "    @NotEmpty String notAView;\n"
+                        + "}\n");
+
+        Class<?> formClass = compilation.loadClass("com.example.Form");
+        Object form = formClass.newInstance();
+        Object validation = compilation.newInstance("com.example.Form_Validation");
+
+        // Fields of the controller first, then inherited fields
+        String[] names = {"name", "own", "name", "base"};
+        Class<?>[] declaringClasses = {formClass, formClass, formClass.getSuperclass(),
+                formClass.getSuperclass()};
+        assertEquals(names.length, invoke(validation, "getFieldCount"));
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], invoke(validation, "getFieldName", i));
+            assertEquals(compilation.loadClass("android.widget.EditText"),
+                    invoke(validation, "getFieldType", i));
+
+            // The hidden field of the superclass is read, not the field of the controller
+            Object view = setView(form, declaringClasses[i], names[i]);
+            assertTrue(view == invoke(validation, "getView", form, i));
+            assertAnnotations(declaringClasses[i].getDeclaredField(names[i]),
+                    (Annotation[]) invoke(validation, "getAnnotations", i));
+        }
+        assertNotNull(compilation.loadClass("com.example.Base_Validation"));
+    }
+
+    @Test
+    public void testProtectedRuleConstructors() throws Exception {
+        Compilation compilation = compile(null,
+                "com.example.Form",
+                "package com.example;\n"
+                        + "import android.widget.EditText;\n"
+                        + "import com.mobsandgeeks.saripaar.annotation.*;\n"
+                        + "public class Form {\n"
+                        + "    @NotEmpty @ConfirmPassword @Custom @Private EditText field;\n"
+                        + "}\n");
+
+        Object validation = compilation.newInstance("com.example.Form_Validation");
+        Object context = compilation.newInstance("com.mobsandgeeks.saripaar.ValidationContext");
+
+        // Protected constructors of rules in other packages, through anonymous subclasses
+        Object notEmptyRule = invoke(validation, "newRule", 0, 0, context);
+        assertEquals(compilation.loadClass("com.mobsandgeeks.saripaar.rule.NotEmptyRule"),
+                notEmptyRule.getClass().getSuperclass());
+        Object confirmPasswordRule = invoke(validation, "newRule", 0, 1, context);
+        assertEquals(compilation.loadClass("com.mobsandgeeks.saripaar.rule.ConfirmPasswordRule"),
+                confirmPasswordRule.getClass().getSuperclass());
+        assertTrue(context == confirmPasswordRule.getClass().getField("mValidationContext")
+                .get(confirmPasswordRule));
+
+        // A package-private constructor in the same package
+        Object customRule = invoke(validation, "newRule", 0, 2, context);
+        assertEquals(compilation.loadClass("com.example.CustomRule"), customRule.getClass());
+
+        // Private constructors are left to reflection
+        assertNull(invoke(validation, "newRule", 0, 3, context));
+
+        Annotation[] annotations = (Annotation[]) invoke(validation, "getAnnotations", 0);
+        Field ruleAnnotation = compilation.loadClass("com.mobsandgeeks.saripaar.AnnotationRule")
+                .getDeclaredField("mRuleAnnotation");
+        ruleAnnotation.setAccessible(true);
+        assertTrue(annotations[0] == ruleAnnotation.get(notEmptyRule));
+        assertTrue(annotations[2] == ruleAnnotation.get(customRule));
+    }
+
+    @Test
+    public void testAnnotations() throws Exception {
+        Compilation compilation = compile("com.example.*",
+                "com.example.Form",
+                "package com.example;\n"
+                        + "import android.widget.EditText;\n"
+                        + "import com.mobsandgeeks.saripaar.annotation.*;\n"
+                        + "public class Form {\n"
+                        + "    @Custom @Private EditText defaults;\n"
+                        + "    @Custom(message = \"\", d = -0.0, f = Float.NaN, c = '\\n',"
+                        + " strings = {}, ints = {1, 2}, k = String.class,"
+                        + " type = java.lang.annotation.ElementType.TYPE) EditText values;\n"
+                        + "}\n");
+
+        Class<?> formClass = compilation.loadClass("com.example.Form");
+        Object validation = compilation.newInstance("com.example.Form_Validation");
+        Annotation[] defaults = (Annotation[]) invoke(validation, "getAnnotations", 0);
+        Annotation[] values = (Annotation[]) invoke(validation, "getAnnotations", 1);
+        assertAnnotations(formClass.getDeclaredField("defaults"), defaults);
+        assertAnnotations(formClass.getDeclaredField("values"), values);
+
+        assertFalse(defaults[0].equals(values[0]));
+        assertFalse(values[0].equals(defaults[0]));
+        assertFalse(defaults[0].equals(defaults[1]));
+        assertFalse(defaults[0].equals(null));
+
+        String string = values[0].toString();
+        assertTrue(string, string.startsWith("@com.example.Custom("));
+        assertTrue(string, string.contains("ints=[1, 2]"));
+        assertEquals("@com.example.Private()", defaults[1].toString());
+    }
+
+    @Test
+    public void testCustomAnnotationsOption() throws Exception {
+        String[] sources = {
+            "com.example.Form",
+            "package com.example;\n"
+                    + "public class Form {\n"
+                    + "    @Custom android.widget.EditText field;\n"
+                    + "}\n",
+        };
+
+        // Classes with custom annotations alone are not processed unless the option lists them
+        Compilation compilation = compile(null, sources);
+        assertNull(compilation.loadClass("com.example.Form_Validation"));
+        delete(mDirectory);
+
+        compilation = compile("com.example.Custom", sources);
+        assertNotNull(compilation.loadClass("com.example.Form_Validation"));
+        delete(mDirectory);
+
+        compilation = compile(" com.example.*, com.other.*", sources);
+        assertNotNull(compilation.loadClass("com.example.Form_Validation"));
+    }
+
+    @Test
+    public void testNoWarnings() throws Exception {
+        Compilation compilation = compile(null,
+                "com.example.Form",
+                "package com.example;\n"
+                        + "import com.mobsandgeeks.saripaar.annotation.*;\n"
+                        + "public class Form {\n"
+                        + "    @Order(1) @NotEmpty android.widget.EditText field;\n"
+                        + "}\n");
+
+        // The processor claims the stock annotations it handles, no other processor has to
+        for (Diagnostic<? extends JavaFileObject> diagnostic : compilation.mDiagnostics) {
+            assertFalse(diagnostic.toString(), diagnostic.getKind() == Diagnostic.Kind.WARNING
+                    || diagnostic.getKind() == Diagnostic.Kind.MANDATORY_WARNING);
+        }
+    }
+
+    @Test
+    public void testInaccessibleFields() throws Exception {
+        Compilation compilation = compile(null,
+                "com.example.Form",
+                "package com.example;\n"
+                        + "import com.mobsandgeeks.saripaar.annotation.*;\n"
+                        + "public class Form {\n"
+                        + "    @NotEmpty private android.widget.EditText field;\n"
+                        + "}\n");
+
+        assertNull(compilation.loadClass("com.example.Form_Validation"));
+        boolean noted = false;
+        for (Diagnostic<? extends JavaFileObject> diagnostic : compilation.mDiagnostics) {
+            noted |= diagnostic.getKind() == Diagnostic.Kind.NOTE
+                    && diagnostic.getMessage(null).contains("Form.field");
+        }
+        assertTrue(noted);
+    }
+
+    /* ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     *  Private Methods
+     * ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+     */
+    private Compilation compile(final String customAnnotations, final String... sources)
+            throws IOException {
+        mDirectory = Files.createTempDirectory("saripaar").toFile();
+        File classes = new File(mDirectory, "classes");
+        File generated = new File(mDirectory, "generated");
+        assertTrue(classes.mkdir() && generated.mkdir());
+
+        // The Saripaar types and custom rules are a library, as they are to apps
+        List<JavaFileObject> librarySourceFiles = new ArrayList<JavaFileObject>();
+        addSources(librarySourceFiles, SARIPAAR_SOURCES);
+        addSources(librarySourceFiles, CUSTOM_SOURCES);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-proc:none", "-d", classes.getPath()), null, librarySourceFiles);
+        assertTrue(task.call());
+
+        List<JavaFileObject> sourceFiles = new ArrayList<JavaFileObject>();
+        addSources(sourceFiles, sources);
+        List<String> options = new ArrayList<String>(Arrays.asList("-Xlint:processing",
+                "-cp", classes.getPath(), "-d", classes.getPath(), "-s", generated.getPath()));
+        if (customAnnotations != null) {
+            options.add("-Asaripaar.annotations=" + customAnnotations);
+        }
+
+        // The generated sources are compiled along with the others
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        task = compiler.getTask(null, null, diagnostics, options, null, sourceFiles);
+        task.setProcessors(Collections.singleton(new ValidationProcessor()));
+        assertTrue(diagnostics.getDiagnostics().toString(), task.call());
+
+        return new Compilation(classes, diagnostics.getDiagnostics());
+    }
+
+    private static void addSources(final List<JavaFileObject> sourceFiles,
+            final String[] sources) {
+        for (int i = 0; i < sources.length; i += 2) {
+            sourceFiles.add(new SourceFile(sources[i], sources[i + 1]));
+        }
+    }
+
+    private static void delete(final File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static Object invoke(final Object target, final String methodName,
+            final Object... arguments) throws Exception {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(methodName)
+                    && method.getParameterTypes().length == arguments.length) {
+                try {
+                    return method.invoke(target, arguments);
+                } catch (InvocationTargetException e) {
+                    throw (Exception) e.getCause();
+                }
+            }
+        }
+        throw new NoSuchMethodException(methodName);
+    }
+
+    private static Object setView(final Object controller, final Class<?> declaringClass,
+            final String name) throws Exception {
+        Field field = declaringClass.getDeclaredField(name);
+        field.setAccessible(true);
+        Object view = field.getType().newInstance();
+        field.set(controller, view);
+        return view;
+    }
+
+    // Generated annotations are equal to those read through reflection, either way around
+    private static void assertAnnotations(final Field field, final Annotation[] annotations) {
+        Annotation[] expected = field.getAnnotations();
+        assertEquals(expected.length, annotations.length);
+        for (int i = 0; i < expected.length; i++) {
+            String message = field + " " + expected[i];
+            assertEquals(message, expected[i].annotationType(), annotations[i].annotationType());
+            assertTrue(message, expected[i].equals(annotations[i]));
+            assertTrue(message, annotations[i].equals(expected[i]));
+            assertTrue(message, annotations[i].equals(annotations[i]));
+            assertEquals(message, expected[i].hashCode(), annotations[i].hashCode());
+        }
+    }
+
+    /**
+     * The classes compiled from the sources and the generated sources, and the diagnostics of
+     * the processor.
+     */
+    private static final class Compilation {
+        private final ClassLoader mClassLoader;
+        private final List<Diagnostic<? extends JavaFileObject>> mDiagnostics;
+
+        Compilation(final File classes,
+                final List<Diagnostic<? extends JavaFileObject>> diagnostics) throws IOException {
+            mClassLoader = new URLClassLoader(new URL[] {classes.toURI().toURL()},
+                    ValidationProcessorTest.class.getClassLoader());
+            mDiagnostics = diagnostics;
+        }
+
+        Class<?> loadClass(final String name) {
+            try {
+                return mClassLoader.loadClass(name);
+            } catch (ClassNotFoundException e) {
+                return null;
+            }
+        }
+
+        Object newInstance(final String name) throws Exception {
+            Class<?> type = loadClass(name);
+            assertNotNull(name, type);
+            java.lang.reflect.Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        }
+    }
+
+    /**
+     * A source file held in memory.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String mSource;
+
+        SourceFile(final String name, final String source) {
+            super(URI.create("string:///" + name.replace('.', '/') + Kind.SOURCE.extension),
+                    Kind.SOURCE);
+            mSource = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+            return mSource;
+        }
+    }
+}